@@ -0,0 +1,83 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.service.Position;
+import com.s4n.delivery.service.Position.Orientation;
+import com.s4n.delivery.util.WorkloadGenerator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Seeded synthetic inputs of the benchmarks, so every run (and every commit) measures the same work.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+    private static final char[] COMMANDS = {'A', 'A', 'A', 'I', 'D'};
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    private BenchmarkData() {
+        // As utility class no instances are required
+    }
+
+    /**
+     * @return random commands, 60% forward moves and 40% gyros, so the routes wander around the origin.
+     */
+    static String randomCommands(final Random random, final int length) {
+        final char[] commands = new char[length];
+        for (int i = 0; i < length; i++) {
+            commands[i] = COMMANDS[random.nextInt(COMMANDS.length)];
+        }
+        return new String(commands);
+    }
+
+    /**
+     * @return a random position with both axes in [-radius, radius].
+     */
+    static Position randomPosition(final Random random, final int radius) {
+        return new Position(random.nextInt(2 * radius + 1) - radius, random.nextInt(2 * radius + 1) - radius,
+                            ORIENTATIONS[random.nextInt(ORIENTATIONS.length)]);
+    }
+
+    /**
+     * Writes an input folder with the given number of files, each one with routes from the origin to random points
+     * of delivery within the given radius (see <strong>WorkloadGenerator</strong>).
+     */
+    static void writeInputFolder(final Path folder, final int files, final int routesPerFile, final int radius)
+            throws IOException {
+        new WorkloadGenerator(files, (long) files * routesPerFile, 0, 0, radius, SEED).generate(folder, "in", "txt");
+    }
+
+    /**
+     * @param endpointCacheMaxBytes the memory of the cache of the points of delivery of the routes repeated across
+     *                              files, 0 to disable it, so each collect parses all the routes again.
+     */
+    static Config config(final Path inputFolder, final Path outputFolder, final int maxLoad, final int radius,
+                         final long endpointCacheMaxBytes) {
+        return config(inputFolder, outputFolder, maxLoad, radius, endpointCacheMaxBytes, new Properties());
+    }
+
+    /**
+     * @param overrides the properties that are added to the ones of the benchmarks or replace them.
+     */
+    static Config config(final Path inputFolder, final Path outputFolder, final int maxLoad, final int radius,
+                         final long endpointCacheMaxBytes, final Properties overrides) {
+        final String properties = "MAX_LOAD_PER_DRONE=" + maxLoad + "\n"
+                                  + "MAX_DRONE_OPERATION_RADIO=" + radius + "\n"
+                                  + "NUMBER_OF_AVAILABLE_DRONES=20\n"
+                                  + "DEFAULT_INPUT_FOLDER_PATH=" + inputFolder.toString().replace('\\', '/') + "\n"
+                                  + "INPUT_FILES_EXTENSION=txt\n"
+                                  + "INPUT_FILES_NAME_PREFIX=in\n"
+                                  + "DEFAULT_OUTPUT_FOLDER_PATH=" + outputFolder.toString().replace('\\', '/') + "\n"
+                                  + "OUTPUT_FILE_EXTENSION=txt\n"
+                                  + "OUTPUT_FILES_NAME_PREFIX=out\n"
+                                  + "ROUTE_ENDPOINT_CACHE_MAX_BYTES=" + endpointCacheMaxBytes + "\n";
+        return new Config(new ByteArrayInputStream(properties.getBytes(ISO_8859_1)), overrides);
+    }
+}
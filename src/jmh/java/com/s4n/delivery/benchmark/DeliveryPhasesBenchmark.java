@@ -0,0 +1,107 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.service.DeliveryService;
+import com.s4n.delivery.service.DeliveryServiceImpl;
+import com.s4n.delivery.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.s4n.delivery.benchmark.BenchmarkData.config;
+import static com.s4n.delivery.benchmark.BenchmarkData.writeInputFolder;
+
+/**
+ * The three phases of the batch process over a synthetic input folder. Each phase is measured on its own, so the
+ * phases it depends on run in the setup of each invocation (deliver) or of each iteration (reports).
+ * Note that most of the work runs in the executors of the service, so the allocation rate of the GC profiler is just
+ * a lower bound here, the counts and the time of the collections cover the whole JVM.
+ * The same service is reused by all the invocations, so the cache of the points of delivery of the routes repeated
+ * across files is set explicitly: with 0 it is disabled and each collect parses all the routes, as a new process
+ * does; with a size it is warm after the first invocation, so that variant measures the collect of files already
+ * seen (for example the same files delivered again by the watcher), NOT the cold parsing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DeliveryPhasesBenchmark {
+
+    private static final int FILES = 4;
+
+    @Param({"1000", "10000"})
+    int routesPerFile;
+    @Param({"100"})
+    int radius;
+    @Param({"3", "10"})
+    int maxLoad;
+    @Param({"0", "67108864"})
+    long endpointCacheMaxBytes;
+    private Path folder;
+    private Set<File> inputFiles;
+    private DeliveryService deliveryService;
+
+    @Setup
+    public void setUp() throws IOException {
+        folder = Files.createTempDirectory("delivery-benchmark");
+        final Path inputFolder = folder.resolve("inputs");
+        final Path outputFolder = Files.createDirectories(folder.resolve("reports"));
+        writeInputFolder(inputFolder, FILES, routesPerFile, radius);
+        final Config config = config(inputFolder, outputFolder, maxLoad, radius, endpointCacheMaxBytes);
+        inputFiles = FileUtils.loadAllInputFiles(config);
+        deliveryService = new DeliveryServiceImpl(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        deliveryService.close();
+        org.apache.commons.io.FileUtils.deleteDirectory(folder.toFile());
+    }
+
+    @Benchmark
+    public void collect() {
+        deliveryService.collect(inputFiles);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Collected {
+
+        @Setup(Level.Invocation)
+        public void setUp(final DeliveryPhasesBenchmark benchmark) {
+            benchmark.deliveryService.collect(benchmark.inputFiles);
+        }
+    }
+
+    @Benchmark
+    public void deliver(final Collected collected) {
+        deliveryService.deliver();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Delivered {
+
+        @Setup(Level.Iteration)
+        public void setUp(final DeliveryPhasesBenchmark benchmark) {
+            benchmark.deliveryService.collect(benchmark.inputFiles);
+            benchmark.deliveryService.deliver();
+        }
+    }
+
+    @Benchmark
+    public void generateReports(final Delivered delivered) {
+        deliveryService.generateReports();
+    }
+}
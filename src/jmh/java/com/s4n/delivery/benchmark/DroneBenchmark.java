@@ -0,0 +1,66 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.service.Drone;
+import com.s4n.delivery.util.CommandRuns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.s4n.delivery.benchmark.BenchmarkData.SEED;
+import static com.s4n.delivery.benchmark.BenchmarkData.randomCommands;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DroneBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({"10", "100", "1000"})
+    int commandLength;
+    private String[] commands;
+    private CommandRuns[] runs;
+    private Drone drone;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(SEED);
+        commands = new String[INPUTS];
+        runs = new CommandRuns[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            commands[i] = randomCommands(random, commandLength);
+            runs[i] = CommandRuns.parse(commands[i]);
+        }
+    }
+
+    /**
+     * A new drone per iteration, as each delivery is recorded and the records would grow for the whole run.
+     */
+    @Setup(Level.Iteration)
+    public void newDrone() {
+        drone = new Drone("benchmark", Collections.emptyList());
+    }
+
+    @Benchmark
+    public long deliver() {
+        drone.deliver(commands[next++ & (INPUTS - 1)]);
+        return drone.getState();
+    }
+
+    @Benchmark
+    public long deliverRuns() {
+        drone.deliver(runs[next++ & (INPUTS - 1)]);
+        return drone.getState();
+    }
+}
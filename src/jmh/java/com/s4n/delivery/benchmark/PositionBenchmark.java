@@ -0,0 +1,44 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.service.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.s4n.delivery.benchmark.BenchmarkData.SEED;
+import static com.s4n.delivery.benchmark.BenchmarkData.randomPosition;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({"10", "100000"})
+    int radius;
+    private Position[] positions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(SEED);
+        positions = new Position[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            positions[i] = randomPosition(random, radius);
+        }
+    }
+
+    @Benchmark
+    public String getDescription() {
+        return positions[next++ & (INPUTS - 1)].getDescription();
+    }
+}
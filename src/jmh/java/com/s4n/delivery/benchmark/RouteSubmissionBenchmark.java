@@ -0,0 +1,139 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.service.DeliveryService;
+import com.s4n.delivery.service.DeliveryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.s4n.delivery.benchmark.BenchmarkData.SEED;
+import static com.s4n.delivery.benchmark.BenchmarkData.config;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Requests of concurrent clients to the local submission API, each one with the routes of a drone, over persistent
+ * connections. The sample mode gives the distribution of the latency (p50, p99 and so on) and its inverse the
+ * throughput. The server runs as the application runs it, with Nagle's algorithm disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class RouteSubmissionBenchmark {
+
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int START_TIMEOUT_MILLIS = 10_000;
+
+    @Param({"10", "1000"})
+    int routesPerRequest;
+    @Param({"1", "64"})
+    int batchSize;
+    private Path folder;
+    private DeliveryService deliveryService;
+    private Thread serving;
+    private URL url;
+    private byte[] routes;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        folder = Files.createTempDirectory("submission-benchmark");
+        final int radius = 100;
+        final Random random = new Random(SEED);
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < routesPerRequest; i++) {
+            body.append(BenchmarkData.randomCommands(random, 20)).append('\n');
+        }
+        routes = body.toString().getBytes(US_ASCII);
+        final int port = freePort();
+        final Properties overrides = new Properties();
+        overrides.setProperty("SERVER_PORT", String.valueOf(port));
+        overrides.setProperty("SERVER_BATCH_SIZE", String.valueOf(batchSize));
+        final Config config = config(folder, folder, 3, radius, 0, overrides);
+        deliveryService = new DeliveryServiceImpl(config);
+        serving = new Thread(deliveryService::serve, "submission-benchmark-server");
+        serving.setDaemon(true);
+        serving.start();
+        url = new URL("http://127.0.0.1:" + port + "/deliveries/01");
+        awaitStarted();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        // The server is closed when the serving thread is interrupted
+        serving.interrupt();
+        serving.join();
+        deliveryService.close();
+        org.apache.commons.io.FileUtils.deleteDirectory(folder.toFile());
+    }
+
+    @Benchmark
+    public int submit() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(routes.length);
+        try (final OutputStream output = connection.getOutputStream()) {
+            output.write(routes);
+        }
+        final int status = connection.getResponseCode();
+        // The whole body is read, so the connection is kept alive and reused
+        try (final InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                response.write(buffer, 0, read);
+            }
+            if (status != 200) {
+                throw new IllegalStateException("Unexpected status " + status + ": " + response.toString("US-ASCII"));
+            }
+            return response.size();
+        }
+    }
+
+    private void awaitStarted() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                submit();
+                return;
+            } catch (final IOException exception) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("The server did NOT start", exception);
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.s4n.delivery.benchmark;
+
+import com.s4n.delivery.service.Position;
+import com.s4n.delivery.util.RouteUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.s4n.delivery.benchmark.BenchmarkData.SEED;
+import static com.s4n.delivery.benchmark.BenchmarkData.randomCommands;
+import static com.s4n.delivery.benchmark.BenchmarkData.randomPosition;
+import static com.s4n.delivery.service.Drone.DEFAULT_START_POSITION;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouteUtilsBenchmark {
+
+    // Power of two, so the inputs are cycled with a mask
+    private static final int INPUTS = 1024;
+
+    @State(Scope.Thread)
+    public static class Commands {
+
+        @Param({"10", "100", "1000"})
+        int commandLength;
+        String[] commands;
+        int next;
+
+        @Setup
+        public void setUp() {
+            final Random random = new Random(SEED);
+            commands = new String[INPUTS];
+            for (int i = 0; i < INPUTS; i++) {
+                commands[i] = randomCommands(random, commandLength);
+            }
+        }
+
+        String next() {
+            return commands[next++ & (INPUTS - 1)];
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Legs {
+
+        @Param({"10", "100", "1000"})
+        int radius;
+        Position[] starts;
+        Position[] ends;
+        int next;
+
+        @Setup
+        public void setUp() {
+            final Random random = new Random(SEED);
+            starts = new Position[INPUTS];
+            ends = new Position[INPUTS];
+            for (int i = 0; i < INPUTS; i++) {
+                starts[i] = randomPosition(random, radius);
+                ends[i] = randomPosition(random, radius);
+            }
+        }
+    }
+
+    @Benchmark
+    public Position calculateEndPosition(final Commands commands) {
+        return RouteUtils.calculateEndPosition(commands.next(), DEFAULT_START_POSITION);
+    }
+
+    @Benchmark
+    public String calculateRouteCommands(final Legs legs) {
+        final int leg = legs.next++ & (INPUTS - 1);
+        return RouteUtils.calculateRouteCommands(legs.starts[leg], legs.ends[leg]);
+    }
+}
@@ -11,22 +11,50 @@ import java.util.Arrays;
 import java.util.Set;
 
 import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.SERVER_MODE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_MODE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.STREAMING_MODE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WATCH_MODE_PROPERTY_NAME;
 import static com.s4n.delivery.util.FileUtils.getResourceAsInputStream;
 import static com.s4n.delivery.util.FileUtils.loadAllInputFiles;
 
 public class Application {
 
     private static final Logger logger = LogManager.getLogger(Application.class);
+    private static final String HTTP_SERVER_NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
 
     public static void main(final String[] args) {
         logger.info("Starting app with args={}", Arrays.toString(args));
         final Config config = getConfiguration();
         final Set<File> allInputFiles = loadAllInputFiles(config);
-        final DeliveryService deliveryService = new DeliveryServiceImpl(config);
+        try (final DeliveryService deliveryService = new DeliveryServiceImpl(config)) {
+            if (config.getPropertyAsBoolean(SERVER_MODE_PROPERTY_NAME).orElse(false)) {
+                disableNagleAlgorithm();
+                deliveryService.serve();
+            } else if (config.getPropertyAsBoolean(WATCH_MODE_PROPERTY_NAME).orElse(false)) {
+                deliveryService.watch();
+            } else if (config.getPropertyAsBoolean(SIMULATION_MODE_PROPERTY_NAME).orElse(false)) {
+                deliveryService.collect(allInputFiles);
+                deliveryService.simulate();
+            } else if (config.getPropertyAsBoolean(STREAMING_MODE_PROPERTY_NAME).orElse(false)) {
+                deliveryService.process(allInputFiles);
+            } else {
+                deliveryService.collect(allInputFiles);
+                deliveryService.deliver();
+                deliveryService.generateReports();
+            }
+        }
+    }
 
-        deliveryService.collect(allInputFiles);
-        deliveryService.deliver();
-        deliveryService.generateReports();
+    /**
+     * The headers and the body of a response of the server are separate writes, so with Nagle's algorithm the body
+     * waits for the delayed ACK of the client (about 40 ms) on every request. The JDK reads the property once, when
+     * the first server starts, and a value given with '-D' is kept.
+     */
+    private static void disableNagleAlgorithm() {
+        if (System.getProperty(HTTP_SERVER_NO_DELAY_PROPERTY) == null) {
+            System.setProperty(HTTP_SERVER_NO_DELAY_PROPERTY, "true");
+        }
     }
 
     private static Config getConfiguration() {
@@ -4,6 +4,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -16,6 +20,31 @@ public class Config {
         init(file);
     }
 
+    /**
+     * @param file the properties file.
+     * @param overrides the properties that replace the ones of the file, for example the arguments of a tool.
+     */
+    public Config(final InputStream file, final Properties overrides) {
+        init(file);
+        properties.putAll(overrides);
+    }
+
+    /**
+     * @param arguments the arguments of a tool, each one as 'KEY=VALUE'.
+     * @return the arguments as properties.
+     */
+    public static Properties argumentsAsProperties(final String[] arguments) {
+        final Properties overrides = new Properties();
+        for (final String argument : arguments) {
+            final int separator = argument.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid argument '" + argument + "', expected KEY=VALUE.");
+            }
+            overrides.setProperty(argument.substring(0, separator).trim(), argument.substring(separator + 1).trim());
+        }
+        return overrides;
+    }
+
     private void init(final InputStream propertiesFile) {
         try {
             properties.load(propertiesFile);
@@ -41,4 +70,62 @@ public class Config {
             return Optional.empty();
         }
     }
+
+    public Optional<Long> getPropertyAsLong(final String key) {
+        try {
+            return Optional.of(Long.valueOf(properties.getProperty(key).trim()));
+        } catch (final Exception exception) {
+            logger.warn("The '{}' property was NOT found or an exception was thrown " +
+                        "while converting to Long. Returning empty value.", key);
+            return Optional.empty();
+        }
+    }
+
+    public Optional<Double> getPropertyAsDouble(final String key) {
+        try {
+            return Optional.of(Double.valueOf(properties.getProperty(key).trim()));
+        } catch (final Exception exception) {
+            logger.warn("The '{}' property was NOT found or an exception was thrown " +
+                        "while converting to Double. Returning empty value.", key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param key the name of the property, whose value is a list of integers separated by commas, for example '1,2,4'.
+     * @return the list of integers, or an empty value if the property is NOT found or any value is NOT an integer.
+     */
+    public Optional<List<Integer>> getPropertyAsIntegerList(final String key) {
+        try {
+            final List<Integer> values = new ArrayList<>();
+            for (final String value : properties.getProperty(key).split(",")) {
+                values.add(Integer.valueOf(value.trim()));
+            }
+            return Optional.of(values);
+        } catch (final Exception exception) {
+            logger.warn("The '{}' property was NOT found or an exception was thrown " +
+                        "while converting to a list of Integer. Returning empty value.", key);
+            return Optional.empty();
+        }
+    }
+
+    public Optional<Boolean> getPropertyAsBoolean(final String key) {
+        return getPropertyAsString(key).map(String::trim).map(Boolean::valueOf);
+    }
+
+    /**
+     * @param key the name of the property, whose value is the name of a constant of the given enum, in any case.
+     * @param type the enum.
+     * @return the constant, or an empty value if the property is NOT found or is NOT a constant of the enum.
+     */
+    public <E extends Enum<E>> Optional<E> getPropertyAsEnum(final String key, final Class<E> type) {
+        final Optional<String> name = getPropertyAsString(key).map(String::trim).map(value -> value.toUpperCase(Locale.ROOT));
+        try {
+            return name.map(value -> Enum.valueOf(type, value));
+        } catch (final IllegalArgumentException exception) {
+            logger.warn("The '{}' property has the value '{}', which is NOT one of {}. Returning empty value.",
+                        key, name.get(), Arrays.toString(type.getEnumConstants()));
+            return Optional.empty();
+        }
+    }
 }
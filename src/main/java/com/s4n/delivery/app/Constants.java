@@ -16,4 +16,54 @@ public final class Constants {
     public static final String MAX_OPERATION_RADIO_PROPERTY_NAME = "MAX_DRONE_OPERATION_RADIO";
     public static final String OUTPUT_FILES_EXTENSION_PROPERTY_NAME = "OUTPUT_FILE_EXTENSION";
     public static final String OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME = "OUTPUT_FILES_NAME_PREFIX";
+    public static final String STREAMING_MODE_PROPERTY_NAME = "STREAMING_MODE";
+    public static final String CPU_POOL_PARALLELISM_PROPERTY_NAME = "CPU_POOL_PARALLELISM";
+    public static final String IO_EXECUTOR_PROPERTY_NAME = "IO_EXECUTOR";
+    public static final String IO_POOL_SIZE_PROPERTY_NAME = "IO_POOL_SIZE";
+    public static final String IO_QUEUE_CAPACITY_PROPERTY_NAME = "IO_QUEUE_CAPACITY";
+    public static final String ROUTE_COMMANDS_CACHE_SIZE_PROPERTY_NAME = "ROUTE_COMMANDS_CACHE_SIZE";
+    public static final String ROUTE_ENDPOINT_CACHE_MAX_BYTES_PROPERTY_NAME = "ROUTE_ENDPOINT_CACHE_MAX_BYTES";
+    public static final String DEDUPLICATE_ROUTE_COMMANDS_PROPERTY_NAME = "DEDUPLICATE_ROUTE_COMMANDS";
+    public static final String COMPILED_INTERPRETER_PROPERTY_NAME = "COMPILED_INTERPRETER";
+    public static final String TOUR_ORDERING_PROPERTY_NAME = "TOUR_ORDERING";
+    public static final String TOUR_ORDERING_MAX_PASSES_PROPERTY_NAME = "TOUR_ORDERING_MAX_PASSES";
+    public static final String TOUR_BUILDER_PROPERTY_NAME = "TOUR_BUILDER";
+    public static final String MAX_TOUR_LENGTH_PROPERTY_NAME = "MAX_TOUR_LENGTH";
+    public static final String GLOBAL_ASSIGNMENT_PROPERTY_NAME = "GLOBAL_ASSIGNMENT";
+    public static final String ROUTE_PLANNER_PROPERTY_NAME = "ROUTE_PLANNER";
+    public static final String NO_FLY_ZONES_FILE_PROPERTY_NAME = "NO_FLY_ZONES_FILE";
+    public static final String AIRSPACE_SIMULATION_PROPERTY_NAME = "AIRSPACE_SIMULATION";
+    public static final String AIRSPACE_WINDOW_TICKS_PROPERTY_NAME = "AIRSPACE_WINDOW_TICKS";
+    public static final String SIMULATION_MODE_PROPERTY_NAME = "SIMULATION_MODE";
+    public static final String SIMULATION_FLEET_SIZES_PROPERTY_NAME = "SIMULATION_FLEET_SIZES";
+    public static final String SIMULATION_LOADS_PROPERTY_NAME = "SIMULATION_LOADS";
+    public static final String SIMULATION_REPLICATIONS_PROPERTY_NAME = "SIMULATION_REPLICATIONS";
+    public static final String SIMULATION_FORWARD_MILLIS_PROPERTY_NAME = "SIMULATION_FORWARD_MILLIS";
+    public static final String SIMULATION_GYRO_MILLIS_PROPERTY_NAME = "SIMULATION_GYRO_MILLIS";
+    public static final String SIMULATION_LOADING_MILLIS_PROPERTY_NAME = "SIMULATION_LOADING_MILLIS";
+    public static final String SIMULATION_DELIVERY_MILLIS_PROPERTY_NAME = "SIMULATION_DELIVERY_MILLIS";
+    public static final String SIMULATION_JITTER_PROPERTY_NAME = "SIMULATION_JITTER";
+    public static final String SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME = "SIMULATION_THROUGHPUT_BUCKETS";
+    public static final String REPORT_OUTPUT_PROPERTY_NAME = "REPORT_OUTPUT";
+    public static final String REPORT_GZIP_PROPERTY_NAME = "REPORT_GZIP";
+    public static final String INPUT_FORMAT_PROPERTY_NAME = "INPUT_FORMAT";
+    public static final String REPORT_BINARY_PROPERTY_NAME = "REPORT_BINARY";
+    public static final String WORKLOAD_FOLDER_PROPERTY_NAME = "WORKLOAD_FOLDER";
+    public static final String WORKLOAD_FILES_PROPERTY_NAME = "WORKLOAD_FILES";
+    public static final String WORKLOAD_ROUTES_PROPERTY_NAME = "WORKLOAD_ROUTES";
+    public static final String WORKLOAD_SKEW_PROPERTY_NAME = "WORKLOAD_SKEW";
+    public static final String WORKLOAD_REPETITION_RATE_PROPERTY_NAME = "WORKLOAD_REPETITION_RATE";
+    public static final String WORKLOAD_SEED_PROPERTY_NAME = "WORKLOAD_SEED";
+    public static final String SCALING_MODE_PROPERTY_NAME = "SCALING_MODE";
+    public static final String SCALING_THREADS_PROPERTY_NAME = "SCALING_THREADS";
+    public static final String SCALING_ROUTES_PROPERTY_NAME = "SCALING_ROUTES";
+    public static final String SCALING_REPETITIONS_PROPERTY_NAME = "SCALING_REPETITIONS";
+    public static final String WATCH_MODE_PROPERTY_NAME = "WATCH_MODE";
+    public static final String WATCH_SETTLE_MILLIS_PROPERTY_NAME = "WATCH_SETTLE_MILLIS";
+    public static final String SERVER_MODE_PROPERTY_NAME = "SERVER_MODE";
+    public static final String SERVER_PORT_PROPERTY_NAME = "SERVER_PORT";
+    public static final String SERVER_THREADS_PROPERTY_NAME = "SERVER_THREADS";
+    public static final String SERVER_BATCH_SIZE_PROPERTY_NAME = "SERVER_BATCH_SIZE";
+    public static final String SERVER_MAX_REQUEST_BYTES_PROPERTY_NAME = "SERVER_MAX_REQUEST_BYTES";
+    public static final String METRICS_ENABLED_PROPERTY_NAME = "METRICS_ENABLED";
 }
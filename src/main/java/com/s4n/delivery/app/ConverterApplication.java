@@ -0,0 +1,58 @@
+package com.s4n.delivery.app;
+
+import com.s4n.delivery.service.BinaryFormatConverter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.util.FileUtils.getResourceAsInputStream;
+
+/**
+ * Converts between the text files and the binary files (see <strong>BinaryRouteFile</strong>), for example:
+ *  - routes-to-binary inputs routes.bin
+ *  - binary-to-routes routes.bin inputs
+ *  - reports-to-binary reports deliveries.bin
+ *  - binary-to-reports deliveries.bin reports
+ * The names of the text files are built with the prefixes and extensions of the configuration.
+ */
+public class ConverterApplication {
+
+    private static final Logger logger = LogManager.getLogger(ConverterApplication.class);
+
+    public static void main(final String[] args) {
+        logger.info("Starting converter with args={}", Arrays.toString(args));
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: routes-to-binary|binary-to-routes|reports-to-binary|"
+                                               + "binary-to-reports <source> <target>");
+        }
+        final BinaryFormatConverter converter = new BinaryFormatConverter(new Config(getResourceAsInputStream(DEFAULT_CONFIG_FILE)));
+        final Path source = Paths.get(args[1]);
+        final Path target = Paths.get(args[2]);
+        try {
+            switch (args[0]) {
+                case "routes-to-binary":
+                    converter.routesToBinary(source, target);
+                    break;
+                case "binary-to-routes":
+                    converter.binaryToRoutes(source, target);
+                    break;
+                case "reports-to-binary":
+                    converter.reportsToBinary(source, target);
+                    break;
+                case "binary-to-reports":
+                    converter.binaryToReports(source, target);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown conversion: " + args[0]);
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.s4n.delivery.app;
+
+import com.s4n.delivery.util.WorkloadGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_EXTENSION_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.MAX_OPERATION_RADIO_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_FILES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_FOLDER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_REPETITION_RATE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_ROUTES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_SEED_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_SKEW_PROPERTY_NAME;
+import static com.s4n.delivery.util.FileUtils.getResourceAsInputStream;
+
+/**
+ * Writes a synthetic input folder (see <strong>WorkloadGenerator</strong>) with the settings of the configuration,
+ * which can be overridden with arguments like 'WORKLOAD_FILES=10000' or 'WORKLOAD_ROUTES=50000000'.
+ */
+public class GeneratorApplication {
+
+    private static final Logger logger = LogManager.getLogger(GeneratorApplication.class);
+    static final int DEFAULT_WORKLOAD_FILES = 20;
+    static final long DEFAULT_WORKLOAD_ROUTES = 100_000;
+    static final long DEFAULT_WORKLOAD_SEED = 42;
+    static final String DEFAULT_WORKLOAD_FOLDER = "target/workload";
+
+    public static void main(final String[] args) {
+        logger.info("Starting generator with args={}", Arrays.toString(args));
+        final Config config = new Config(getResourceAsInputStream(DEFAULT_CONFIG_FILE), Config.argumentsAsProperties(args));
+        final long routes = config.getPropertyAsLong(WORKLOAD_ROUTES_PROPERTY_NAME).orElse(DEFAULT_WORKLOAD_ROUTES);
+        try {
+            getWorkloadGenerator(config, routes).generate(Paths.get(config.getPropertyAsString(WORKLOAD_FOLDER_PROPERTY_NAME)
+                                                                          .orElse(DEFAULT_WORKLOAD_FOLDER)),
+                                                          getRequiredProperty(config, INPUT_FILES_NAME_PREFIX_PROPERTY_NAME),
+                                                          getRequiredProperty(config, INPUT_FILES_EXTENSION_PROPERTY_NAME));
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * @return the generator of the configured workload with the given total number of routes.
+     */
+    static WorkloadGenerator getWorkloadGenerator(final Config config, final long routes) {
+        final Optional<Integer> radius = config.getPropertyAsInteger(MAX_OPERATION_RADIO_PROPERTY_NAME);
+        if (radius.isPresent()) {
+            return new WorkloadGenerator(config.getPropertyAsInteger(WORKLOAD_FILES_PROPERTY_NAME).orElse(DEFAULT_WORKLOAD_FILES),
+                                         routes,
+                                         config.getPropertyAsDouble(WORKLOAD_SKEW_PROPERTY_NAME).orElse(0.0),
+                                         config.getPropertyAsDouble(WORKLOAD_REPETITION_RATE_PROPERTY_NAME).orElse(0.0),
+                                         radius.get(),
+                                         config.getPropertyAsLong(WORKLOAD_SEED_PROPERTY_NAME).orElse(DEFAULT_WORKLOAD_SEED));
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    static String getRequiredProperty(final Config config, final String name) {
+        final Optional<String> value = config.getPropertyAsString(name);
+        if (value.isPresent()) {
+            return value.get();
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.s4n.delivery.app;
+
+import com.s4n.delivery.service.DeliveryService;
+import com.s4n.delivery.service.DeliveryServiceImpl;
+import com.s4n.delivery.util.FileUtils;
+import com.s4n.delivery.util.WorkloadGenerator;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.s4n.delivery.app.Constants.CPU_POOL_PARALLELISM_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_EXTENSION_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FOLDER_PATH_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.OUTPUT_FOLDER_PATH_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SCALING_MODE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SCALING_REPETITIONS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SCALING_ROUTES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SCALING_THREADS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_FOLDER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WORKLOAD_ROUTES_PROPERTY_NAME;
+import static com.s4n.delivery.app.GeneratorApplication.DEFAULT_WORKLOAD_FOLDER;
+import static com.s4n.delivery.app.GeneratorApplication.DEFAULT_WORKLOAD_ROUTES;
+import static com.s4n.delivery.app.GeneratorApplication.getRequiredProperty;
+import static com.s4n.delivery.app.GeneratorApplication.getWorkloadGenerator;
+import static com.s4n.delivery.util.FileUtils.getResourceAsInputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Runs the whole batch process (collect, deliver and generate reports) over synthetic workloads (see
+ * <strong>WorkloadGenerator</strong>) for several numbers of threads of the CPU pool and several sizes of the data,
+ * and writes the results to 'scaling-report.csv' in the workload folder. Some facts:
+ *  - The strong scaling runs keep the same routes for every number of threads, the weak scaling runs multiply the
+ *    routes by the number of threads, so the ideal curves are a falling wall time and a flat wall time.
+ *  - Each workload is generated once, in a folder named after all the settings of the generator and the names of the
+ *    files, and reused by all the runs with the same settings. The folder is written under a temporary name and
+ *    renamed once complete, so a change of any setting or an interrupted generation never reuses stale files.
+ *  - Each run records the wall time of each phase, the peak of the heap (the sum of the peaks of the heap pools,
+ *    reset before the run), the number and total time of the garbage collections, and the longest stop-the-world
+ *    pause, that is, without the cycles of the concurrent collectors, whose duration is NOT a pause.
+ *  - A first run, NOT recorded, warms up the JIT.
+ *  - The settings come from the configuration and can be overridden with arguments like 'SCALING_THREADS=1,2,4'.
+ */
+public class ScalingHarness {
+
+    private static final Logger logger = LogManager.getLogger(ScalingHarness.class);
+    private static final String REPORT_FILE_NAME = "scaling-report.csv";
+
+    enum Scaling { STRONG, WEAK, BOTH }
+
+    public static void main(final String[] args) {
+        logger.info("Starting scaling harness with args={}", Arrays.toString(args));
+        final Properties overrides = Config.argumentsAsProperties(args);
+        final Config config = new Config(getResourceAsInputStream(DEFAULT_CONFIG_FILE), overrides);
+        final Scaling scaling = config.getPropertyAsEnum(SCALING_MODE_PROPERTY_NAME, Scaling.class)
+                                      .orElse(Scaling.BOTH);
+        final List<Integer> threads = config.getPropertyAsIntegerList(SCALING_THREADS_PROPERTY_NAME)
+                                            .orElse(powersOfTwoUpTo(Runtime.getRuntime().availableProcessors()));
+        final List<Integer> sizes = config.getPropertyAsIntegerList(SCALING_ROUTES_PROPERTY_NAME)
+                                          .orElse(singletonList(config.getPropertyAsInteger(WORKLOAD_ROUTES_PROPERTY_NAME)
+                                                                      .orElse((int) DEFAULT_WORKLOAD_ROUTES)));
+        final int repetitions = config.getPropertyAsInteger(SCALING_REPETITIONS_PROPERTY_NAME).orElse(1);
+        final Path workFolder = Paths.get(config.getPropertyAsString(WORKLOAD_FOLDER_PROPERTY_NAME).orElse(DEFAULT_WORKLOAD_FOLDER));
+
+        final List<Scaling> modes = scaling == Scaling.BOTH ? Arrays.asList(Scaling.STRONG, Scaling.WEAK) : singletonList(scaling);
+        final GcMonitor gcMonitor = new GcMonitor();
+        final List<String> lines = new ArrayList<>();
+        lines.add("scaling,threads,files,routes,repetition,collectMillis,deliverMillis,reportMillis,wallMillis,"
+                  + "peakHeapBytes,gcCount,gcMillis,maxGcPauseMillis");
+        try {
+            boolean warmedUp = false;
+            for (final Scaling mode : modes) {
+                for (final int size : sizes) {
+                    for (final int threadCount : threads) {
+                        final long routes = mode == Scaling.WEAK ? (long) size * threadCount : size;
+                        final Path inputFolder = generateWorkload(config, workFolder, routes);
+                        if (!warmedUp) {
+                            run(overrides, inputFolder, workFolder, threadCount, routes, -1, gcMonitor);
+                            warmedUp = true;
+                        }
+                        for (int repetition = 0; repetition < repetitions; repetition++) {
+                            final String line = mode + "," + threadCount + ","
+                                                + run(overrides, inputFolder, workFolder, threadCount, routes, repetition, gcMonitor);
+                            logger.info("Scaling run: {}", line);
+                            lines.add(line);
+                        }
+                    }
+                }
+            }
+            final Path report = workFolder.resolve(REPORT_FILE_NAME);
+            try (final BufferedWriter writer = Files.newBufferedWriter(report)) {
+                for (final String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            logger.info("Scaling report written to '{}'", report);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Runs the three phases over the given input folder.
+     * @return the CSV columns 'files,routes,repetition,collectMillis,deliverMillis,reportMillis,wallMillis,
+     *         peakHeapBytes,gcCount,gcMillis,maxGcPauseMillis' of the run.
+     */
+    private static String run(final Properties overrides, final Path inputFolder, final Path workFolder,
+                              final int threadCount, final long routes, final int repetition,
+                              final GcMonitor gcMonitor) throws IOException {
+        final Path outputFolder = Files.createDirectories(workFolder.resolve("reports"));
+        final Properties runOverrides = new Properties();
+        runOverrides.putAll(overrides);
+        runOverrides.setProperty(INPUT_FOLDER_PATH_PROPERTY_NAME, inputFolder.toString());
+        runOverrides.setProperty(OUTPUT_FOLDER_PATH_PROPERTY_NAME, outputFolder.toString());
+        runOverrides.setProperty(CPU_POOL_PARALLELISM_PROPERTY_NAME, String.valueOf(threadCount));
+        final Config config = new Config(getResourceAsInputStream(DEFAULT_CONFIG_FILE), runOverrides);
+        final Set<File> inputFiles = FileUtils.loadAllInputFiles(config);
+
+        System.gc();
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        gcMonitor.reset();
+        final long start = System.nanoTime();
+        final long collected;
+        final long delivered;
+        try (final DeliveryService deliveryService = new DeliveryServiceImpl(config)) {
+            deliveryService.collect(inputFiles);
+            collected = System.nanoTime();
+            deliveryService.deliver();
+            delivered = System.nanoTime();
+            deliveryService.generateReports();
+        }
+        final long end = System.nanoTime();
+        long peakHeapBytes = 0;
+        for (final MemoryPoolMXBean pool : heapPools) {
+            peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        return inputFiles.size() + "," + routes + "," + repetition + "," + NANOSECONDS.toMillis(collected - start) + ","
+               + NANOSECONDS.toMillis(delivered - collected) + "," + NANOSECONDS.toMillis(end - delivered) + ","
+               + NANOSECONDS.toMillis(end - start) + "," + peakHeapBytes + "," + gcMonitor.getCount() + ","
+               + gcMonitor.getMillis() + "," + gcMonitor.getMaxPauseMillis();
+    }
+
+    private static Path generateWorkload(final Config config, final Path workFolder, final long routes) throws IOException {
+        final WorkloadGenerator generator = getWorkloadGenerator(config, routes);
+        final String fileNamePrefix = getRequiredProperty(config, INPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final String extension = getRequiredProperty(config, INPUT_FILES_EXTENSION_PROPERTY_NAME);
+        final Path inputFolder = workFolder.resolve("inputs-" + generator.getSettingsName() + "-" + fileNamePrefix
+                                                    + "-" + extension);
+        if (!Files.isDirectory(inputFolder)) {
+            final Path partialFolder = inputFolder.resolveSibling(inputFolder.getFileName() + ".partial");
+            deleteRecursively(partialFolder);
+            generator.generate(partialFolder, fileNamePrefix, extension);
+            Files.move(partialFolder, inputFolder, ATOMIC_MOVE);
+        }
+        return inputFolder;
+    }
+
+    /**
+     * Deletes the given folder, if exists, with all its content, for example the leftovers of an interrupted run.
+     */
+    private static void deleteRecursively(final Path folder) throws IOException {
+        if (!Files.exists(folder)) {
+            return;
+        }
+        try (final Stream<Path> paths = Files.walk(folder)) {
+            final List<Path> deepestFirst = paths.sorted(Comparator.reverseOrder()).collect(toList());
+            for (final Path path : deepestFirst) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static List<Integer> powersOfTwoUpTo(final int limit) {
+        final List<Integer> powers = new ArrayList<>();
+        for (int power = 1; power <= limit; power *= 2) {
+            powers.add(power);
+        }
+        if (powers.get(powers.size() - 1) != limit) {
+            powers.add(limit);
+        }
+        return powers;
+    }
+
+    /**
+     * Counts the garbage collections since the last reset, with the standard beans, and keeps the longest pause, with
+     * the notifications of the stop-the-world collectors. The collectors of the concurrent cycles ('G1 Concurrent GC'
+     * since JDK 20, 'ZGC Cycles', 'Shenandoah Cycles' or CMS's 'ConcurrentMarkSweep') are left out of the pauses, as
+     * their duration is mostly concurrent with the application, though they are counted in the number and the time.
+     */
+    private static final class GcMonitor {
+
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        private final AtomicLong maxPauseMillis = new AtomicLong();
+        private long startCount;
+        private long startMillis;
+
+        private GcMonitor() {
+            final NotificationListener listener = (notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    final long duration = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                                                                           .getGcInfo()
+                                                                           .getDuration();
+                    maxPauseMillis.accumulateAndGet(duration, Math::max);
+                }
+            };
+            for (final GarbageCollectorMXBean collector : collectors) {
+                if (collector instanceof NotificationEmitter && !isConcurrent(collector.getName())) {
+                    ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                }
+            }
+        }
+
+        private static boolean isConcurrent(final String collectorName) {
+            return collectorName.contains("Concurrent") || collectorName.endsWith("Cycles");
+        }
+
+        void reset() {
+            startCount = getTotalCount();
+            startMillis = getTotalMillis();
+            maxPauseMillis.set(0);
+        }
+
+        long getCount() {
+            return getTotalCount() - startCount;
+        }
+
+        long getMillis() {
+            return getTotalMillis() - startMillis;
+        }
+
+        long getMaxPauseMillis() {
+            return maxPauseMillis.get();
+        }
+
+        private long getTotalCount() {
+            long count = 0;
+            for (final GarbageCollectorMXBean collector : collectors) {
+                count += Math.max(collector.getCollectionCount(), 0);
+            }
+            return count;
+        }
+
+        private long getTotalMillis() {
+            long millis = 0;
+            for (final GarbageCollectorMXBean collector : collectors) {
+                millis += Math.max(collector.getCollectionTime(), 0);
+            }
+            return millis;
+        }
+    }
+}
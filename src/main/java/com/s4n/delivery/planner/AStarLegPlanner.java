@@ -0,0 +1,404 @@
+package com.s4n.delivery.planner;
+
+import com.s4n.delivery.util.CommandRuns;
+
+import java.util.Arrays;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static java.lang.Math.abs;
+
+/**
+ * Plans the shortest leg, counting both the forward moves and the gyros, with an A* search over the states
+ * (x, y, orientation) of the grid, avoiding the cells of the no-fly zones. So it is never longer than the
+ * <strong>LEGACY</strong> recipe, for example a single 'I' instead of 'DDD'.
+ * Some facts:
+ *  - The heuristic is the Manhattan distance plus the minimum number of gyros to face the destination, which is the
+ *    length of the leg along one axis and then the other, starting by the axis that needs fewer gyros. So when that
+ *    leg does NOT cross a no-fly zone, always the case without zones, it is returned straight away without a search.
+ *  - Otherwise the search is bounded to the box of the leg plus a margin of one cell, grown side by side while its
+ *    border crosses a no-fly zone, so the border is free and the drone can fly around the zones in the way. The box
+ *    never goes beyond the operation area (the square of the operation radio), unless the leg itself does, so far
+ *    away zones do NOT widen the search and the drone never leaves the area to avoid a zone.
+ *  - The open set is a binary heap of primitive keys and just the visited states are kept, indexed by a primitive
+ *    open-addressing table, in per-thread arrays that are reused between searches. So the memory of a search grows
+ *    with the states it visits and NOT with the area of its box, and the arrays are released after a big search.
+ *  - Without no-fly zones the leg depends only on its shape, so it can be cached (see <strong>RouteCommandsCache</strong>).
+ */
+public class AStarLegPlanner implements LegPlanner {
+
+    // Indexed by Orientation ordinal: E, N, W, S, as in RouteUtils
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final int LEFT = 1;
+    private static final int RIGHT = 3;
+    private static final int ORIENTATION_MASK = 3;
+    private static final int MARGIN = 1;
+    // A leg along one axis and then the other has at most two gyro runs and two forward runs, as in RouteUtils
+    private static final int MAX_LEG_RUNS_LENGTH = 12;
+    private static final int INITIAL_STATES = 64;
+    private static final int RETAINED_STATES = 1 << 16;
+    private static final int MAX_STATES = 1 << 21;
+    private final ObstacleMap obstacles;
+    private final int maxOperationRadio;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    public AStarLegPlanner() {
+        this(ObstacleMap.EMPTY);
+    }
+
+    public AStarLegPlanner(final ObstacleMap obstacles) {
+        this(obstacles, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param obstacles the no-fly zones.
+     * @param maxOperationRadio the maximum distance, in each axis, from the origin that the drone can fly to avoid
+     *                          the no-fly zones.
+     */
+    public AStarLegPlanner(final ObstacleMap obstacles, final int maxOperationRadio) {
+        this.obstacles = obstacles;
+        this.maxOperationRadio = maxOperationRadio;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the destination point is in a no-fly zone, the no-fly zones enclose it or
+     *                                  the search to fly around them is too big.
+     */
+    @Override
+    public CommandRuns planLeg(final long startState, final int endX, final int endY) {
+        if (obstacles.isBlocked(endX, endY)) {
+            throw new IllegalArgumentException("The point of delivery (" + endX + ", " + endY + ") is in a no-fly zone");
+        }
+        final int startX = x(startState);
+        final int startY = y(startState);
+        if (startX == endX && startY == endY) {
+            return CommandRuns.EMPTY;
+        }
+        final CommandRuns straight = straightLeg(startX, startY, orientation(startState), endX, endY);
+        if (straight != null) {
+            return straight;
+        }
+        // The limits of the box: the operation area, or the leg where it goes beyond the area
+        final int limitMinX = Math.min(Math.min(startX, endX), -maxOperationRadio);
+        final int limitMinY = Math.min(Math.min(startY, endY), -maxOperationRadio);
+        final int limitMaxX = Math.max(Math.max(startX, endX), maxOperationRadio);
+        final int limitMaxY = Math.max(Math.max(startY, endY), maxOperationRadio);
+        int minX = Math.max(Math.min(startX, endX) - MARGIN, limitMinX);
+        int minY = Math.max(Math.min(startY, endY) - MARGIN, limitMinY);
+        int maxX = Math.min(Math.max(startX, endX) + MARGIN, limitMaxX);
+        int maxY = Math.min(Math.max(startY, endY) + MARGIN, limitMaxY);
+        boolean grown = !obstacles.isEmpty();
+        while (grown) {
+            grown = false;
+            if (minX > limitMinX && isColumnBlocked(minX, minY, maxY)) {
+                minX--;
+                grown = true;
+            }
+            if (maxX < limitMaxX && isColumnBlocked(maxX, minY, maxY)) {
+                maxX++;
+                grown = true;
+            }
+            if (minY > limitMinY && isRowBlocked(minY, minX, maxX)) {
+                minY--;
+                grown = true;
+            }
+            if (maxY < limitMaxY && isRowBlocked(maxY, minX, maxX)) {
+                maxY++;
+                grown = true;
+            }
+        }
+        return searches.get().run(obstacles, startX, startY, orientation(startState), endX, endY,
+                                  minX, minY, maxX, maxY);
+    }
+
+    /**
+     * @return the leg along one axis and then the other, starting by the axis that needs fewer gyros (the X axis on
+     *         a tie), or null if it crosses a no-fly zone. Its length is the heuristic, so it is a shortest leg.
+     */
+    private CommandRuns straightLeg(final int startX, final int startY, final int orientation,
+                                    final int endX, final int endY) {
+        final int dx = endX - startX;
+        final int dy = endY - startY;
+        final int horizontal = dx > 0 ? 0 : 2;
+        final int vertical = dy > 0 ? 1 : 3;
+        final boolean horizontalFirst = dy == 0
+                || (dx != 0 && rotations(orientation, horizontal) <= rotations(orientation, vertical));
+        final int cornerX = horizontalFirst ? endX : startX;
+        final int cornerY = horizontalFirst ? startY : endY;
+        if (isSegmentBlocked(startX, startY, cornerX, cornerY) || isSegmentBlocked(cornerX, cornerY, endX, endY)) {
+            return null;
+        }
+        final int first = horizontalFirst ? horizontal : vertical;
+        final int second = horizontalFirst ? vertical : horizontal;
+        final byte[] runs = new byte[MAX_LEG_RUNS_LENGTH];
+        final CommandRuns.Encoder encoder = new CommandRuns.Encoder().reset(runs, 0);
+        encoder.turn(turn(orientation, first)).forward(horizontalFirst ? abs(dx) : abs(dy));
+        if (dx != 0 && dy != 0) {
+            encoder.turn(turn(first, second)).forward(horizontalFirst ? abs(dy) : abs(dx));
+        }
+        return CommandRuns.copyOf(runs, 0, encoder.finish());
+    }
+
+    /**
+     * @return whether the cells of the given vertical or horizontal segment cross a no-fly zone.
+     */
+    private boolean isSegmentBlocked(final int x1, final int y1, final int x2, final int y2) {
+        return x1 == x2
+                ? isColumnBlocked(x1, Math.min(y1, y2), Math.max(y1, y2))
+                : isRowBlocked(y1, Math.min(x1, x2), Math.max(x1, x2));
+    }
+
+    private boolean isColumnBlocked(final int x, final int minY, final int maxY) {
+        if (x < obstacles.getMinX() || x > obstacles.getMaxX()) {
+            return false;
+        }
+        for (int y = Math.max(minY, obstacles.getMinY()); y <= Math.min(maxY, obstacles.getMaxY()); y++) {
+            if (obstacles.isBlocked(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRowBlocked(final int y, final int minX, final int maxX) {
+        if (y < obstacles.getMinY() || y > obstacles.getMaxY()) {
+            return false;
+        }
+        for (int x = Math.max(minX, obstacles.getMinX()); x <= Math.min(maxX, obstacles.getMaxX()); x++) {
+            if (obstacles.isBlocked(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a lower bound of the commands from the given state to the destination, exact without no-fly zones.
+     */
+    static int heuristic(final int x, final int y, final int orientation, final int endX, final int endY) {
+        final int dx = endX - x;
+        final int dy = endY - y;
+        final int horizontal = dx > 0 ? 0 : 2;
+        final int vertical = dy > 0 ? 1 : 3;
+        final int gyros;
+        if (dx == 0 && dy == 0) {
+            gyros = 0;
+        } else if (dy == 0) {
+            gyros = rotations(orientation, horizontal);
+        } else if (dx == 0) {
+            gyros = rotations(orientation, vertical);
+        } else {
+            gyros = 1 + Math.min(rotations(orientation, horizontal), rotations(orientation, vertical));
+        }
+        return abs(dx) + abs(dy) + gyros;
+    }
+
+    private static int rotations(final int from, final int to) {
+        final int difference = (to - from) & ORIENTATION_MASK;
+        return difference == 3 ? 1 : difference;
+    }
+
+    /**
+     * @return the net rotation from an orientation to another one, positive for gyros to the left ('I') and negative
+     *         for gyros to the right ('D').
+     */
+    private static int turn(final int from, final int to) {
+        final int difference = (to - from) & ORIENTATION_MASK;
+        return difference == 3 ? -1 : difference;
+    }
+
+    /**
+     * The reusable state of a search. Just the visited states are kept, in arrays indexed by the order of the visit,
+     * and an open-addressing table maps each packed state (see <strong>PackedPositions</strong>) to its index. A slot
+     * of the table is valid just if its stamp is the generation of the current search, so the table is never cleared.
+     * The arrays that grow beyond <strong>RETAINED_STATES</strong> are released at the start of the next search.
+     */
+    private static final class Search {
+
+        private long[] states = new long[INITIAL_STATES];
+        private int[] scores = new int[INITIAL_STATES];
+        private int[] parents = new int[INITIAL_STATES];
+        private int visited;
+        private int[] slots = new int[2 * INITIAL_STATES];
+        private int[] stamps = new int[2 * INITIAL_STATES];
+        private int generation;
+        private long[] heapKeys = new long[INITIAL_STATES];
+        private int[] heapStates = new int[INITIAL_STATES];
+        private int heapSize;
+
+        CommandRuns run(final ObstacleMap obstacles, final int startX, final int startY, final int startOrientation,
+                        final int endX, final int endY,
+                        final int minX, final int minY, final int maxX, final int maxY) {
+            prepare();
+            relax(pack(startX, startY, startOrientation), -1, 0,
+                  heuristic(startX, startY, startOrientation, endX, endY));
+            while (heapSize > 0) {
+                final long key = heapKeys[0];
+                final int index = heapStates[0];
+                pop();
+                final int score = scores[index];
+                final long state = states[index];
+                final int x = x(state);
+                final int y = y(state);
+                final int orientation = orientation(state);
+                if ((int) (key >>> 32) != score + heuristic(x, y, orientation, endX, endY)) {
+                    // A stale entry of a state whose score was improved after it was pushed
+                    continue;
+                }
+                if (x == endX && y == endY) {
+                    return commandsTo(index, score);
+                }
+                final int nextX = x + DX[orientation];
+                final int nextY = y + DY[orientation];
+                if (nextX >= minX && nextX <= maxX && nextY >= minY && nextY <= maxY && !obstacles.isBlocked(nextX, nextY)) {
+                    relax(pack(nextX, nextY, orientation), index, score + 1,
+                          heuristic(nextX, nextY, orientation, endX, endY));
+                }
+                final int left = (orientation + LEFT) & ORIENTATION_MASK;
+                relax(pack(x, y, left), index, score + 1, heuristic(x, y, left, endX, endY));
+                final int right = (orientation + RIGHT) & ORIENTATION_MASK;
+                relax(pack(x, y, right), index, score + 1, heuristic(x, y, right, endX, endY));
+            }
+            throw new IllegalArgumentException("The point of delivery (" + endX + ", " + endY + ") is unreachable");
+        }
+
+        private void prepare() {
+            if (states.length > RETAINED_STATES) {
+                states = new long[INITIAL_STATES];
+                scores = new int[INITIAL_STATES];
+                parents = new int[INITIAL_STATES];
+                slots = new int[2 * INITIAL_STATES];
+                stamps = new int[2 * INITIAL_STATES];
+            }
+            if (heapKeys.length > RETAINED_STATES) {
+                heapKeys = new long[INITIAL_STATES];
+                heapStates = new int[INITIAL_STATES];
+            }
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+            visited = 0;
+            heapSize = 0;
+        }
+
+        private void relax(final long state, final int parent, final int score, final int heuristic) {
+            int slot = slotOf(state);
+            final int index;
+            if (stamps[slot] != generation) {
+                if (visited == states.length) {
+                    grow();
+                    slot = slotOf(state);
+                }
+                index = visited++;
+                states[index] = state;
+                slots[slot] = index;
+                stamps[slot] = generation;
+            } else if (score < scores[slots[slot]]) {
+                index = slots[slot];
+            } else {
+                return;
+            }
+            scores[index] = score;
+            parents[index] = parent;
+            // Ordered by the estimated total, then by the deepest state, so the ties go straight to the destination
+            push((long) (score + heuristic) << 32 | (Integer.MAX_VALUE - score), index);
+        }
+
+        /**
+         * @return the slot of the given state, or the empty slot where it goes (linear probing).
+         */
+        private int slotOf(final long state) {
+            final int mask = slots.length - 1;
+            int slot = (int) ((state * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (stamps[slot] == generation && states[slots[slot]] != state) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Doubles the visited states and the table, which keeps a load factor of at most one half.
+         */
+        private void grow() {
+            if (visited >= MAX_STATES) {
+                throw new IllegalArgumentException("The leg is too long to be planned around the no-fly zones");
+            }
+            states = Arrays.copyOf(states, visited * 2);
+            scores = Arrays.copyOf(scores, visited * 2);
+            parents = Arrays.copyOf(parents, visited * 2);
+            slots = new int[visited * 4];
+            stamps = new int[visited * 4];
+            for (int index = 0; index < visited; index++) {
+                final int slot = slotOf(states[index]);
+                slots[slot] = index;
+                stamps[slot] = generation;
+            }
+        }
+
+        private CommandRuns commandsTo(final int goal, final int length) {
+            final byte[] path = new byte[length];
+            int position = length;
+            for (int index = goal; parents[index] >= 0; index = parents[index]) {
+                final long state = states[index];
+                final long parent = states[parents[index]];
+                if ((state >>> 2) != (parent >>> 2)) {
+                    path[--position] = 'A';
+                } else {
+                    path[--position] = turn(orientation(parent), orientation(state)) > 0 ? (byte) 'I' : (byte) 'D';
+                }
+            }
+            final byte[] runs = new byte[length];
+            final CommandRuns.Encoder encoder = new CommandRuns.Encoder().reset(runs, 0);
+            for (final byte command : path) {
+                encoder.accept(command);
+            }
+            return CommandRuns.copyOf(runs, 0, encoder.finish());
+        }
+
+        private void push(final long key, final int state) {
+            if (heapSize == heapKeys.length) {
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+                heapStates = Arrays.copyOf(heapStates, heapSize * 2);
+            }
+            int child = heapSize++;
+            while (child > 0) {
+                final int parent = (child - 1) >>> 1;
+                if (heapKeys[parent] <= key) {
+                    break;
+                }
+                heapKeys[child] = heapKeys[parent];
+                heapStates[child] = heapStates[parent];
+                child = parent;
+            }
+            heapKeys[child] = key;
+            heapStates[child] = state;
+        }
+
+        private void pop() {
+            final long key = heapKeys[--heapSize];
+            final int state = heapStates[heapSize];
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] >= key) {
+                    break;
+                }
+                heapKeys[parent] = heapKeys[child];
+                heapStates[parent] = heapStates[child];
+                parent = child;
+            }
+            heapKeys[parent] = key;
+            heapStates[parent] = state;
+        }
+    }
+}
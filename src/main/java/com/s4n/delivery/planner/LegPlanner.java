@@ -0,0 +1,26 @@
+package com.s4n.delivery.planner;
+
+import com.s4n.delivery.util.CommandRuns;
+import com.s4n.delivery.util.RouteUtils;
+
+/**
+ * Plans the commands of a leg, that is, the commands that take a drone from a point to the next point of delivery.
+ */
+@FunctionalInterface
+public interface LegPlanner {
+
+    enum Type { LEGACY, A_STAR }
+
+    /**
+     * The fixed recipe of <strong>RouteUtils.calculateRouteRuns</strong>: first the X axis, then the Y axis.
+     */
+    LegPlanner LEGACY = RouteUtils::calculateRouteRuns;
+
+    /**
+     * @param startState the packed point from which the leg starts (see <strong>PackedPositions</strong>).
+     * @param endX the value in the X axis of the destination point.
+     * @param endY the value in the Y axis of the destination point.
+     * @return the run-length encoded commands that connect the start point with the end point.
+     */
+    CommandRuns planLeg(long startState, int endX, int endY);
+}
@@ -0,0 +1,143 @@
+package com.s4n.delivery.planner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable map of the cells of the grid that the drones can NOT fly over (no-fly zones), kept as a bitset over the
+ * bounding box of the zones, so each lookup is a couple of arithmetic operations and a bit test. The cells out of the
+ * bounding box are always free.
+ * The file of no-fly zones has a zone per line, either a single cell 'x,y' or an inclusive rectangle 'x1,y1,x2,y2'.
+ * The empty lines and the lines starting with '#' are ignored.
+ */
+public final class ObstacleMap {
+
+    public static final ObstacleMap EMPTY = new ObstacleMap(new ArrayList<>());
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final int width;
+    private final long[] bits;
+    private final int blockedCells;
+
+    private ObstacleMap(final List<int[]> zones) {
+        int zonesMinX = Integer.MAX_VALUE;
+        int zonesMinY = Integer.MAX_VALUE;
+        int zonesMaxX = Integer.MIN_VALUE;
+        int zonesMaxY = Integer.MIN_VALUE;
+        for (final int[] zone : zones) {
+            zonesMinX = Math.min(zonesMinX, zone[0]);
+            zonesMinY = Math.min(zonesMinY, zone[1]);
+            zonesMaxX = Math.max(zonesMaxX, zone[2]);
+            zonesMaxY = Math.max(zonesMaxY, zone[3]);
+        }
+        minX = zonesMinX;
+        minY = zonesMinY;
+        maxX = zonesMaxX;
+        maxY = zonesMaxY;
+        width = zones.isEmpty() ? 0 : maxX - minX + 1;
+        final long cells = zones.isEmpty() ? 0 : (long) width * (maxY - minY + 1);
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The no-fly zones cover too big an area, please validate.");
+        }
+        bits = new long[(int) ((cells + 63) >>> 6)];
+        for (final int[] zone : zones) {
+            for (int y = zone[1]; y <= zone[3]; y++) {
+                for (int x = zone[0]; x <= zone[2]; x++) {
+                    final int cell = cell(x, y);
+                    bits[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        int blocked = 0;
+        for (final long word : bits) {
+            blocked += Long.bitCount(word);
+        }
+        blockedCells = blocked;
+    }
+
+    /**
+     * @param zones the zones, each one an inclusive rectangle {x1, y1, x2, y2} with x1 <= x2 and y1 <= y2.
+     * @return the map with the given zones.
+     */
+    public static ObstacleMap of(final List<int[]> zones) {
+        return zones.isEmpty() ? EMPTY : new ObstacleMap(zones);
+    }
+
+    /**
+     * @param file the file of no-fly zones.
+     * @return the map with the zones of the given file.
+     * @throws IOException if the file can NOT be read.
+     * @throws IllegalArgumentException if a line of the file is NOT a valid zone.
+     */
+    public static ObstacleMap load(final Path file) throws IOException {
+        final List<int[]> zones = new ArrayList<>();
+        for (final String line : Files.readAllLines(file)) {
+            final String zone = line.trim();
+            if (!zone.isEmpty() && !zone.startsWith("#")) {
+                zones.add(parseZone(zone));
+            }
+        }
+        return of(zones);
+    }
+
+    public boolean isBlocked(final int x, final int y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        final int cell = cell(x, y);
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return blockedCells == 0;
+    }
+
+    public int getBlockedCells() {
+        return blockedCells;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    private int cell(final int x, final int y) {
+        return (y - minY) * width + (x - minX);
+    }
+
+    private static int[] parseZone(final String zone) {
+        final String[] values = zone.split(",");
+        try {
+            if (values.length == 2) {
+                final int x = Integer.parseInt(values[0].trim());
+                final int y = Integer.parseInt(values[1].trim());
+                return new int[]{x, y, x, y};
+            } else if (values.length == 4) {
+                final int x1 = Integer.parseInt(values[0].trim());
+                final int y1 = Integer.parseInt(values[1].trim());
+                final int x2 = Integer.parseInt(values[2].trim());
+                final int y2 = Integer.parseInt(values[3].trim());
+                return new int[]{Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2)};
+            }
+        } catch (final NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid no-fly zone '" + zone + "', please validate.", exception);
+        }
+        throw new IllegalArgumentException("Invalid no-fly zone '" + zone + "', please validate.");
+    }
+}
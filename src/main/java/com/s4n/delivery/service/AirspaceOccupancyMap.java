@@ -0,0 +1,93 @@
+package com.s4n.delivery.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free map of the cells of the airspace occupied by the drones at each tick, keyed by (x, y, tick).
+ * Some facts:
+ *  - It is an open-addressing table with linear probing over a single <strong>AtomicLongArray</strong>, where each
+ *    slot is a pair of longs: the key (stored complemented, so 0 means empty) and the tick and id of the drone. A cell
+ *    is claimed with a single compare-and-set of the key, so the drones never block each other.
+ *  - The map only holds a window of ticks: the keys of the ticks before the start of the current window are stale and
+ *    their slots are reused by the next claims, so the memory is bounded by the number of drones times the length of
+ *    the window, NOT by the length of the flights, and nothing has to be cleared between windows.
+ *  - The coordinates must fit in 16 bits each (far beyond any operation radio) and the ticks in 31 bits.
+ */
+public final class AirspaceOccupancyMap {
+
+    private static final long EMPTY = 0;
+    private static final int AXIS_LIMIT = 1 << 15;
+    private final AtomicLongArray slots;
+    private final int mask;
+    private volatile long windowStart;
+
+    /**
+     * @param maximumClaimsPerWindow the maximum number of cells claimed in a window, the table has twice the slots.
+     */
+    public AirspaceOccupancyMap(final int maximumClaimsPerWindow) {
+        final int capacity = Integer.highestOneBit(Math.max(maximumClaimsPerWindow, 8) * 2 - 1) << 1;
+        this.slots = new AtomicLongArray(capacity * 2);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Starts a new window, so the claims of the ticks before the given one are discarded. It must NOT be called
+     * while any drone is claiming cells.
+     * @param tick the first tick of the window.
+     */
+    public void startWindow(final long tick) {
+        windowStart = tick;
+    }
+
+    /**
+     * Claims the given cell at the given tick for the given drone.
+     * @param x the value in the X axis of the cell.
+     * @param y the value in the Y axis of the cell.
+     * @param tick the tick, at least the start of the current window.
+     * @param droneId the id of the drone, greater than 0.
+     * @return 0 if the cell is now claimed by the given drone (or already was), otherwise the id of the drone that
+     *         occupies the cell at the given tick.
+     */
+    public int claim(final int x, final int y, final long tick, final int droneId) {
+        if (x < -AXIS_LIMIT || x >= AXIS_LIMIT || y < -AXIS_LIMIT || y >= AXIS_LIMIT || tick < 0 || tick > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The cell (" + x + ", " + y + ") at tick " + tick + " is out of the airspace");
+        }
+        final long key = ~(tick << 32 | (x & 0xFFFFL) << 16 | (y & 0xFFFFL));
+        final long start = windowStart;
+        int slot = (int) mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            final int index = slot << 1;
+            final long current = slots.get(index);
+            if (current == key) {
+                return ownerOf(index, tick, droneId);
+            }
+            if (current == EMPTY || (~current >>> 32) < start) {
+                if (slots.compareAndSet(index, current, key)) {
+                    slots.set(index + 1, (tick + 1) << 32 | droneId);
+                    return 0;
+                }
+                // Another drone took the slot first, it may be the same cell so the slot is checked again
+                probes--;
+                continue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new IllegalStateException("The airspace occupancy map is full, the window is too long for the fleet.");
+    }
+
+    private int ownerOf(final int index, final long tick, final int droneId) {
+        long owner;
+        // The owner is published just after the key, so the slot may still have the owner of a stale key (or none)
+        while ((owner = slots.get(index + 1)) >>> 32 != tick + 1) {
+            Thread.yield();
+        }
+        return (int) owner == droneId ? 0 : (int) owner;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,223 @@
+package com.s4n.delivery.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Simulates the flights of the drones command by command, one command per tick, and detects the conflicts, that is,
+ * two drones in the same cell at the same tick (see <strong>AirspaceOccupancyMap</strong>). Some facts:
+ *  - The drones fly in parallel, in windows of ticks: in each window every drone flies its commands of the window
+ *    without waiting for the others, and the windows are separated by a barrier, so the memory of the map is bounded
+ *    by the window and there is NO synchronization per tick.
+ *  - The origin (0, 0) is the depot, where all the tours start and end, so it is NOT checked.
+ *  - In REPORT mode the conflicts are just counted and the first ones logged. In RESOLVE mode a drone that would move
+ *    into an occupied cell hovers in its cell for a tick and tries again, up to a limit of consecutive waits, after
+ *    which it moves anyway and the conflict is counted as unresolved. The conflicts of a gyro can NOT be resolved.
+ *  - The drone that claims a cell first keeps it, so which drone of a conflict hovers depends on the thread timing.
+ *  - The flights are the tours recorded while they were planned (see <strong>TourPlanner.Flight</strong>), so the
+ *    simulated tours are exactly the delivered ones.
+ *  - The simulation does NOT change the deliveries: in RESOLVE mode the waits just delay the simulated drones, and
+ *    the reports and the makespan of the fleet are NOT affected.
+ */
+class AirspaceSimulator {
+
+    enum Mode { OFF, REPORT, RESOLVE }
+
+    private static final Logger logger = LogManager.getLogger(AirspaceSimulator.class);
+    private static final int MAX_CONSECUTIVE_WAITS = 8;
+    private static final int MAX_LOGGED_CONFLICTS = 10;
+    // Indexed by Orientation ordinal: E, N, W, S, as in RouteUtils
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private final Mode mode;
+    private final int windowTicks;
+
+    /**
+     * @param mode whether the conflicts are just reported or resolved.
+     * @param windowTicks the number of ticks of each window.
+     */
+    AirspaceSimulator(final Mode mode, final int windowTicks) {
+        this.mode = mode;
+        this.windowTicks = windowTicks;
+    }
+
+    /**
+     * Simulates the given flights, in the calling thread pool. Each flight is replayed, so it can be simulated once.
+     * @param flights the recorded flight of each drone.
+     * @return the report of the simulation.
+     */
+    Report simulate(final List<TourPlanner.Flight> flights) {
+        final long startNanos = System.nanoTime();
+        final List<Pilot> pilots = new ArrayList<>(flights.size());
+        for (int i = 0; i < flights.size(); i++) {
+            pilots.add(new Pilot(i + 1, flights.get(i)));
+        }
+        final AirspaceOccupancyMap occupancyMap = new AirspaceOccupancyMap(
+                (int) Math.min(Integer.MAX_VALUE / 4, (long) Math.max(pilots.size(), 1) * windowTicks));
+        final Conflicts conflicts = new Conflicts();
+        List<Pilot> flying = pilots;
+        long windowStart = 0;
+        while (!flying.isEmpty()) {
+            final long windowEnd = windowStart + windowTicks;
+            occupancyMap.startWindow(windowStart);
+            flying.parallelStream().forEach(pilot -> pilot.fly(windowEnd, occupancyMap, conflicts));
+            final List<Pilot> stillFlying = new ArrayList<>(flying.size());
+            for (final Pilot pilot : flying) {
+                if (!pilot.isLanded()) {
+                    stillFlying.add(pilot);
+                }
+            }
+            flying = stillFlying;
+            windowStart = windowEnd;
+        }
+        long makespan = 0;
+        long commands = 0;
+        for (final Pilot pilot : pilots) {
+            makespan = Math.max(makespan, pilot.tick);
+            commands += pilot.commands;
+        }
+        final Report report = new Report(System.nanoTime() - startNanos, pilots.size(), makespan, commands,
+                                         conflicts.detected.sum(), conflicts.waits.sum(), conflicts.unresolved.sum());
+        logger.info("Airspace simulation finished: {}", report);
+        return report;
+    }
+
+    /**
+     * A drone flying its commands, with its own clock.
+     */
+    private final class Pilot {
+
+        private final int id;
+        private final TourPlanner.Flight flight;
+        private long tick;
+        private long commands;
+        private int consecutiveWaits;
+        private boolean landed;
+
+        Pilot(final int id, final TourPlanner.Flight flight) {
+            this.id = id;
+            this.flight = flight;
+        }
+
+        boolean isLanded() {
+            return landed;
+        }
+
+        void fly(final long windowEnd, final AirspaceOccupancyMap occupancyMap, final Conflicts conflicts) {
+            while (tick < windowEnd) {
+                final int command = flight.peek();
+                if (command < 0) {
+                    landed = true;
+                    return;
+                }
+                final long state = flight.getState();
+                final int orientation = orientation(state);
+                final boolean forward = command == 'A';
+                final int x = x(state) + (forward ? DX[orientation] : 0);
+                final int y = y(state) + (forward ? DY[orientation] : 0);
+                tick++;
+                final int other = isDepot(x, y) ? 0 : occupancyMap.claim(x, y, tick, id);
+                if (other == 0) {
+                    flight.advance();
+                    commands++;
+                    consecutiveWaits = 0;
+                    continue;
+                }
+                conflicts.detected(id, other, x, y, tick);
+                if (mode == Mode.RESOLVE && forward && consecutiveWaits < MAX_CONSECUTIVE_WAITS) {
+                    consecutiveWaits++;
+                    conflicts.waits.increment();
+                    if (!isDepot(x(state), y(state)) && occupancyMap.claim(x(state), y(state), tick, id) != 0) {
+                        conflicts.unresolved.increment();
+                    }
+                } else {
+                    if (mode == Mode.RESOLVE) {
+                        conflicts.unresolved.increment();
+                    }
+                    flight.advance();
+                    commands++;
+                    consecutiveWaits = 0;
+                }
+            }
+        }
+
+        private boolean isDepot(final int x, final int y) {
+            return x == 0 && y == 0;
+        }
+    }
+
+    private static final class Conflicts {
+
+        private final LongAdder detected = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder unresolved = new LongAdder();
+        private final AtomicInteger logged = new AtomicInteger();
+
+        void detected(final int drone, final int other, final int x, final int y, final long tick) {
+            detected.increment();
+            if (logged.getAndIncrement() < MAX_LOGGED_CONFLICTS) {
+                logger.warn("Conflict: drones {} and {} in the cell ({}, {}) at tick {}", drone, other, x, y, tick);
+            }
+        }
+    }
+
+    static class Report {
+
+        private final long wallNanos;
+        private final int drones;
+        private final long makespanTicks;
+        private final long commands;
+        private final long conflicts;
+        private final long waits;
+        private final long unresolvedConflicts;
+
+        Report(final long wallNanos, final int drones, final long makespanTicks, final long commands,
+               final long conflicts, final long waits, final long unresolvedConflicts) {
+            this.wallNanos = wallNanos;
+            this.drones = drones;
+            this.makespanTicks = makespanTicks;
+            this.commands = commands;
+            this.conflicts = conflicts;
+            this.waits = waits;
+            this.unresolvedConflicts = unresolvedConflicts;
+        }
+
+        long getMakespanTicks() {
+            return makespanTicks;
+        }
+
+        long getCommands() {
+            return commands;
+        }
+
+        long getConflicts() {
+            return conflicts;
+        }
+
+        long getWaits() {
+            return waits;
+        }
+
+        long getUnresolvedConflicts() {
+            return unresolvedConflicts;
+        }
+
+        @Override
+        public String toString() {
+            return format("Report {wallMillis=%s, drones=%s, makespanTicks=%s, commands=%s, conflicts=%s, waits=%s, "
+                          + "unresolvedConflicts=%s}", NANOSECONDS.toMillis(wallNanos), drones, makespanTicks,
+                          commands, conflicts, waits, unresolvedConflicts);
+        }
+    }
+}
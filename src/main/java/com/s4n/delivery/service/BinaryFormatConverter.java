@@ -0,0 +1,193 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.service.Position.Orientation;
+import com.s4n.delivery.util.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static com.s4n.delivery.app.Constants.INPUT_FILES_EXTENSION_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.OUTPUT_FILES_EXTENSION_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
+import static com.s4n.delivery.service.DeliveryServiceImpl.CONSOLIDATED_REPORT_CODE;
+import static com.s4n.delivery.util.FileUtils.getFileNameWithNoPrefixNoExtension;
+import static com.s4n.delivery.util.RouteFileReader.COMPILED_RESOLVER;
+import static com.s4n.delivery.util.RouteFileReader.parseRoutes;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Converters between the text files (the input files with the routes and the reports with the deliveries) and the
+ * binary files of <strong>BinaryRouteFile</strong>. Some facts:
+ *  - The names of the text files are built with the prefixes and extensions of the configuration, as the delivery
+ *    process does, so a folder converted to binary and back has the same files.
+ *  - The commands of the routes are kept run-length encoded, so the text files written back have the normalized
+ *    commands (for example the gyros that cancel each other disappear), with the same points of delivery.
+ *  - The reports written back are byte-identical to the original ones.
+ */
+public final class BinaryFormatConverter {
+
+    private static final Logger logger = LogManager.getLogger(BinaryFormatConverter.class);
+    private static final String REPORT_HEADER = "== Delivery Report ==";
+    private static final int DEFAULT_ROUTES_CAPACITY = 16;
+    private final Config config;
+
+    public BinaryFormatConverter(final Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Converts the input files of the given folder to a single binary file of routes.
+     * @param inputFolder the folder with the input files.
+     * @param binaryFile the binary file, which is created or truncated.
+     * @throws IOException if any file can NOT be read or written.
+     */
+    public void routesToBinary(final Path inputFolder, final Path binaryFile) throws IOException {
+        final String prefix = getRequiredProperty(INPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final Map<String, RouteColumns> routesByCode = new TreeMap<>();
+        for (final File file : listFiles(inputFolder, prefix, getRequiredProperty(INPUT_FILES_EXTENSION_PROPERTY_NAME))) {
+            routesByCode.put(getFileNameWithNoPrefixNoExtension(file, prefix),
+                             parseRoutes(file, ForkJoinPool.commonPool(), COMPILED_RESOLVER,
+                                         () -> new RouteColumns(DEFAULT_ROUTES_CAPACITY, false)));
+        }
+        BinaryRouteFile.writeRoutes(binaryFile, routesByCode);
+        logger.info("Converted the routes of {} drones to '{}'", routesByCode.size(), binaryFile);
+    }
+
+    /**
+     * Converts a binary file of routes to one input file per drone in the given folder. The commands are written in
+     * normalized text form (see <strong>CommandRuns</strong>), so they reach the same points of delivery as the original
+     * input files though the text may differ.
+     * @param binaryFile the binary file of routes.
+     * @param inputFolder the folder in which the input files are written.
+     * @throws IOException if any file can NOT be read or written.
+     */
+    public void binaryToRoutes(final Path binaryFile, final Path inputFolder) throws IOException {
+        final String prefix = getRequiredProperty(INPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final String extension = getRequiredProperty(INPUT_FILES_EXTENSION_PROPERTY_NAME);
+        try (final BinaryRouteFile binary = BinaryRouteFile.open(binaryFile)) {
+            for (final String code : binary.getCodes()) {
+                final RouteColumns routes = binary.readRoutes(code, false);
+                try (final BufferedWriter writer = Files.newBufferedWriter(inputFolder.resolve(prefix + code + "." + extension))) {
+                    for (int i = 0; i < routes.size(); i++) {
+                        writer.write(routes.getNormalizedCommands(i));
+                        writer.newLine();
+                    }
+                }
+            }
+            logger.info("Converted the routes of {} drones from '{}'", binary.getCodes().size(), binaryFile);
+        }
+    }
+
+    /**
+     * Converts the report files of the given folder to a single binary file of deliveries.
+     * The consolidated report, if any, is skipped, as it repeats the report of each drone.
+     * @param reportsFolder the folder with the report files.
+     * @param binaryFile the binary file, which is created or truncated.
+     * @throws IOException if any file can NOT be read or written, or a report is malformed.
+     */
+    public void reportsToBinary(final Path reportsFolder, final Path binaryFile) throws IOException {
+        final String prefix = getRequiredProperty(OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final Map<String, PositionColumns> deliveriesByCode = new TreeMap<>();
+        for (final File file : listFiles(reportsFolder, prefix, getRequiredProperty(OUTPUT_FILES_EXTENSION_PROPERTY_NAME))) {
+            final String code = getFileNameWithNoPrefixNoExtension(file, prefix);
+            if (!CONSOLIDATED_REPORT_CODE.equals(code)) {
+                deliveriesByCode.put(code, readReport(file));
+            }
+        }
+        BinaryRouteFile.writeDeliveries(binaryFile, deliveriesByCode);
+        logger.info("Converted the reports of {} drones to '{}'", deliveriesByCode.size(), binaryFile);
+    }
+
+    /**
+     * Converts a binary file (of deliveries or of routes, whose points of delivery are used) to one report file per
+     * drone in the given folder.
+     * @param binaryFile the binary file.
+     * @param reportsFolder the folder in which the report files are written.
+     * @throws IOException if any file can NOT be read or written.
+     */
+    public void binaryToReports(final Path binaryFile, final Path reportsFolder) throws IOException {
+        final String prefix = getRequiredProperty(OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final String extension = getRequiredProperty(OUTPUT_FILES_EXTENSION_PROPERTY_NAME);
+        try (final BinaryRouteFile binary = BinaryRouteFile.open(binaryFile)) {
+            for (final String code : binary.getCodes()) {
+                try (final ReportWriter writer = ReportWriter.open(reportsFolder.resolve(prefix + code + "." + extension))) {
+                    writer.writeHeader();
+                    writer.writeLines(binary.readPositions(code));
+                }
+            }
+            logger.info("Converted the reports of {} drones from '{}'", binary.getCodes().size(), binaryFile);
+        }
+    }
+
+    /**
+     * Parses a report, that is, a header followed by a line like '(-2, 4) West orientation' per delivery.
+     */
+    static PositionColumns readReport(final File file) throws IOException {
+        final PositionColumns deliveries = new PositionColumns(DEFAULT_ROUTES_CAPACITY);
+        try (final BufferedReader reader = Files.newBufferedReader(file.toPath())) {
+            final String header = reader.readLine();
+            if (header != null && !REPORT_HEADER.equals(header)) {
+                throw new IOException("Missing header in the report: " + file);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int comma = line.indexOf(", ");
+                final int parenthesis = line.indexOf(") ");
+                final int space = line.indexOf(' ', parenthesis + 2);
+                if (!line.startsWith("(") || comma < 0 || parenthesis < comma || space < 0) {
+                    throw new IOException("Malformed line '" + line + "' in the report: " + file);
+                }
+                try {
+                    deliveries.add(Integer.parseInt(line.substring(1, comma)),
+                                   Integer.parseInt(line.substring(comma + 2, parenthesis)),
+                                   orientationOf(line.substring(parenthesis + 2, space)).ordinal());
+                } catch (final IllegalArgumentException exception) {
+                    throw new IOException("Malformed line '" + line + "' in the report: " + file, exception);
+                }
+            }
+        }
+        return deliveries;
+    }
+
+    private static Orientation orientationOf(final String name) {
+        for (final Orientation orientation : Orientation.values()) {
+            if (orientation.getName().equals(name)) {
+                return orientation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown orientation: " + name);
+    }
+
+    private static List<File> listFiles(final Path folder, final String prefix, final String extension) throws IOException {
+        try (final Stream<Path> files = Files.list(folder)) {
+            return files.map(Path::toFile)
+                        .filter(file -> file.getName().startsWith(prefix) && file.getName().endsWith("." + extension))
+                        .filter(FileUtils::fileIsNotEmpty)
+                        .sorted()
+                        .collect(toList());
+        }
+    }
+
+    private String getRequiredProperty(final String name) {
+        final Optional<String> value = config.getPropertyAsString(name);
+        if (value.isPresent()) {
+            return value.get();
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.s4n.delivery.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Versioned binary file with the routes or the deliveries of several drones, so they can be analysed again without
+ * parsing and interpreting the text files. Some facts:
+ *  - The file starts with a header (magic number, version, kind of file and number of drones) followed by an index
+ *    with the code of each drone and the offset, the number of positions and the bytes of commands of its section.
+ *    So the section of a single drone is found with a seek and memory-mapped directly, without reading the others.
+ *  - Each section has the packed positions (see <strong>PackedPositions</strong>), that is, the points of delivery of
+ *    the routes or the positions of the drone at each delivery. The sections of the routes are followed by the number
+ *    of bytes of the commands of each route and the commands, run-length encoded (see <strong>CommandRuns</strong>),
+ *    so the commands read back are the normalized ones, as in <strong>RouteColumns</strong>.
+ *  - All the numbers are big-endian and the sections are aligned to 8 bytes.
+ *  - The files with a different magic number or an unknown version are rejected with an <strong>IOException</strong>,
+ *    and so are the files whose header, index or sections are truncated or do NOT match each other.
+ *  - The buffers are used through <strong>Buffer</strong> for the methods that newer JDKs override in
+ *    <strong>ByteBuffer</strong>, so the class compiled by them still runs on Java 8.
+ *  - An open file is NOT thread-safe, each thread must open its own.
+ */
+public final class BinaryRouteFile implements Closeable {
+
+    static final int MAGIC = 0x53344E44;
+    static final short VERSION = 1;
+    // Magic number (4), version (2), kind (1), reserved (1), number of drones (4) and bytes of the codes (4)
+    private static final int HEADER_SIZE = 16;
+    // Offset of the section (8), number of positions (4), bytes of commands (4), offset (4) and bytes (4) of the code
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final byte[] PADDING = new byte[Long.BYTES];
+    private final Path file;
+    private final FileChannel channel;
+    private final Kind kind;
+    private final List<String> codes;
+    private final Map<String, Integer> drones;
+    private final long[] offsets;
+    private final int[] counts;
+    private final int[] commandsLengths;
+
+    public enum Kind { ROUTES, DELIVERIES }
+
+    private BinaryRouteFile(final Path file, final FileChannel channel, final Kind kind, final List<String> codes,
+                            final long[] offsets, final int[] counts, final int[] commandsLengths) {
+        this.file = file;
+        this.channel = channel;
+        this.kind = kind;
+        this.codes = Collections.unmodifiableList(codes);
+        this.drones = new HashMap<>(codes.size() * 2);
+        for (int drone = 0; drone < codes.size(); drone++) {
+            drones.put(codes.get(drone), drone);
+        }
+        this.offsets = offsets;
+        this.counts = counts;
+        this.commandsLengths = commandsLengths;
+    }
+
+    /**
+     * Opens the given file, reading just its header and its index.
+     * @param file the binary file.
+     * @return the open file.
+     * @throws IOException if the file can NOT be read or it is NOT a binary file of a supported version.
+     */
+    public static BinaryRouteFile open(final Path file) throws IOException {
+        final FileChannel channel = FileChannel.open(file, READ);
+        try {
+            final ByteBuffer header = read(channel, 0, HEADER_SIZE, file);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a binary route file: " + file);
+            }
+            final short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of the binary route file: " + file);
+            }
+            final int kind = header.get();
+            header.get();
+            final int numberOfDrones = header.getInt();
+            final int codesLength = header.getInt();
+            if (kind < 0 || kind >= Kind.values().length || numberOfDrones < 0 || codesLength < 0
+                || numberOfDrones > (Integer.MAX_VALUE - codesLength) / INDEX_ENTRY_SIZE) {
+                throw new IOException("Corrupted header of the binary route file: " + file);
+            }
+            final int indexLength = numberOfDrones * INDEX_ENTRY_SIZE;
+            final long sectionsStart = align(HEADER_SIZE + (long) indexLength + codesLength);
+            final ByteBuffer index = read(channel, HEADER_SIZE, indexLength + codesLength, file);
+            final List<String> codes = new ArrayList<>(numberOfDrones);
+            final long[] offsets = new long[numberOfDrones];
+            final int[] counts = new int[numberOfDrones];
+            final int[] commandsLengths = new int[numberOfDrones];
+            for (int drone = 0; drone < numberOfDrones; drone++) {
+                offsets[drone] = index.getLong();
+                counts[drone] = index.getInt();
+                commandsLengths[drone] = index.getInt();
+                final int codeOffset = index.getInt();
+                final int codeLength = index.getInt();
+                if (offsets[drone] < sectionsStart || counts[drone] < 0 || commandsLengths[drone] < 0
+                    || codeOffset < 0 || codeLength < 0 || codeOffset > codesLength - codeLength) {
+                    throw new IOException("Corrupted index entry " + drone + " of the binary route file: " + file);
+                }
+                codes.add(new String(index.array(), indexLength + codeOffset, codeLength, UTF_8));
+            }
+            return new BinaryRouteFile(file, channel, Kind.values()[kind], codes, offsets, counts, commandsLengths);
+        } catch (final IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the codes of the drones, in the order of the file.
+     */
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public int getNumberOfPositions(final String code) {
+        return counts[indexOf(code)];
+    }
+
+    /**
+     * Reads the positions of the given drone, that is, the points of delivery of its routes or its positions at each
+     * delivery, depending on the kind of the file.
+     * @param code the code of the drone.
+     * @return the positions of the drone, in the order of the file.
+     * @throws IOException if the section of the drone can NOT be read.
+     */
+    public PositionColumns readPositions(final String code) throws IOException {
+        final int drone = indexOf(code);
+        final int count = counts[drone];
+        final PositionColumns positions = new PositionColumns(count);
+        if (count > 0) {
+            final MappedByteBuffer section = map(drone, (long) Long.BYTES * count);
+            for (int i = 0; i < count; i++) {
+                positions.add(section.getLong(i * Long.BYTES));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Reads the routes of the given drone from a file of routes.
+     * @param code the code of the drone.
+     * @param deduplicateCommands whether the routes with the same commands share them (see <strong>RouteColumns</strong>).
+     * @return the routes of the drone, in the order of the file.
+     * @throws IOException if the section of the drone can NOT be read or the file has NO routes.
+     */
+    public RouteColumns readRoutes(final String code, final boolean deduplicateCommands) throws IOException {
+        if (kind != Kind.ROUTES) {
+            throw new IOException("The binary file has no routes: " + file);
+        }
+        final int drone = indexOf(code);
+        final int count = counts[drone];
+        final RouteColumns routes = new RouteColumns(count, deduplicateCommands);
+        if (count > 0) {
+            final MappedByteBuffer section = map(drone, sectionLength(kind, count, commandsLengths[drone]));
+            final int lengthsStart = Long.BYTES * count;
+            int commandsStart = lengthsStart + Integer.BYTES * count;
+            // The lengths of the routes must add up to the bytes of commands of the index, so a corrupted length
+            // can NOT read past the section
+            int remaining = commandsLengths[drone];
+            for (int i = 0; i < count; i++) {
+                final int length = section.getInt(lengthsStart + i * Integer.BYTES);
+                if (length < 0 || length > remaining) {
+                    throw new IOException("Corrupted length of the route " + i + " of the drone with code=" + code
+                                          + " in: " + file);
+                }
+                routes.addEncoded(section, commandsStart, commandsStart + length, section.getLong(i * Long.BYTES));
+                commandsStart += length;
+                remaining -= length;
+            }
+            if (remaining != 0) {
+                throw new IOException("Corrupted lengths of the routes of the drone with code=" + code + " in: " + file);
+            }
+        }
+        return routes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes a file with the routes of the given drones.
+     * @param file the file, which is created or truncated.
+     * @param routesByCode the routes of each drone, by code, in the order in which they are written.
+     * @throws IOException if the file can NOT be written.
+     */
+    public static void writeRoutes(final Path file, final Map<String, RouteColumns> routesByCode) throws IOException {
+        final List<PositionColumns> positions = new ArrayList<>(routesByCode.size());
+        routesByCode.values().forEach(routes -> positions.add(routes.getPointsOfDelivery()));
+        write(file, Kind.ROUTES, new ArrayList<>(routesByCode.keySet()), positions, new ArrayList<>(routesByCode.values()));
+    }
+
+    /**
+     * Writes a file with the positions of the given drones at each delivery.
+     * @param file the file, which is created or truncated.
+     * @param deliveriesByCode the positions of each drone at each delivery, by code, in the order in which they are
+     *                         written.
+     * @throws IOException if the file can NOT be written.
+     */
+    public static void writeDeliveries(final Path file, final Map<String, PositionColumns> deliveriesByCode)
+            throws IOException {
+        write(file, Kind.DELIVERIES, new ArrayList<>(deliveriesByCode.keySet()),
+              new ArrayList<>(deliveriesByCode.values()), null);
+    }
+
+    private static void write(final Path file, final Kind kind, final List<String> codes,
+                              final List<PositionColumns> positions, final List<RouteColumns> routes) throws IOException {
+        final int numberOfDrones = codes.size();
+        final byte[][] codeBytes = new byte[numberOfDrones][];
+        int codesLength = 0;
+        for (int drone = 0; drone < numberOfDrones; drone++) {
+            codeBytes[drone] = codes.get(drone).getBytes(UTF_8);
+            codesLength += codeBytes[drone].length;
+        }
+        final int[] commandsLengths = new int[numberOfDrones];
+        final long[] offsets = new long[numberOfDrones];
+        long offset = align(HEADER_SIZE + (long) numberOfDrones * INDEX_ENTRY_SIZE + codesLength);
+        for (int drone = 0; drone < numberOfDrones; drone++) {
+            if (routes != null) {
+                final RouteColumns droneRoutes = routes.get(drone);
+                for (int i = 0; i < droneRoutes.size(); i++) {
+                    commandsLengths[drone] += droneRoutes.getEncodedLength(i);
+                }
+            }
+            offsets[drone] = offset;
+            offset += align(sectionLength(kind, positions.get(drone).size(), commandsLengths[drone]));
+        }
+
+        try (final FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            final Output output = new Output(channel);
+            output.room(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).put((byte) kind.ordinal()).put((byte) 0)
+                  .putInt(numberOfDrones).putInt(codesLength);
+            int codeOffset = 0;
+            for (int drone = 0; drone < numberOfDrones; drone++) {
+                output.room(INDEX_ENTRY_SIZE).putLong(offsets[drone]).putInt(positions.get(drone).size())
+                      .putInt(commandsLengths[drone]).putInt(codeOffset).putInt(codeBytes[drone].length);
+                codeOffset += codeBytes[drone].length;
+            }
+            for (final byte[] code : codeBytes) {
+                output.put(code);
+            }
+            output.pad();
+            for (int drone = 0; drone < numberOfDrones; drone++) {
+                final PositionColumns dronePositions = positions.get(drone);
+                for (int i = 0; i < dronePositions.size(); i++) {
+                    output.room(Long.BYTES).putLong(dronePositions.getState(i));
+                }
+                if (routes != null) {
+                    final RouteColumns droneRoutes = routes.get(drone);
+                    for (int i = 0; i < droneRoutes.size(); i++) {
+                        output.room(Integer.BYTES).putInt(droneRoutes.getEncodedLength(i));
+                    }
+                    for (int i = 0; i < droneRoutes.size(); i++) {
+                        output.put(droneRoutes, i);
+                    }
+                }
+                output.pad();
+            }
+            output.flush();
+        }
+    }
+
+    private static long sectionLength(final Kind kind, final int count, final int commandsLength) {
+        final long positionsLength = (long) Long.BYTES * count;
+        return kind == Kind.ROUTES ? positionsLength + (long) Integer.BYTES * count + commandsLength : positionsLength;
+    }
+
+    private static long align(final long length) {
+        return (length + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private int indexOf(final String code) {
+        final Integer drone = drones.get(code);
+        if (drone == null) {
+            throw new IllegalArgumentException("No drone with code=" + code + " in the binary file: " + file);
+        }
+        return drone;
+    }
+
+    private MappedByteBuffer map(final int drone, final long length) throws IOException {
+        if (length > Integer.MAX_VALUE || offsets[drone] + length > channel.size()) {
+            throw new IOException("Truncated section of the drone with code=" + codes.get(drone) + " in: " + file);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offsets[drone], length);
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length, final Path file)
+            throws IOException {
+        // Checked before the allocation, so a corrupted header does NOT allocate a huge buffer
+        if (position + length > channel.size()) {
+            throw new IOException("Truncated binary route file: " + file);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated binary route file: " + file);
+            }
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    /**
+     * Buffered sequential output of a file, which keeps the number of bytes written to align the sections.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private long flushed;
+
+        private Output(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        ByteBuffer room(final int length) throws IOException {
+            if (buffer.remaining() < length) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void put(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                room(bytes.length).put(bytes);
+            }
+        }
+
+        void put(final RouteColumns routes, final int index) throws IOException {
+            final int length = routes.getEncodedLength(index);
+            if (length > buffer.capacity()) {
+                final ByteBuffer commands = ByteBuffer.allocate(length);
+                routes.copyEncodedTo(index, commands);
+                put(commands.array());
+            } else {
+                routes.copyEncodedTo(index, room(length));
+            }
+        }
+
+        void pad() throws IOException {
+            final long position = flushed + buffer.position();
+            final int padding = (int) (align(position) - position);
+            room(padding).put(PADDING, 0, padding);
+        }
+
+        void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            write(buffer);
+            ((Buffer) buffer).clear();
+        }
+
+        private void write(final ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                flushed += channel.write(bytes);
+            }
+        }
+    }
+}
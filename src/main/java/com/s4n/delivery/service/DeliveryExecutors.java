@@ -0,0 +1,183 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.s4n.delivery.app.Constants.CPU_POOL_PARALLELISM_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.IO_EXECUTOR_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.IO_POOL_SIZE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.IO_QUEUE_CAPACITY_PROPERTY_NAME;
+
+/**
+ * The executors used by the delivery process, so its parallelism is predictable and tunable for each phase instead
+ * of depending on the JVM-wide common pool:
+ *  - The CPU pool is a dedicated <strong>ForkJoinPool</strong> for the parsing and planning work. The parallel
+ *    streams started from <strong>runOnCpu</strong> run in this pool too.
+ *  - The I/O executor runs the blocking file work, like writing reports, so it never starves the CPU pool. It can
+ *    be a fixed pool of platform threads or, on JDK 21+, a virtual-thread-per-task executor.
+ *  - The number of in-flight I/O tasks is bounded, so the submitters wait (backpressure) when it is full.
+ * All the threads are daemon threads, so a not closed instance never keeps the JVM alive.
+ */
+public class DeliveryExecutors implements AutoCloseable {
+
+    public enum IoExecutorType { PLATFORM, VIRTUAL }
+
+    private static final Logger logger = LogManager.getLogger(DeliveryExecutors.class);
+    private static final int DEFAULT_IO_POOL_SIZE = 4;
+    private static final int DEFAULT_IO_QUEUE_CAPACITY = 64;
+    private final ForkJoinPool cpuPool;
+    private final ExecutorService ioExecutor;
+    private final Semaphore ioPermits;
+
+    public DeliveryExecutors(final int cpuParallelism, final ExecutorService ioExecutor, final int maxInFlightIoTasks) {
+        this.cpuPool = new ForkJoinPool(cpuParallelism, DeliveryExecutors::newCpuThread, null, false);
+        this.ioExecutor = ioExecutor;
+        this.ioPermits = new Semaphore(maxInFlightIoTasks);
+    }
+
+    /**
+     * Creates the executors using the configured values, or the defaults for the missing ones:
+     *  - CPU_POOL_PARALLELISM: the number of available processors.
+     *  - IO_EXECUTOR: PLATFORM.
+     *  - IO_POOL_SIZE: 4 threads (ignored for VIRTUAL).
+     *  - IO_QUEUE_CAPACITY: 64 tasks waiting on top of the running ones.
+     * @param config the configuration.
+     * @return the executors.
+     */
+    public static DeliveryExecutors fromConfig(final Config config) {
+        final int cpuParallelism = config.getPropertyAsInteger(CPU_POOL_PARALLELISM_PROPERTY_NAME)
+                                         .orElse(Runtime.getRuntime().availableProcessors());
+        final int ioPoolSize = config.getPropertyAsInteger(IO_POOL_SIZE_PROPERTY_NAME).orElse(DEFAULT_IO_POOL_SIZE);
+        final int ioQueueCapacity = config.getPropertyAsInteger(IO_QUEUE_CAPACITY_PROPERTY_NAME).orElse(DEFAULT_IO_QUEUE_CAPACITY);
+        final IoExecutorType ioExecutorType = config.getPropertyAsEnum(IO_EXECUTOR_PROPERTY_NAME, IoExecutorType.class)
+                                                    .orElse(IoExecutorType.PLATFORM);
+        logger.info("Creating executors with cpuParallelism={}, ioExecutor={}, ioPoolSize={}, ioQueueCapacity={}",
+                    cpuParallelism, ioExecutorType, ioPoolSize, ioQueueCapacity);
+        if (ioExecutorType == IoExecutorType.VIRTUAL) {
+            final ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualExecutor != null) {
+                return new DeliveryExecutors(cpuParallelism, virtualExecutor, ioPoolSize + ioQueueCapacity);
+            }
+            logger.warn("Virtual threads are NOT available in this JVM, using platform threads for I/O.");
+        }
+        final ExecutorService platformExecutor = Executors.newFixedThreadPool(ioPoolSize, newIoThreadFactory());
+        return new DeliveryExecutors(cpuParallelism, platformExecutor, ioPoolSize + ioQueueCapacity);
+    }
+
+    public ForkJoinPool getCpuPool() {
+        return cpuPool;
+    }
+
+    /**
+     * @return the I/O executor. Note that the tasks submitted directly to it are NOT bounded by the backpressure
+     *         of <strong>submitIo</strong>, so it should be used just for a bounded number of long-running tasks.
+     */
+    public ExecutorService getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * @return an executor that runs each task through <strong>submitIo</strong>, so the tasks are bounded by its
+     *         backpressure, for example the slots of a <strong>FleetScheduler</strong>.
+     */
+    public Executor getBoundedIoExecutor() {
+        return this::submitIo;
+    }
+
+    /**
+     * Runs the given CPU-bound task in the CPU pool and waits for it. Any parallel stream started by the task runs
+     * in the CPU pool as well.
+     * @param task the task to run.
+     */
+    public void runOnCpu(final Runnable task) {
+        cpuPool.submit(task).join();
+    }
+
+    public <T> T callOnCpu(final Supplier<T> task) {
+        return cpuPool.submit(task::get).join();
+    }
+
+    /**
+     * Submits the given blocking task to the I/O executor. If the maximum number of in-flight I/O tasks is reached,
+     * the caller waits until one of them completes.
+     * @param task the task to run.
+     * @return the future of the task.
+     */
+    public CompletableFuture<Void> submitIo(final Runnable task) {
+        ioPermits.acquireUninterruptibly();
+        try {
+            return CompletableFuture.runAsync(task, ioExecutor).whenComplete((result, exception) -> ioPermits.release());
+        } catch (final RuntimeException exception) {
+            ioPermits.release();
+            throw exception;
+        }
+    }
+
+    /**
+     * Waits for all the given futures, rethrowing the failure of the first failed one.
+     * @param futures the futures to wait for.
+     */
+    public static void awaitAll(final List<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    @Override
+    public void close() {
+        cpuPool.shutdown();
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("I/O tasks still running after waiting for one minute.");
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ForkJoinWorkerThread newCpuThread(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("delivery-cpu-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static ThreadFactory newIoThreadFactory() {
+        final AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            final Thread thread = new Thread(task, "delivery-io-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            // Looked up reflectively so the project still targets Java 8
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException exception) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.util.CommandRuns;
+import com.s4n.delivery.util.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.app.Constants.METRICS_ENABLED_PROPERTY_NAME;
+import static java.lang.String.format;
+
+/**
+ * Metrics of the hot paths of the delivery process, to know whether a slow run was spent parsing, planning or writing
+ * the reports. Some facts:
+ *  - The latency of each phase of <strong>DeliveryService</strong>, of the planning of each leg of the tours (the
+ *    calculation of the route commands, cache hits included) and of the writing of each report file is recorded in a
+ *    <strong>LatencyHistogram</strong>.
+ *  - Each drone has counters of routes, tours, commands flown (the legs back to the origin included) and aborted
+ *    deliveries, that is, the files or requests of the drone whose delivery the planner stopped at a point out of
+ *    the bounds or unreachable because of the no-fly zones. As the planner stops at the first such point, it counts
+ *    the deliveries and NOT the points, which would need to plan the rest of the routes anyway.
+ *  - All the counters are <strong>LongAdder</strong>, striped under contention, so the parallel planning of the
+ *    tours does NOT serialize on them.
+ *  - The metrics are published through JMX (see <strong>DeliveryMetricsMXBean</strong>) and written to a summary
+ *    file and a file of the drones, both in CSV format, when the service is closed. The metrics of a newer service of
+ *    the same JVM replace the published ones, and a service that is closed later does NOT unpublish them.
+ *  - When disabled, no clock is read and nothing is recorded: each hook is a single branch, and the leg planner and
+ *    the tour planning are NOT decorated at all.
+ */
+public final class DeliveryMetrics implements DeliveryMetricsMXBean {
+
+    public enum Phase { COLLECT, DELIVER, GENERATE_REPORTS, PROCESS, SIMULATE, WATCH_FILE, SERVE_BATCH }
+
+    static final DeliveryMetrics DISABLED = new DeliveryMetrics(false);
+    static final String OBJECT_NAME = "com.s4n.delivery:type=DeliveryMetrics";
+    static final String SUMMARY_FILE_NAME = "metrics-summary.csv";
+    static final String DRONES_FILE_NAME = "metrics-drones.csv";
+    private static final Logger logger = LogManager.getLogger(DeliveryMetrics.class);
+    private static final String LEG_PLANNING = "LEG_PLANNING";
+    private static final String REPORT_WRITES = "REPORT_WRITES";
+    // The metrics currently published through JMX, guarded by the class
+    private static DeliveryMetrics published;
+    private final boolean enabled;
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final LatencyHistogram legPlanning = new LatencyHistogram();
+    private final LatencyHistogram reportWrites = new LatencyHistogram();
+    private final Map<String, DroneCounters> drones = new ConcurrentHashMap<>();
+
+    DeliveryMetrics(final boolean enabled) {
+        this.enabled = enabled;
+        for (final Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @param config the configuration.
+     * @return enabled metrics if METRICS_ENABLED is true, or the disabled ones.
+     */
+    static DeliveryMetrics fromConfig(final Config config) {
+        return config.getPropertyAsBoolean(METRICS_ENABLED_PROPERTY_NAME).orElse(false) ? new DeliveryMetrics(true) : DISABLED;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time of a measure, to be recorded later, or 0 if disabled.
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void recordPhase(final Phase phase, final long start) {
+        if (enabled) {
+            phases.get(phase).record(System.nanoTime() - start);
+        }
+    }
+
+    void recordReportWrite(final long start) {
+        if (enabled) {
+            reportWrites.record(System.nanoTime() - start);
+        }
+    }
+
+    void recordRoutes(final String droneCode, final int routes) {
+        if (enabled) {
+            countersOf(droneCode).routes.add(routes);
+        }
+    }
+
+    void recordAbortedDelivery(final String droneCode) {
+        if (enabled) {
+            countersOf(droneCode).abortedDeliveries.increment();
+        }
+    }
+
+    /**
+     * @param legPlanner the leg planner.
+     * @return a leg planner that records the latency of each leg planned by the given one, or the given one if disabled.
+     */
+    LegPlanner timed(final LegPlanner legPlanner) {
+        if (!enabled) {
+            return legPlanner;
+        }
+        return (startState, endX, endY) -> {
+            final long start = System.nanoTime();
+            final CommandRuns leg = legPlanner.planLeg(startState, endX, endY);
+            legPlanning.record(System.nanoTime() - start);
+            return leg;
+        };
+    }
+
+    /**
+     * @param droneCode the code of the drone.
+     * @return the consumer of the legs of each tour of the drone (see <strong>TourPlanner.planTours</strong>) that
+     *         counts its tours and commands flown, or null if disabled, so the legs are NOT even collected.
+     */
+    Consumer<List<CommandRuns>> tourCounter(final String droneCode) {
+        if (!enabled) {
+            return null;
+        }
+        final DroneCounters counters = countersOf(droneCode);
+        return legs -> {
+            long commands = 0;
+            for (int leg = 0; leg < legs.size(); leg++) {
+                commands += legs.get(leg).getTextLength();
+            }
+            counters.tours.increment();
+            counters.commandsFlown.add(commands);
+        };
+    }
+
+    /**
+     * Publishes the metrics through JMX, replacing the ones of a previous service of the same JVM, if any.
+     */
+    void register() {
+        if (enabled) {
+            synchronized (DeliveryMetrics.class) {
+                try {
+                    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                    final ObjectName name = new ObjectName(OBJECT_NAME);
+                    try {
+                        server.registerMBean(this, name);
+                    } catch (final InstanceAlreadyExistsException exception) {
+                        server.unregisterMBean(name);
+                        server.registerMBean(this, name);
+                    }
+                    published = this;
+                } catch (final JMException exception) {
+                    logger.warn("The metrics could NOT be published through JMX");
+                    logger.error("Exception: ", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unpublishes the metrics from JMX, unless they have been replaced by the ones of a newer service.
+     */
+    void unregister() {
+        if (enabled) {
+            synchronized (DeliveryMetrics.class) {
+                if (published != this) {
+                    return;
+                }
+                published = null;
+                try {
+                    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                    final ObjectName name = new ObjectName(OBJECT_NAME);
+                    if (server.isRegistered(name)) {
+                        server.unregisterMBean(name);
+                    }
+                } catch (final JMException exception) {
+                    logger.error("Exception: ", exception);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the summary file, with a line per latency that has been recorded, and the file of the drones, with a
+     * line per drone, in the given folder.
+     * @param folder the folder.
+     * @throws IOException if any file can NOT be written.
+     */
+    void writeSummary(final Path folder) throws IOException {
+        try (final BufferedWriter summary = Files.newBufferedWriter(folder.resolve(SUMMARY_FILE_NAME))) {
+            summary.write("metric,count,totalMillis,meanMicros,p50Micros,p99Micros,maxMicros");
+            summary.newLine();
+            for (final Map.Entry<String, LatencySummary> phase : getPhases().entrySet()) {
+                summary.write(phase.getKey() + "," + phase.getValue().toCsv());
+                summary.newLine();
+            }
+            summary.write(LEG_PLANNING + "," + getLegPlanning().toCsv());
+            summary.newLine();
+            summary.write(REPORT_WRITES + "," + getReportWrites().toCsv());
+            summary.newLine();
+        }
+        try (final BufferedWriter dronesFile = Files.newBufferedWriter(folder.resolve(DRONES_FILE_NAME))) {
+            dronesFile.write("drone,routes,tours,commandsFlown,abortedDeliveries");
+            dronesFile.newLine();
+            for (final Map.Entry<String, DroneSummary> drone : getDrones().entrySet()) {
+                final DroneSummary counters = drone.getValue();
+                dronesFile.write(drone.getKey() + "," + counters.getRoutes() + "," + counters.getTours() + ","
+                                 + counters.getCommandsFlown() + "," + counters.getAbortedDeliveries());
+                dronesFile.newLine();
+            }
+        }
+        logger.info("Metrics summary written to '{}'", folder.resolve(SUMMARY_FILE_NAME));
+    }
+
+    @Override
+    public Map<String, LatencySummary> getPhases() {
+        final Map<String, LatencySummary> summaries = new TreeMap<>();
+        phases.forEach((phase, histogram) -> {
+            if (histogram.getCount() > 0) {
+                summaries.put(phase.name(), new LatencySummary(histogram));
+            }
+        });
+        return summaries;
+    }
+
+    @Override
+    public LatencySummary getLegPlanning() {
+        return new LatencySummary(legPlanning);
+    }
+
+    @Override
+    public LatencySummary getReportWrites() {
+        return new LatencySummary(reportWrites);
+    }
+
+    @Override
+    public Map<String, DroneSummary> getDrones() {
+        final Map<String, DroneSummary> summaries = new TreeMap<>();
+        drones.forEach((code, counters) -> summaries.put(code, new DroneSummary(counters)));
+        return summaries;
+    }
+
+    @Override
+    public void reset() {
+        phases.values().forEach(LatencyHistogram::reset);
+        legPlanning.reset();
+        reportWrites.reset();
+        drones.clear();
+    }
+
+    private DroneCounters countersOf(final String droneCode) {
+        return drones.computeIfAbsent(droneCode, code -> new DroneCounters());
+    }
+
+    private static final class DroneCounters {
+
+        private final LongAdder routes = new LongAdder();
+        private final LongAdder tours = new LongAdder();
+        private final LongAdder commandsFlown = new LongAdder();
+        private final LongAdder abortedDeliveries = new LongAdder();
+    }
+
+    /**
+     * Snapshot of a <strong>LatencyHistogram</strong>, with the times in microseconds.
+     */
+    public static final class LatencySummary {
+
+        private final long count;
+        private final long totalMillis;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        LatencySummary(final LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.totalMillis = histogram.getTotalNanos() / 1_000_000;
+            this.meanMicros = count > 0 ? histogram.getTotalNanos() / 1e3 / count : 0;
+            this.p50Micros = histogram.getPercentileNanos(50) / 1e3;
+            this.p99Micros = histogram.getPercentileNanos(99) / 1e3;
+            this.maxMicros = histogram.getMaxNanos() / 1e3;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+
+        private String toCsv() {
+            return count + "," + totalMillis + ","
+                   + format(Locale.ROOT, "%.3f,%.3f,%.3f,%.3f", meanMicros, p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Snapshot of the counters of a drone.
+     */
+    public static final class DroneSummary {
+
+        private final long routes;
+        private final long tours;
+        private final long commandsFlown;
+        private final long abortedDeliveries;
+
+        private DroneSummary(final DroneCounters counters) {
+            this.routes = counters.routes.sum();
+            this.tours = counters.tours.sum();
+            this.commandsFlown = counters.commandsFlown.sum();
+            this.abortedDeliveries = counters.abortedDeliveries.sum();
+        }
+
+        public long getRoutes() {
+            return routes;
+        }
+
+        public long getTours() {
+            return tours;
+        }
+
+        public long getCommandsFlown() {
+            return commandsFlown;
+        }
+
+        public long getAbortedDeliveries() {
+            return abortedDeliveries;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.s4n.delivery.service;
+
+import java.util.Map;
+
+/**
+ * Management interface of <strong>DeliveryMetrics</strong>, published through JMX as
+ * 'com.s4n.delivery:type=DeliveryMetrics' while the delivery service is open.
+ */
+public interface DeliveryMetricsMXBean {
+
+    /**
+     * @return the latency of each phase of the delivery process that has run, by phase name.
+     */
+    Map<String, DeliveryMetrics.LatencySummary> getPhases();
+
+    /**
+     * @return the latency of the planning of each leg of the tours, cache hits included.
+     */
+    DeliveryMetrics.LatencySummary getLegPlanning();
+
+    /**
+     * @return the latency of the writing of each report file.
+     */
+    DeliveryMetrics.LatencySummary getReportWrites();
+
+    /**
+     * @return the counters of each drone, by drone code.
+     */
+    Map<String, DeliveryMetrics.DroneSummary> getDrones();
+
+    /**
+     * Resets all the metrics, for example between the runs of a long-running process.
+     */
+    void reset();
+}
@@ -3,8 +3,14 @@ package com.s4n.delivery.service;
 import java.io.File;
 import java.util.Set;
 
-public interface DeliveryService {
+public interface DeliveryService extends AutoCloseable {
     void collect(Set<File> inputFiles);
     void deliver();
     void generateReports();
+    void process(Set<File> inputFiles);
+    void simulate();
+    void watch();
+    void serve();
+    @Override
+    void close();
 }
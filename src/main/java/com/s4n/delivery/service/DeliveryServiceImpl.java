@@ -1,48 +1,176 @@
 package com.s4n.delivery.service;
 
-import com.google.common.collect.Lists;
 import com.s4n.delivery.app.Config;
+import com.s4n.delivery.planner.AStarLegPlanner;
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.planner.ObstacleMap;
+import com.s4n.delivery.util.CommandRuns;
 import com.s4n.delivery.util.FileUtils;
+import com.s4n.delivery.util.RouteCommandsCache;
+import com.s4n.delivery.util.RouteEndpointCache;
+import com.s4n.delivery.util.RouteFileReader.EndpointResolver;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
+import static com.s4n.delivery.app.Constants.AIRSPACE_SIMULATION_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.AIRSPACE_WINDOW_TICKS_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.AVAILABLE_DRONES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.COMPILED_INTERPRETER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.DEDUPLICATE_ROUTE_COMMANDS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.GLOBAL_ASSIGNMENT_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FILES_EXTENSION_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.INPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FOLDER_PATH_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FORMAT_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.LOAD_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.MAX_OPERATION_RADIO_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.MAX_TOUR_LENGTH_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.NO_FLY_ZONES_FILE_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.OUTPUT_FILES_EXTENSION_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME;
 import static com.s4n.delivery.app.Constants.OUTPUT_FOLDER_PATH_PROPERTY_NAME;
-import static com.s4n.delivery.service.Drone.DEFAULT_START_POSITION;
+import static com.s4n.delivery.app.Constants.REPORT_BINARY_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.REPORT_GZIP_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.REPORT_OUTPUT_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.ROUTE_COMMANDS_CACHE_SIZE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.ROUTE_ENDPOINT_CACHE_MAX_BYTES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.ROUTE_PLANNER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SERVER_BATCH_SIZE_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SERVER_MAX_REQUEST_BYTES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SERVER_PORT_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SERVER_THREADS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_DELIVERY_MILLIS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_FLEET_SIZES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_FORWARD_MILLIS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_GYRO_MILLIS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_JITTER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_LOADING_MILLIS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_LOADS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_REPLICATIONS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.TOUR_BUILDER_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.TOUR_ORDERING_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.TOUR_ORDERING_MAX_PASSES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.WATCH_SETTLE_MILLIS_PROPERTY_NAME;
+import static com.s4n.delivery.service.DeliveryExecutors.awaitAll;
 import static com.s4n.delivery.util.FileUtils.getFileNameWithNoPrefixNoExtension;
-import static com.s4n.delivery.util.RouteUtils.calculateEndPosition;
-import static com.s4n.delivery.util.RouteUtils.calculateRouteCommands;
-import static java.lang.Math.abs;
-import static java.nio.file.Files.readAllLines;
+import static com.s4n.delivery.util.RouteFileReader.COMPILED_RESOLVER;
+import static com.s4n.delivery.util.RouteFileReader.DIRECT_RESOLVER;
+import static com.s4n.delivery.util.RouteFileReader.parseRoutes;
+import static com.s4n.delivery.util.RouteFileReader.readRoutes;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparing;
 import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
+import static java.util.stream.IntStream.range;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 
 public class DeliveryServiceImpl implements DeliveryService {
 
     private static final Logger logger = LogManager.getLogger(DeliveryServiceImpl.class);
+    // Number of consecutive tours of a drone planned by each parallel task
+    private static final int TOURS_PER_TASK = 1024;
+    private static final long DEFAULT_ROUTE_COMMANDS_CACHE_SIZE = 100_000;
+    // The cache pays off just when the routes are repeated across the files, so it is enabled by configuration
+    private static final long DEFAULT_ROUTE_ENDPOINT_CACHE_MAX_BYTES = 0;
+    private static final int DEFAULT_ROUTES_CAPACITY = 16;
+    private static final int DEFAULT_TOUR_ORDERING_MAX_PASSES = 16;
+    private static final int DEFAULT_AIRSPACE_WINDOW_TICKS = 256;
+    private static final int DEFAULT_SIMULATION_FORWARD_MILLIS = 1_000;
+    private static final int DEFAULT_SIMULATION_GYRO_MILLIS = 500;
+    private static final int DEFAULT_SIMULATION_LOADING_MILLIS = 60_000;
+    private static final int DEFAULT_SIMULATION_DELIVERY_MILLIS = 30_000;
+    private static final int DEFAULT_SIMULATION_THROUGHPUT_BUCKETS = 20;
+    private static final int DEFAULT_SIMULATION_REPLICATIONS = 1;
+    static final String CONSOLIDATED_REPORT_CODE = "all";
+    private static final String CONSOLIDATED_INDEX_EXTENSION = ".idx";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final String SIMULATION_SUMMARY_FILE_NAME = "simulation-summary.csv";
+    private static final String SIMULATION_THROUGHPUT_FILE_NAME = "simulation-throughput.csv";
+    private static final String BINARY_EXTENSION = "bin";
+    private static final int DEFAULT_WATCH_SETTLE_MILLIS = 100;
+    private static final int DEFAULT_SERVER_PORT = 8080;
+    private static final int DEFAULT_SERVER_THREADS = 8;
+    private static final int DEFAULT_SERVER_BATCH_SIZE = 64;
+    private static final int DEFAULT_SERVER_MAX_REQUEST_BYTES = 8 * 1024 * 1024;
+    // Code of each drone of the fleet in the metrics of the global assignment, as the drones are NOT the files
+    private static final String GLOBAL_DRONE_CODE_PREFIX = "fleet-";
+    private static final String PARTIAL_REPORT_SUFFIX = ".partial";
+    enum InputFormat { TEXT, BINARY }
+    enum ReportOutput { PER_DRONE, CONSOLIDATED, BOTH }
+
     private final Config config;
+    private final DeliveryExecutors executors;
+    private final RouteCommandsCache routeCommandsCache;
+    private final LegPlanner legPlanner;
+    private final EndpointResolver interpreterResolver;
+    private final RouteEndpointCache routeEndpointCache;
+    private final boolean deduplicateRouteCommands;
+    private final InputFormat inputFormat;
+    private final DeliveryMetrics metrics;
     private Set<Drone> drones;
+    private int fleetSize;
 
     public DeliveryServiceImpl(final Config config) {
+        this(config, DeliveryExecutors.fromConfig(config));
+    }
+
+    /**
+     * Creates the service with the given executors, which are closed when the service is closed.
+     * @param config the configuration.
+     * @param executors the executors of the CPU-bound and the I/O-bound work.
+     */
+    public DeliveryServiceImpl(final Config config, final DeliveryExecutors executors) {
         this.config = config;
+        this.executors = executors;
+        this.metrics = DeliveryMetrics.fromConfig(config);
+        final ObstacleMap noFlyZones = getNoFlyZones();
+        final LegPlanner.Type legPlannerType = config.getPropertyAsEnum(ROUTE_PLANNER_PROPERTY_NAME, LegPlanner.Type.class)
+                                                     .orElse(LegPlanner.Type.LEGACY);
+        this.routeCommandsCache = new RouteCommandsCache(config.getPropertyAsInteger(ROUTE_COMMANDS_CACHE_SIZE_PROPERTY_NAME)
+                                                               .map(Integer::longValue)
+                                                               .orElse(DEFAULT_ROUTE_COMMANDS_CACHE_SIZE),
+                                                         legPlannerType == LegPlanner.Type.A_STAR
+                                                         ? new AStarLegPlanner() : LegPlanner.LEGACY);
+        // The legs that avoid the no-fly zones depend on their absolute position, so they can NOT be cached by shape
+        this.legPlanner = metrics.timed(noFlyZones.isEmpty() ? routeCommandsCache
+                                        : new AStarLegPlanner(noFlyZones, config.getPropertyAsInteger(MAX_OPERATION_RADIO_PROPERTY_NAME)
+                                                                                .orElse(Integer.MAX_VALUE)));
+        final long routeEndpointCacheMaxBytes = config.getPropertyAsLong(ROUTE_ENDPOINT_CACHE_MAX_BYTES_PROPERTY_NAME)
+                                                      .orElse(DEFAULT_ROUTE_ENDPOINT_CACHE_MAX_BYTES);
+        this.interpreterResolver = config.getPropertyAsBoolean(COMPILED_INTERPRETER_PROPERTY_NAME).orElse(true)
+                                   ? COMPILED_RESOLVER : DIRECT_RESOLVER;
+        this.routeEndpointCache = routeEndpointCacheMaxBytes > 0
+                                  ? new RouteEndpointCache(routeEndpointCacheMaxBytes, interpreterResolver) : null;
+        this.deduplicateRouteCommands = config.getPropertyAsBoolean(DEDUPLICATE_ROUTE_COMMANDS_PROPERTY_NAME).orElse(true);
+        this.inputFormat = config.getPropertyAsEnum(INPUT_FORMAT_PROPERTY_NAME, InputFormat.class)
+                                 .orElse(InputFormat.TEXT);
+        this.metrics.register();
     }
 
     /**
@@ -51,13 +179,33 @@ public class DeliveryServiceImpl implements DeliveryService {
      *  - filter the empty files, so empty files will be ignored.
      *  - at the moment of map each line of a file to a <strong>Route</strong> it calculates the delivery point
      *    starting from the origin (0, 0, N) using the given commands.
+     *  - big files are split into newline-aligned chunks that are parsed in parallel, keeping the order of the routes.
+     *  - the points of delivery of the routes repeated across the files are resolved just once (see
+     *    <strong>RouteEndpointCache</strong>) and, if configured, the repeated commands of a file are stored just once.
+     *  - the files are handed to the configured fleet of drones (see <strong>FleetScheduler</strong>), so when there
+     *    are more files than drones the surplus is queued and each file goes to the next free drone.
+     *  - if the binary input format is configured, each file is a binary file of routes (see
+     *    <strong>BinaryRouteFile</strong>) with the routes of one or more drones, already resolved, so nothing is
+     *    parsed nor interpreted.
      *
      * @param inputFiles the list of files previously filtered by the configured extensions.
      */
     @Override
     public void collect(final Set<File> inputFiles) {
-        validateOperationCapacity(inputFiles);
-        drones = inputFiles.parallelStream().filter(FileUtils::fileIsNotEmpty).map(this::loadDrone).collect(toSet());
+        final long start = metrics.start();
+        fleetSize = getFleetSize(inputFiles);
+        final FleetScheduler fleetScheduler = new FleetScheduler(fleetSize, executors.getCpuPool());
+        final Set<Drone> loadedDrones = ConcurrentHashMap.newKeySet();
+        if (inputFormat == InputFormat.BINARY) {
+            fleetScheduler.run(getNotEmptyFiles(inputFiles), file -> loadedDrones.addAll(loadBinaryDrones(file)));
+        } else {
+            fleetScheduler.run(getNotEmptyFiles(inputFiles), file -> loadedDrones.add(loadDrone(file)));
+        }
+        drones = loadedDrones;
+        if (nonNull(routeEndpointCache)) {
+            logger.info("Route endpoint cache: {}", routeEndpointCache.stats());
+        }
+        metrics.recordPhase(DeliveryMetrics.Phase.COLLECT, start);
     }
 
     /**
@@ -71,76 +219,679 @@ public class DeliveryServiceImpl implements DeliveryService {
      *    without end first the delivery of all the loaded packages. To achieve that, uses an algorithm that calculates
      *    the commands to navigate from the point of the first delivery to the second delivery point, and from the
      *    second to the third and so on.
+     *  - The packages are split into tours of the maximum load in the order of the file or, if configured, by their
+     *    angle around the origin and the maximum flight length of a tour (see <strong>TourBuilder</strong>).
+     *  - The packages of each tour are delivered in the order of the file or, if configured, in the order that reduces
+     *    the distance flown (see <strong>TourOrderer</strong>). Either way the report keeps one line per package.
+     *  - The commands of the legs are calculated with the fixed recipe of <strong>RouteUtils</strong> or, if configured,
+     *    with the shortest path that avoids the no-fly zones (see <strong>AStarLegPlanner</strong>).
+     *  - The commands of the legs with the same shape are calculated just once (see <strong>RouteCommandsCache</strong>).
+     *  - As every tour starts and ends in the origin, the tours of a drone do NOT depend on each other, so they are
+     *    planned in parallel too, in groups of consecutive tours, and then recorded in the drone in order.
+     *  - If the global assignment is configured, the packages of all the files are pooled and split across the fleet
+     *    by zones instead of by file (see <strong>deliverGlobally</strong>).
+     *  - If the airspace simulation is configured, the flights of all the drones are simulated command by command
+     *    at the end, to detect (and optionally resolve) the drones in the same cell at the same time
+     *    (see <strong>AirspaceSimulator</strong>).
      */
     @Override
     public void deliver() {
+        final long start = metrics.start();
         final Optional<Integer> maxLoadPerDrone = config.getPropertyAsInteger(LOAD_PROPERTY_NAME);
         if (maxLoadPerDrone.isPresent()) {
-            drones.parallelStream().forEach(
-                    drone -> Lists.partition(drone.getRoutes(), maxLoadPerDrone.get()).forEach(
-                            routeWithMaxLoad -> {
-                                routeWithMaxLoad.forEach(route -> {
-                                    if (isThePositionWithinLimits(route.getPointOfDelivery())) {
-                                        final String commands = calculateRouteCommands(drone.getPosition(), route.getPointOfDelivery());
-                                        drone.deliver(commands);
-                                    } else {
-                                        logger.error("Position is out of the bounds: {}", route.getPointOfDelivery());
-                                        throw new IllegalArgumentException("The drone position is out of the bounds");
-                                    }
-                                });
-                                drone.navigate(DEFAULT_START_POSITION);
-                            }
-                    )
-            );
+            final int maxLoad = maxLoadPerDrone.get();
+            final TourPlanner tourPlanner = getTourPlanner();
+            final AirspaceSimulator.Mode airspaceSimulation = getAirspaceSimulationMode();
+            // The tours are recorded just to be replayed by the airspace simulation
+            final boolean recordFlights = airspaceSimulation != AirspaceSimulator.Mode.OFF;
+            final List<TourPlanner.Flight> flights;
+            if (config.getPropertyAsBoolean(GLOBAL_ASSIGNMENT_PROPERTY_NAME).orElse(false)) {
+                flights = executors.callOnCpu(() -> deliverGlobally(maxLoad, tourPlanner, recordFlights));
+            } else {
+                final List<Drone> fleet = new ArrayList<>(drones);
+                flights = recordFlights ? fleet.stream().map(drone -> new TourPlanner.Flight()).collect(toList()) : emptyList();
+                executors.runOnCpu(() -> range(0, fleet.size()).parallel().forEach(
+                        i -> planDrone(fleet.get(i), maxLoad, tourPlanner, recordFlights ? flights.get(i) : null)));
+            }
+            logger.info("Route commands cache: {}", routeCommandsCache.stats());
+            if (recordFlights) {
+                simulateAirspace(flights, airspaceSimulation);
+            }
+            metrics.recordPhase(DeliveryMetrics.Phase.DELIVER, start);
         } else {
             throw new IllegalStateException("Basic properties missing in config, please validate.");
         }
     }
 
+    /**
+     * Delivers the packages of all the files with the whole fleet, so no drone crisscrosses the city while another
+     * one idles. Some facts:
+     *  - The points of delivery of all the files are pooled and split in as many zones as drones in the fleet, each
+     *    one with about the same work (see <strong>SpatialPartitioner</strong>).
+     *  - Each drone of the fleet plans the tours of its zone, and each delivery is recorded back in the file that the
+     *    package came from, so the reports are still one per input file with one line per package.
+     *  - The pool is presized and filled with a bulk copy per file, which is cheap next to the planning, while the
+     *    copies to the zones and back to the files are done in parallel.
+     * @param recordFlights whether the tours of each drone of the fleet are recorded.
+     * @return the recorded flight of each drone of the fleet, or an empty list if they are NOT recorded.
+     */
+    private List<TourPlanner.Flight> deliverGlobally(final int maxLoad, final TourPlanner tourPlanner,
+                                                     final boolean recordFlights) {
+        final List<Drone> fileDrones = new ArrayList<>(drones);
+        // The packages of the file 'f' are the range [offsets[f], offsets[f + 1]) of the pool
+        final int[] offsets = new int[fileDrones.size() + 1];
+        for (int f = 0; f < fileDrones.size(); f++) {
+            offsets[f + 1] = offsets[f] + fileDrones.get(f).getRouteColumns().size();
+        }
+        final PositionColumns pool = new PositionColumns(Math.max(offsets[fileDrones.size()], 1));
+        for (final Drone fileDrone : fileDrones) {
+            pool.addAll(fileDrone.getRouteColumns().getPointsOfDelivery());
+        }
+        final int[] order = new int[pool.size()];
+        final int[] zoneEnds = new int[fleetSize];
+        SpatialPartitioner.partition(pool, fleetSize, order, zoneEnds);
+
+        final long[] deliveries = new long[pool.size()];
+        final List<TourPlanner.Flight> flights = recordFlights
+                                                 ? range(0, fleetSize).mapToObj(zone -> new TourPlanner.Flight()).collect(toList())
+                                                 : emptyList();
+        final List<PositionColumns> zones = range(0, fleetSize).parallel().mapToObj(zone -> {
+            final int zoneStart = zone == 0 ? 0 : zoneEnds[zone - 1];
+            final PositionColumns zonePoints = new PositionColumns(Math.max(zoneEnds[zone] - zoneStart, 1));
+            for (int k = zoneStart; k < zoneEnds[zone]; k++) {
+                zonePoints.add(pool.getState(order[k]));
+            }
+            return zonePoints;
+        }).collect(toList());
+        range(0, fleetSize).parallel().forEach(zone -> {
+            final PositionColumns zonePoints = zones.get(zone);
+            int k = zone == 0 ? 0 : zoneEnds[zone - 1];
+            for (final PositionColumns zoneDeliveries : planDeliveries(GLOBAL_DRONE_CODE_PREFIX + (zone + 1), zonePoints,
+                                                                       maxLoad, tourPlanner,
+                                                                       recordFlights ? flights.get(zone) : null)) {
+                for (int i = 0; i < zoneDeliveries.size(); i++) {
+                    deliveries[order[k++]] = zoneDeliveries.getState(i);
+                }
+            }
+        });
+        logger.info("Assigned {} packages of {} files to {} drones by zones, the largest zone has {} packages",
+                    pool.size(), fileDrones.size(), fleetSize, largestZone(zoneEnds));
+
+        range(0, fileDrones.size()).parallel().forEach(f -> {
+            final PositionColumns fileDeliveries = new PositionColumns(Math.max(offsets[f + 1] - offsets[f], 1));
+            for (int i = offsets[f]; i < offsets[f + 1]; i++) {
+                fileDeliveries.add(deliveries[i]);
+            }
+            fileDrones.get(f).completeTours(fileDeliveries);
+        });
+        return flights;
+    }
+
+    private AirspaceSimulator.Mode getAirspaceSimulationMode() {
+        return config.getPropertyAsEnum(AIRSPACE_SIMULATION_PROPERTY_NAME, AirspaceSimulator.Mode.class)
+                     .orElse(AirspaceSimulator.Mode.OFF);
+    }
+
+    private void simulateAirspace(final List<TourPlanner.Flight> flights, final AirspaceSimulator.Mode mode) {
+        final int windowTicks = config.getPropertyAsInteger(AIRSPACE_WINDOW_TICKS_PROPERTY_NAME)
+                                      .orElse(DEFAULT_AIRSPACE_WINDOW_TICKS);
+        final AirspaceSimulator simulator = new AirspaceSimulator(mode, windowTicks);
+        executors.runOnCpu(() -> simulator.simulate(flights));
+    }
+
+    private static int largestZone(final int[] zoneEnds) {
+        int largest = 0;
+        for (int zone = 0; zone < zoneEnds.length; zone++) {
+            largest = Math.max(largest, zoneEnds[zone] - (zone == 0 ? 0 : zoneEnds[zone - 1]));
+        }
+        return largest;
+    }
+
+    /**
+     * Plans the tours that deliver the given packages, in parallel in groups of consecutive tours.
+     * @param flight the flight in which the tours are recorded in order, or null if they are NOT recorded.
+     * @return the positions of the drone at each delivery of each group of tours, in the order of the packages.
+     */
+    private List<PositionColumns> planDeliveries(final String droneCode, final PositionColumns pointsOfDelivery,
+                                                 final int maxLoad, final TourPlanner tourPlanner,
+                                                 final TourPlanner.Flight flight) {
+        final Consumer<List<CommandRuns>> tourCounter = metrics.tourCounter(droneCode);
+        final int packages = pointsOfDelivery.size();
+        final int packagesPerTask = packagesPerTask(maxLoad);
+        final int tasks = (int) ((packages + (long) packagesPerTask - 1) / packagesPerTask);
+        // Each task records its tours apart, so the flight gets them in order once all the tasks are done
+        final List<List<List<CommandRuns>>> taskTours = flight == null ? null
+                                                        : range(0, tasks).mapToObj(task -> new ArrayList<List<CommandRuns>>())
+                                                                         .collect(toList());
+        try {
+            final List<PositionColumns> deliveries = range(0, tasks).parallel()
+                    .mapToObj(task -> tourPlanner.planTours(pointsOfDelivery,
+                            (int) min((long) task * packagesPerTask, packages),
+                            (int) min((task + 1L) * packagesPerTask, packages), maxLoad,
+                            taskTours == null ? tourCounter : recorder(taskTours.get(task), tourCounter)))
+                    .collect(toList());
+            if (flight != null) {
+                taskTours.forEach(tours -> tours.forEach(flight::addTour));
+            }
+            return deliveries;
+        } catch (final IllegalArgumentException exception) {
+            metrics.recordAbortedDelivery(droneCode);
+            throw exception;
+        }
+    }
+
+    /**
+     * @return the number of packages of the TOURS_PER_TASK tours of each parallel task, clamped so it fits in an int.
+     */
+    private static int packagesPerTask(final int maxLoad) {
+        return (int) min((long) TOURS_PER_TASK * maxLoad, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Plans the tours of the given drones, in parallel in groups of consecutive tours as <strong>planDeliveries</strong>
+     * does, but just to get the commands of their legs.
+     * @return the commands of the legs of each tour, the tours of each drone in order and the drones in the given order.
+     */
+    private static List<List<CommandRuns>> planTours(final List<Drone> fleet, final int maxLoad, final TourPlanner tourPlanner) {
+        final int packagesPerTask = packagesPerTask(maxLoad);
+        final List<List<CommandRuns>> tours = new ArrayList<>();
+        for (final Drone drone : fleet) {
+            final PositionColumns pointsOfDelivery = drone.getRouteColumns().getPointsOfDelivery();
+            final int packages = pointsOfDelivery.size();
+            final int tasks = (int) ((packages + (long) packagesPerTask - 1) / packagesPerTask);
+            range(0, tasks).parallel().mapToObj(task -> {
+                final List<List<CommandRuns>> taskTours = new ArrayList<>();
+                tourPlanner.planTours(pointsOfDelivery, (int) min((long) task * packagesPerTask, packages),
+                                      (int) min((task + 1L) * packagesPerTask, packages), maxLoad, taskTours::add);
+                return taskTours;
+            }).collect(toList()).forEach(tours::addAll);
+        }
+        return tours;
+    }
+
+    private static Consumer<List<CommandRuns>> recorder(final List<List<CommandRuns>> tours,
+                                                        final Consumer<List<CommandRuns>> tourCounter) {
+        final Consumer<List<CommandRuns>> tourRecorder = tours::add;
+        return tourCounter == null ? tourRecorder : tourRecorder.andThen(tourCounter);
+    }
+
+    private void planDrone(final Drone drone, final int maxLoad, final TourPlanner tourPlanner) {
+        planDrone(drone, maxLoad, tourPlanner, null);
+    }
+
+    private void planDrone(final Drone drone, final int maxLoad, final TourPlanner tourPlanner,
+                           final TourPlanner.Flight flight) {
+        planDeliveries(drone.getCode(), drone.getRouteColumns().getPointsOfDelivery(), maxLoad, tourPlanner, flight)
+                .forEach(drone::completeTours);
+    }
+
     /**
      * Method that generate all the report files and save them in the configured output folder.
      * Note that at the end of the delivery process all the drones have the list of the delivery
      * positions that will be used to generate each report.
      * Also note that each drone have a code that will be used to create the file name that keep
      * relation with the given input file for each specific drone.
-     * This process is done in parallel trying to take advantage of all the available resources.
+     * This process is done in parallel in the I/O executor, so the blocking writes do NOT starve the CPU-bound work.
+     * The lines are formatted straight into reusable byte buffers and written with gathering writes (see
+     * <strong>ReportWriter</strong>). If configured, the reports of all the drones are also (or instead) written to a
+     * single consolidated file, optionally compressed with gzip, with an index of the report of each drone, and to a
+     * binary file of deliveries (see <strong>BinaryRouteFile</strong>).
      */
     @Override
     public void generateReports() {
+        final long start = metrics.start();
         logger.info("Generating reports for {} drones", drones.size());
         final Optional<String> outputFolderPath = config.getPropertyAsString(OUTPUT_FOLDER_PATH_PROPERTY_NAME);
         if (outputFolderPath.isPresent()) {
             final Path folderPath = Paths.get(outputFolderPath.get());
-            drones.parallelStream().forEach(drone -> writeReportFile(drone, folderPath));
+            final ReportOutput reportOutput = config.getPropertyAsEnum(REPORT_OUTPUT_PROPERTY_NAME, ReportOutput.class)
+                                                    .orElse(ReportOutput.PER_DRONE);
+            final List<CompletableFuture<Void>> writes = new ArrayList<>();
+            if (reportOutput != ReportOutput.CONSOLIDATED) {
+                drones.forEach(drone -> writes.add(executors.submitIo(() -> writeReportFile(drone, folderPath))));
+            }
+            final List<Drone> sortedDrones = drones.stream().sorted(comparing(Drone::getCode)).collect(toList());
+            if (reportOutput != ReportOutput.PER_DRONE) {
+                final boolean gzip = config.getPropertyAsBoolean(REPORT_GZIP_PROPERTY_NAME).orElse(false);
+                writes.add(executors.submitIo(() -> writeConsolidatedReport(sortedDrones, folderPath, gzip)));
+            }
+            if (config.getPropertyAsBoolean(REPORT_BINARY_PROPERTY_NAME).orElse(false)) {
+                writes.add(executors.submitIo(() -> writeBinaryReport(sortedDrones, folderPath)));
+            }
+            awaitAll(writes);
+            metrics.recordPhase(DeliveryMetrics.Phase.GENERATE_REPORTS, start);
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    /**
+     * Method that runs the collect, deliver and report phases as a streaming pipeline, one file at a time per drone,
+     * instead of three barriers over all the files. Some facts:
+     *  - Each file is scanned line by line (see <strong>RouteFileReader</strong>) and each route is kept in memory just until its tour is full, that is,
+     *    when the maximum allowed load is reached (or the file ends), so the memory needed is bounded by the tour
+     *    size and NOT by the size of the files.
+     *  - Each tour is planned as soon as it is full, in the same way as the <strong>deliver</strong> phase does,
+     *    and its report lines are written right away.
+     *  - The files are handed to the configured fleet of drones (see <strong>FleetScheduler</strong>) and processed
+     *    in parallel in the I/O executor, as each one is a read-plan-write pipeline. The empty files are ignored.
+     *  - Just the text input format is supported, as the binary files are already compact enough to be collected.
+     *
+     * @param inputFiles the list of files previously filtered by the configured extensions.
+     */
+    @Override
+    public void process(final Set<File> inputFiles) {
+        if (inputFormat != InputFormat.TEXT) {
+            throw new IllegalStateException("The streaming mode reads text input files only, please validate.");
+        }
+        final long start = metrics.start();
+        final int fleetSize = getFleetSize(inputFiles);
+        final Optional<Integer> maxLoadPerDrone = config.getPropertyAsInteger(LOAD_PROPERTY_NAME);
+        final Optional<String> outputFolderPath = config.getPropertyAsString(OUTPUT_FOLDER_PATH_PROPERTY_NAME);
+        if (maxLoadPerDrone.isPresent() && outputFolderPath.isPresent()) {
+            final Path folderPath = Paths.get(outputFolderPath.get());
+            final TourPlanner tourPlanner = getTourPlanner();
+            new FleetScheduler(fleetSize, executors.getBoundedIoExecutor())
+                    .run(getNotEmptyFiles(inputFiles), file -> streamFile(file, maxLoadPerDrone.get(), tourPlanner, folderPath));
+            logger.info("Route commands cache: {}", routeCommandsCache.stats());
+            metrics.recordPhase(DeliveryMetrics.Phase.PROCESS, start);
         } else {
             throw new IllegalStateException("Basic properties missing in config, please validate.");
         }
     }
 
-    private void writeReportFile(final Drone drone, final Path folderPath) {
-        try (final BufferedWriter writer = Files.newBufferedWriter(getFileForReport(drone, folderPath))) {
-            writer.write("== Delivery Report ==");
-            writer.newLine();
-            for (final Position position : drone.getPointsOfDelivery()) {
-                writer.write(position.getDescription());
-                writer.newLine();
+    /**
+     * Method that runs the what-if scenarios of the discrete-event simulation of the delivery process (see
+     * <strong>FleetSimulator</strong>) over the packages of all the loaded drones, and saves the results in the
+     * configured output folder. Some facts:
+     *  - The scenarios are all the combinations of the configured fleet sizes and maximum loads, by default the ones of
+     *    the delivery process, each one repeated the configured number of replications.
+     *  - The tours of each maximum load are planned once, as the <strong>deliver</strong> phase plans them for the routes
+     *    of each file, and shared by the scenarios.
+     *  - Each scenario is single-threaded, and the scenarios run in parallel in the CPU pool.
+     *  - The results are a summary file, with the makespan, utilization and throughput of each scenario, and a file
+     *    with the throughput curve of each scenario, both in CSV format.
+     *  - The fleet sizes, the maximum loads, the replications and the throughput buckets must be positive.
+     */
+    @Override
+    public void simulate() {
+        final long start = metrics.start();
+        final Optional<String> outputFolderPath = config.getPropertyAsString(OUTPUT_FOLDER_PATH_PROPERTY_NAME);
+        final Optional<Integer> maxLoadPerDrone = config.getPropertyAsInteger(LOAD_PROPERTY_NAME);
+        if (outputFolderPath.isPresent() && maxLoadPerDrone.isPresent()) {
+            final List<Integer> fleetSizes = config.getPropertyAsIntegerList(SIMULATION_FLEET_SIZES_PROPERTY_NAME)
+                                                   .orElse(singletonList(fleetSize));
+            final List<Integer> maxLoads = config.getPropertyAsIntegerList(SIMULATION_LOADS_PROPERTY_NAME)
+                                                 .orElse(singletonList(maxLoadPerDrone.get()));
+            final int replications = config.getPropertyAsInteger(SIMULATION_REPLICATIONS_PROPERTY_NAME)
+                                            .orElse(DEFAULT_SIMULATION_REPLICATIONS);
+            final int throughputBuckets = config.getPropertyAsInteger(SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME)
+                                                .orElse(DEFAULT_SIMULATION_THROUGHPUT_BUCKETS);
+            if (fleetSizes.stream().anyMatch(size -> size <= 0) || maxLoads.stream().anyMatch(load -> load <= 0)
+                || replications <= 0 || throughputBuckets <= 0) {
+                throw new IllegalStateException("The simulation settings must be positive, please validate.");
+            }
+            final FleetSimulator simulator = new FleetSimulator(getSimulationDurations());
+            final TourPlanner tourPlanner = getTourPlanner();
+
+            final List<Drone> sortedDrones = drones.stream().sorted(comparing(Drone::getCode)).collect(toList());
+            final Map<Integer, List<List<CommandRuns>>> toursByLoad = new HashMap<>();
+            for (final int maxLoad : maxLoads) {
+                toursByLoad.computeIfAbsent(maxLoad, load -> executors.callOnCpu(() -> planTours(sortedDrones, load, tourPlanner)));
             }
+            final int packages = sortedDrones.stream().mapToInt(drone -> drone.getRouteColumns().size()).sum();
+            final List<int[]> scenarios = new ArrayList<>();
+            for (final int scenarioFleetSize : fleetSizes) {
+                for (final int maxLoad : maxLoads) {
+                    for (int replication = 0; replication < replications; replication++) {
+                        scenarios.add(new int[]{scenarioFleetSize, maxLoad, replication});
+                    }
+                }
+            }
+            logger.info("Simulating {} scenarios of {} packages", scenarios.size(), packages);
+            final List<FleetSimulator.Result> results = executors.callOnCpu(() -> scenarios.parallelStream()
+                    .map(scenario -> simulator.simulate(toursByLoad.get(scenario[1]), scenario[0], scenario[1], scenario[2],
+                                                        throughputBuckets))
+                    .collect(toList()));
+            results.forEach(result -> logger.info("Simulation: {}", result));
+            final Path folderPath = Paths.get(outputFolderPath.get());
+            awaitAll(singletonList(executors.submitIo(() -> writeSimulationFiles(results, folderPath))));
+            metrics.recordPhase(DeliveryMetrics.Phase.SIMULATE, start);
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    /**
+     * Method that runs as a daemon over the configured input folder, delivering each input file as soon as it lands
+     * instead of waiting for the whole folder, until the process is stopped. Some facts:
+     *  - Each new or completed file is delivered in the same way as the <strong>collect</strong>, <strong>deliver</strong>
+     *    and <strong>generateReports</strong> phases do for a single file, and its report is written right away. As
+     *    the JVM, the JIT-compiled code and the caches of the routes and the legs are kept between files, each file
+     *    takes the time of its own work and NOT the startup time.
+     *  - The files are handed to the configured fleet of drones for the whole life of the daemon (see
+     *    <strong>InputFolderWatcher</strong>), so when more files land than drones are available the surplus is
+     *    queued for the next free drone. The drones are just a cap on the files processed at once: the files run in
+     *    the I/O executor with its backpressure (see <strong>DeliveryExecutors.submitIo</strong>), so fewer of them
+     *    may run at once than drones are configured.
+     *  - Just the report of each drone is written, the consolidated and binary reports, the global assignment and the
+     *    airspace simulation need the whole folder and are NOT supported.
+     *  - When the process is stopped, the files already accepted are finished before the service is closed.
+     */
+    @Override
+    public void watch() {
+        final Optional<String> inputFolderPath = config.getPropertyAsString(INPUT_FOLDER_PATH_PROPERTY_NAME);
+        final Optional<String> inputFilesExtension = config.getPropertyAsString(INPUT_FILES_EXTENSION_PROPERTY_NAME);
+        final Optional<String> inputFilesNamePrefix = config.getPropertyAsString(INPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
+        final Optional<Integer> numberOfAvailableDrones = config.getPropertyAsInteger(AVAILABLE_DRONES_PROPERTY_NAME);
+        final Optional<Integer> maxLoadPerDrone = config.getPropertyAsInteger(LOAD_PROPERTY_NAME);
+        final Optional<String> outputFolderPath = config.getPropertyAsString(OUTPUT_FOLDER_PATH_PROPERTY_NAME);
+        if (inputFolderPath.isPresent() && inputFilesExtension.isPresent() && inputFilesNamePrefix.isPresent()
+            && numberOfAvailableDrones.isPresent() && maxLoadPerDrone.isPresent() && outputFolderPath.isPresent()) {
+            final String fileNameSuffix = "." + inputFilesExtension.get();
+            final Path folderPath = Paths.get(outputFolderPath.get());
+            final TourPlanner tourPlanner = getTourPlanner();
+            final long settleMillis = config.getPropertyAsInteger(WATCH_SETTLE_MILLIS_PROPERTY_NAME)
+                                            .orElse(DEFAULT_WATCH_SETTLE_MILLIS);
+            try (final InputFolderWatcher watcher = new InputFolderWatcher(
+                    Paths.get(inputFolderPath.get()),
+                    file -> file.getFileName().toString().startsWith(inputFilesNamePrefix.get())
+                            && file.getFileName().toString().endsWith(fileNameSuffix),
+                    settleMillis, numberOfAvailableDrones.get(), executors.getBoundedIoExecutor(),
+                    file -> deliverFile(file, maxLoadPerDrone.get(), tourPlanner, folderPath))) {
+                final Thread shutdownHook = addShutdownHook(watcher::close);
+                watcher.run();
+                removeShutdownHook(shutdownHook);
+            } catch (final IOException exception) {
+                logger.error("Exception: ", exception);
+                throw new IllegalStateException("The input folder could not be watched, please validate.");
+            }
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    /**
+     * Method that runs the local submission API (see <strong>RouteSubmissionServer</strong>) until the process is
+     * stopped, so the deliveries of a drone are planned with a request instead of a file. Some facts:
+     *  - The routes of each request are delivered in the same way as the <strong>collect</strong> and
+     *    <strong>deliver</strong> phases do for the routes of a file, sharing the caches of the routes and the legs.
+     *  - The requests are planned in batches, and the requests of each batch are planned in parallel in the CPU pool.
+     *  - Nothing is written in the output folder, the report and the tours are in the response.
+     */
+    @Override
+    public void serve() {
+        final int port = config.getPropertyAsInteger(SERVER_PORT_PROPERTY_NAME).orElse(DEFAULT_SERVER_PORT);
+        try (final RouteSubmissionServer server = startServer(port)) {
+            final Thread shutdownHook = addShutdownHook(server::close);
+            server.awaitClose();
+            removeShutdownHook(shutdownHook);
+        } catch (final IOException exception) {
+            logger.error("Exception: ", exception);
+            throw new IllegalStateException("The server could not be started, please validate.");
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts the local submission API on the given port, see <strong>serve</strong>.
+     * @param port the port, or 0 for any free port.
+     * @return the started server, which must be closed.
+     * @throws IOException if the port can NOT be bound.
+     */
+    RouteSubmissionServer startServer(final int port) throws IOException {
+        final Optional<Integer> maxLoadPerDrone = config.getPropertyAsInteger(LOAD_PROPERTY_NAME);
+        if (maxLoadPerDrone.isPresent()) {
+            final int maxLoad = maxLoadPerDrone.get();
+            final TourPlanner tourPlanner = getTourPlanner();
+            return new RouteSubmissionServer(port,
+                    config.getPropertyAsInteger(SERVER_THREADS_PROPERTY_NAME).orElse(DEFAULT_SERVER_THREADS),
+                    config.getPropertyAsInteger(SERVER_BATCH_SIZE_PROPERTY_NAME).orElse(DEFAULT_SERVER_BATCH_SIZE),
+                    config.getPropertyAsInteger(SERVER_MAX_REQUEST_BYTES_PROPERTY_NAME).orElse(DEFAULT_SERVER_MAX_REQUEST_BYTES),
+                    getEndpointResolver(),
+                    batch -> {
+                        final long start = metrics.start();
+                        executors.runOnCpu(() -> batch.parallelStream()
+                                                      .forEach(submission -> submission.plan(tourPlanner, maxLoad, metrics)));
+                        metrics.recordPhase(DeliveryMetrics.Phase.SERVE_BATCH, start);
+                    });
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    /**
+     * Closes the executors, waiting for the pending I/O, and, if the metrics are enabled, writes their summary files
+     * in the configured output folder (see <strong>DeliveryMetrics</strong>).
+     */
+    @Override
+    public void close() {
+        executors.close();
+        if (metrics.isEnabled()) {
+            final Optional<String> outputFolderPath = config.getPropertyAsString(OUTPUT_FOLDER_PATH_PROPERTY_NAME);
+            if (outputFolderPath.isPresent()) {
+                try {
+                    metrics.writeSummary(Paths.get(outputFolderPath.get()));
+                } catch (final IOException exception) {
+                    logger.warn("Error writing the metrics summary to folder '{}'", outputFolderPath.get());
+                    logger.error("Exception: ", exception);
+                }
+            }
+            metrics.unregister();
+        }
+    }
+
+    /**
+     * Streams the routes of the given file to its report. The report is written to a partial file that is renamed
+     * once the whole file is delivered, so a file that fails (for example with a point out of the bounds) does NOT
+     * leave a truncated report behind.
+     */
+    private void streamFile(final File file, final int maxLoad, final TourPlanner tourPlanner, final Path folderPath) {
+        final String code = getCode(file);
+        final PositionColumns tour = new PositionColumns(maxLoad);
+        final PositionColumns deliveries = new PositionColumns(maxLoad);
+        final Consumer<List<CommandRuns>> tourCounter = metrics.tourCounter(code);
+        final List<CommandRuns> legs = tourCounter == null ? null : new ArrayList<>(maxLoad + 1);
+        final long[] routes = new long[1];
+        final Path report = getFileForReport(code, folderPath);
+        final Path partialReport = report.resolveSibling(report.getFileName() + PARTIAL_REPORT_SUFFIX);
+        boolean delivered = false;
+        try {
+            try (final ReportWriter writer = ReportWriter.open(partialReport)) {
+                writer.writeHeader();
+                readRoutes(file, getEndpointResolver(), (buffer, from, to, pointOfDelivery) -> {
+                    routes[0]++;
+                    tour.add(pointOfDelivery);
+                    if (tour.size() == maxLoad) {
+                        streamTour(tour, tourPlanner, deliveries, legs, tourCounter, writer);
+                    }
+                });
+                if (!tour.isEmpty()) {
+                    streamTour(tour, tourPlanner, deliveries, legs, tourCounter, writer);
+                }
+            }
+            Files.move(partialReport, report, REPLACE_EXISTING);
+            delivered = true;
+        } catch (final IOException exception) {
+            logger.warn("Error streaming file '{}' to folder '{}' for drone with code={}", file, folderPath, code);
+            logger.error("Exception: ", exception);
+        } catch (final IllegalArgumentException exception) {
+            metrics.recordAbortedDelivery(code);
+            throw exception;
+        } finally {
+            metrics.recordRoutes(code, (int) routes[0]);
+            if (!delivered) {
+                deletePartialReport(partialReport);
+            }
+        }
+    }
+
+    private static void deletePartialReport(final Path partialReport) {
+        try {
+            Files.deleteIfExists(partialReport);
+        } catch (final IOException exception) {
+            logger.warn("Error deleting the partial report '{}'", partialReport);
+            logger.error("Exception: ", exception);
+        }
+    }
+
+    private void streamTour(final PositionColumns tour, final TourPlanner tourPlanner, final PositionColumns deliveries,
+                            final List<CommandRuns> legs, final Consumer<List<CommandRuns>> tourCounter,
+                            final ReportWriter writer) throws IOException {
+        deliveries.clear();
+        if (legs != null) {
+            legs.clear();
+        }
+        tourPlanner.planTour(tour, 0, tour.size(), deliveries, legs);
+        if (tourCounter != null) {
+            tourCounter.accept(legs);
+        }
+        writer.writeLines(deliveries);
+        tour.clear();
+    }
+
+    private void deliverFile(final File file, final int maxLoad, final TourPlanner tourPlanner, final Path folderPath) {
+        final long start = metrics.start();
+        final List<Drone> fileDrones = inputFormat == InputFormat.BINARY ? loadBinaryDrones(file) : singletonList(loadDrone(file));
+        executors.runOnCpu(() -> fileDrones.forEach(drone -> planDrone(drone, maxLoad, tourPlanner)));
+        fileDrones.forEach(drone -> writeReportFile(drone, folderPath));
+        metrics.recordPhase(DeliveryMetrics.Phase.WATCH_FILE, start);
+    }
+
+    /**
+     * Registers a hook that, when the process is stopped, calls the given stop action and waits for the current thread,
+     * so the daemon modes finish their work and close the service before the JVM exits.
+     */
+    private static Thread addShutdownHook(final Runnable stop) {
+        final Thread daemonThread = Thread.currentThread();
+        final Thread shutdownHook = new Thread(() -> {
+            stop.run();
+            try {
+                daemonThread.join(MINUTES.toMillis(1));
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }, "delivery-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        return shutdownHook;
+    }
+
+    private static void removeShutdownHook(final Thread shutdownHook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (final IllegalStateException exception) {
+            // The JVM is already shutting down, so the hook is running
+        }
+    }
+
+    private void writeReportFile(final Drone drone, final Path folderPath) {
+        final long start = metrics.start();
+        try (final ReportWriter writer = ReportWriter.open(getFileForReport(drone.getCode(), folderPath))) {
+            writer.writeHeader();
+            writer.writeLines(drone.getPointsOfDeliveryColumns());
         } catch (final IOException exception) {
             logger.warn("Error writing report to folder '{}' for drone with code={}", folderPath, drone.getCode());
             logger.error("Exception: ", exception);
         }
+        metrics.recordReportWrite(start);
     }
 
-    private Path getFileForReport(final Drone drone, final Path folderPath) {
-        final String fileName = buildReportFileName(drone);
-        return Paths.get(folderPath.toString() + File.separator + fileName);
+    /**
+     * Writes the reports of all the given drones, one after the other, in a single file, and an index file with a line
+     * 'code,offset,length' per drone, where the offset and the length are the bytes of its report in the (uncompressed)
+     * consolidated file. So each report, which is the same content of its own report file, can be found with a seek.
+     */
+    private void writeConsolidatedReport(final List<Drone> sortedDrones, final Path folderPath, final boolean gzip) {
+        final Path reportFile = getFileForReport(CONSOLIDATED_REPORT_CODE, folderPath);
+        final Path file = gzip ? Paths.get(reportFile + ".gz") : reportFile;
+        try (final ReportWriter writer = gzip ? new ReportWriter(Channels.newChannel(
+                     new GZIPOutputStream(Files.newOutputStream(file), GZIP_BUFFER_SIZE))) : ReportWriter.open(file);
+             final ReportWriter index = ReportWriter.open(Paths.get(reportFile + CONSOLIDATED_INDEX_EXTENSION))) {
+            for (final Drone drone : sortedDrones) {
+                final long offset = writer.getBytesWritten();
+                writer.writeHeader();
+                writer.writeLines(drone.getPointsOfDeliveryColumns());
+                index.write((drone.getCode() + "," + offset + "," + (writer.getBytesWritten() - offset)
+                             + System.lineSeparator()).getBytes(US_ASCII));
+            }
+        } catch (final IOException exception) {
+            logger.warn("Error writing the consolidated report to folder '{}'", folderPath);
+            logger.error("Exception: ", exception);
+        }
+    }
+
+    private void writeBinaryReport(final List<Drone> sortedDrones, final Path folderPath) {
+        final Map<String, PositionColumns> deliveriesByCode = new LinkedHashMap<>();
+        sortedDrones.forEach(drone -> deliveriesByCode.put(drone.getCode(), drone.getPointsOfDeliveryColumns()));
+        try {
+            BinaryRouteFile.writeDeliveries(getFileForReport(CONSOLIDATED_REPORT_CODE, folderPath, BINARY_EXTENSION),
+                                            deliveriesByCode);
+        } catch (final IOException exception) {
+            logger.warn("Error writing the binary report to folder '{}'", folderPath);
+            logger.error("Exception: ", exception);
+        }
+    }
+
+    private FleetSimulator.Durations getSimulationDurations() {
+        return new FleetSimulator.Durations(
+                config.getPropertyAsInteger(SIMULATION_FORWARD_MILLIS_PROPERTY_NAME).orElse(DEFAULT_SIMULATION_FORWARD_MILLIS),
+                config.getPropertyAsInteger(SIMULATION_GYRO_MILLIS_PROPERTY_NAME).orElse(DEFAULT_SIMULATION_GYRO_MILLIS),
+                config.getPropertyAsInteger(SIMULATION_LOADING_MILLIS_PROPERTY_NAME).orElse(DEFAULT_SIMULATION_LOADING_MILLIS),
+                config.getPropertyAsInteger(SIMULATION_DELIVERY_MILLIS_PROPERTY_NAME).orElse(DEFAULT_SIMULATION_DELIVERY_MILLIS),
+                config.getPropertyAsDouble(SIMULATION_JITTER_PROPERTY_NAME).orElse(0.0));
     }
 
-    private String buildReportFileName(final Drone drone) {
+    private void writeSimulationFiles(final List<FleetSimulator.Result> results, final Path folderPath) {
+        try (final BufferedWriter summary = Files.newBufferedWriter(folderPath.resolve(SIMULATION_SUMMARY_FILE_NAME));
+             final BufferedWriter throughput = Files.newBufferedWriter(folderPath.resolve(SIMULATION_THROUGHPUT_FILE_NAME))) {
+            summary.write("fleetSize,maxLoad,replication,makespanMillis,deliveries,deliveriesPerHour,"
+                          + "meanUtilization,minUtilization,events,eventsPerSecond");
+            summary.newLine();
+            throughput.write("fleetSize,maxLoad,replication,timeMillis,cumulativeDeliveries");
+            throughput.newLine();
+            for (final FleetSimulator.Result result : results) {
+                double minUtilization = 1;
+                for (int drone = 0; drone < result.getFleetSize(); drone++) {
+                    minUtilization = Math.min(minUtilization, result.getUtilization(drone));
+                }
+                summary.write(result.getFleetSize() + "," + result.getMaxLoad() + "," + result.getReplication() + ","
+                              + result.getMakespanMillis() + "," + result.getDeliveries() + ","
+                              + String.format(Locale.ROOT, "%.2f,%.4f,%.4f,", result.getDeliveriesPerHour(),
+                                              result.getMeanUtilization(), minUtilization)
+                              + result.getEvents() + "," + Math.round(result.getEventsPerSecond()));
+                summary.newLine();
+                final int[] cumulativeDeliveries = result.getCumulativeDeliveries();
+                for (int bucket = 0; bucket < cumulativeDeliveries.length; bucket++) {
+                    throughput.write(result.getFleetSize() + "," + result.getMaxLoad() + "," + result.getReplication()
+                                     + "," + (bucket + 1) * result.getBucketMillis() + "," + cumulativeDeliveries[bucket]);
+                    throughput.newLine();
+                }
+            }
+        } catch (final IOException exception) {
+            logger.warn("Error writing the simulation results to folder '{}'", folderPath);
+            logger.error("Exception: ", exception);
+        }
+    }
+
+    private Path getFileForReport(final String droneCode, final Path folderPath) {
         final Optional<String> extension = config.getPropertyAsString(OUTPUT_FILES_EXTENSION_PROPERTY_NAME);
+        if (extension.isPresent()) {
+            return getFileForReport(droneCode, folderPath, extension.get());
+        } else {
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    private Path getFileForReport(final String droneCode, final Path folderPath, final String extension) {
+        final String fileName = buildReportFileName(droneCode, extension);
+        return Paths.get(folderPath.toString() + File.separator + fileName);
+    }
+
+    private String buildReportFileName(final String droneCode, final String extension) {
         final Optional<String> fileNamePrefix = config.getPropertyAsString(OUTPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
-        if (extension.isPresent() && fileNamePrefix.isPresent()) {
-            return fileNamePrefix.get() + drone.getCode() + "." + extension.get();
+        if (fileNamePrefix.isPresent()) {
+            return fileNamePrefix.get() + droneCode + "." + extension;
         } else {
             throw new IllegalStateException("Basic properties missing in config, please validate.");
         }
@@ -148,10 +899,27 @@ public class DeliveryServiceImpl implements DeliveryService {
 
     private Drone loadDrone(final File file) {
         final String code = getCode(file);
-        final List<Route> routes = getRoutes(file);
+        final RouteColumns routes = getRoutes(file);
+        metrics.recordRoutes(code, routes.size());
+        routes.freeze();
         return new Drone(code, routes);
     }
 
+    private List<Drone> loadBinaryDrones(final File file) {
+        final List<Drone> binaryDrones = new ArrayList<>();
+        try (final BinaryRouteFile binary = BinaryRouteFile.open(file.toPath())) {
+            for (final String code : binary.getCodes()) {
+                final RouteColumns routes = binary.readRoutes(code, deduplicateRouteCommands);
+                metrics.recordRoutes(code, routes.size());
+                routes.freeze();
+                binaryDrones.add(new Drone(code, routes));
+            }
+        } catch (final IOException e) {
+            logger.error("Exception occurred while trying to read binary file: {}", file, e);
+        }
+        return binaryDrones;
+    }
+
     private String getCode(final File file) {
         final Optional<String> fileNamePrefix = config.getPropertyAsString(INPUT_FILES_NAME_PREFIX_PROPERTY_NAME);
         if (fileNamePrefix.isPresent()) {
@@ -161,37 +929,76 @@ public class DeliveryServiceImpl implements DeliveryService {
         }
     }
 
-    private boolean isThePositionWithinLimits(final Position positionOfDelivery) {
+    private TourPlanner getTourPlanner() {
         final Optional<Integer> maxOperationRadio = config.getPropertyAsInteger(MAX_OPERATION_RADIO_PROPERTY_NAME);
-        if (maxOperationRadio.isPresent() && nonNull(positionOfDelivery)) {
-            final int maxRadio = maxOperationRadio.get();
-            return abs(positionOfDelivery.getX()) <= maxRadio || abs(positionOfDelivery.getY()) <= maxRadio;
+        if (maxOperationRadio.isPresent()) {
+            return new TourPlanner(maxOperationRadio.get(), legPlanner, getTourOrderer(), getTourBuilder(maxOperationRadio.get()));
         } else {
-            return false;
+            throw new IllegalStateException("Basic properties missing in config, please validate.");
+        }
+    }
+
+    private ObstacleMap getNoFlyZones() {
+        final Optional<String> noFlyZonesFile = config.getPropertyAsString(NO_FLY_ZONES_FILE_PROPERTY_NAME).map(String::trim);
+        if (!noFlyZonesFile.isPresent() || noFlyZonesFile.get().isEmpty()) {
+            return ObstacleMap.EMPTY;
         }
+        try {
+            final ObstacleMap noFlyZones = ObstacleMap.load(Paths.get(noFlyZonesFile.get()));
+            logger.info("Loaded {} no-fly cells from '{}'", noFlyZones.getBlockedCells(), noFlyZonesFile.get());
+            return noFlyZones;
+        } catch (final IOException exception) {
+            logger.error("Exception: ", exception);
+            throw new IllegalStateException("The no-fly zones file could not be read, please validate.");
+        }
+    }
+
+    private TourOrderer getTourOrderer() {
+        final TourOrderer.Type type = config.getPropertyAsEnum(TOUR_ORDERING_PROPERTY_NAME, TourOrderer.Type.class)
+                                            .orElse(TourOrderer.Type.FILE);
+        if (type == TourOrderer.Type.NEAREST_NEIGHBOUR) {
+            final int maxPasses = config.getPropertyAsInteger(TOUR_ORDERING_MAX_PASSES_PROPERTY_NAME)
+                                        .orElse(DEFAULT_TOUR_ORDERING_MAX_PASSES);
+            return new NearestNeighbourTourOrderer(maxPasses);
+        }
+        return TourOrderer.FILE_ORDER;
     }
 
-    private List<Route> getRoutes(final File file) {
+    private TourBuilder getTourBuilder(final int maxOperationRadio) {
+        final TourBuilder.Type type = config.getPropertyAsEnum(TOUR_BUILDER_PROPERTY_NAME, TourBuilder.Type.class)
+                                            .orElse(TourBuilder.Type.FIXED_LOAD);
+        if (type == TourBuilder.Type.SWEEP) {
+            final long maxTourLength = config.getPropertyAsLong(MAX_TOUR_LENGTH_PROPERTY_NAME)
+                                             .filter(length -> length > 0)
+                                             .orElse(SweepTourBuilder.maxTourLengthFor(maxOperationRadio));
+            return new SweepTourBuilder(maxTourLength);
+        }
+        return TourBuilder.FIXED_LOAD;
+    }
+
+    private RouteColumns getRoutes(final File file) {
         try {
-            return readAllLines(file.toPath()).stream().map(this::createRoute).collect(toList());
+            return parseRoutes(file, executors.getCpuPool(), getEndpointResolver(),
+                               () -> new RouteColumns(DEFAULT_ROUTES_CAPACITY, deduplicateRouteCommands));
         } catch (final IOException e) {
             logger.error("Exception occurred while trying to read file: {}", file);
-            return emptyList();
+            return new RouteColumns();
         }
     }
 
-    private Route createRoute(final String commands) {
-        final Position pointOfDelivery = calculateEndPosition(commands, DEFAULT_START_POSITION);
-        return new Route(commands, pointOfDelivery);
+    private EndpointResolver getEndpointResolver() {
+        return nonNull(routeEndpointCache) ? routeEndpointCache : interpreterResolver;
     }
 
-    private void validateOperationCapacity(final Set<File> inputFiles) {
+    private List<File> getNotEmptyFiles(final Set<File> inputFiles) {
+        return inputFiles.stream().filter(FileUtils::fileIsNotEmpty).collect(toList());
+    }
+
+    private int getFleetSize(final Set<File> inputFiles) {
         final Optional<Integer> numberOfAvailableDrones = config.getPropertyAsInteger(AVAILABLE_DRONES_PROPERTY_NAME);
         if (numberOfAvailableDrones.isPresent()) {
             if (isNotEmpty(inputFiles)) {
-                if (inputFiles.size() > numberOfAvailableDrones.get()) {
-                    throw new IllegalArgumentException("The load is more than expected for the current fleet of drones.");
-                }
+                return numberOfAvailableDrones.get();
             } else {
                 throw new IllegalArgumentException("No files in the specified folder, please validate.");
             }
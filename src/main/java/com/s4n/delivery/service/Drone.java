@@ -1,22 +1,24 @@
 package com.s4n.delivery.service;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.ImmutableList;
+import com.s4n.delivery.util.CommandRuns;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import static com.s4n.delivery.service.Position.Orientation.N;
-import static com.s4n.delivery.util.RouteUtils.calculateEndPosition;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.toPosition;
+import static com.s4n.delivery.util.RouteUtils.calculateEndState;
 import static java.lang.String.format;
 
 public class Drone {
 
     public static final Position DEFAULT_START_POSITION = new Position(0, 0, N);
-    private final List<Route> routes;
-    private final List<Position> pointsOfDelivery = new LinkedList<>();
+    public static final long DEFAULT_START_STATE = pack(DEFAULT_START_POSITION);
+    private final RouteColumns routes;
+    private final PositionColumns pointsOfDelivery;
     private final String code;
-    private Position position;
+    private long state;
 
     /**
      * Creates an instance of a Drone with the given parameters.
@@ -33,13 +35,32 @@ public class Drone {
      *               object. For more information read the documentation in <strong>Route</strong> class.
      */
     public Drone(final String code, final List<Route> routes) {
+        this(code, toColumns(routes));
+    }
+
+    /**
+     * Creates an instance of a Drone that takes ownership of the given columnar routes, so no copy is done.
+     * The given columns are NOT frozen here, the caller (usually the loader of the routes) should freeze them, as
+     * they must NOT be modified afterwards.
+     * @param code the code or identifier of the drone.
+     * @param routes the routes to deliver each package as described in the loaded file.
+     */
+    public Drone(final String code, final RouteColumns routes) {
         this.code = code;
-        this.routes = ImmutableList.copyOf(routes);
-        this.position = DEFAULT_START_POSITION;
+        this.routes = routes;
+        this.pointsOfDelivery = new PositionColumns(routes.size());
+        this.state = DEFAULT_START_STATE;
     }
 
     public Position getPosition() {
-        return position;
+        return toPosition(state);
+    }
+
+    /**
+     * @return the packed current position of the drone (see <strong>PackedPositions</strong>).
+     */
+    public long getState() {
+        return state;
     }
 
     /**
@@ -48,8 +69,27 @@ public class Drone {
      * @param commands the commands to be used in navigation.
      */
     public void deliver(final String commands) {
-        position = calculateEndPosition(commands, position);
-        pointsOfDelivery.add(position);
+        state = calculateEndState(commands, state);
+        pointsOfDelivery.add(state);
+    }
+
+    /**
+     * Same as <strong>deliver(String)</strong> but using run-length encoded commands, interpreted run by run.
+     * @param commands the commands to be used in navigation.
+     */
+    public void deliver(final CommandRuns commands) {
+        state = commands.apply(state);
+        pointsOfDelivery.add(state);
+    }
+
+    /**
+     * Method used to record one or more whole tours planned in advance. The positions of the drone at each delivery
+     * are saved for the record and, as every tour ends in the origin, the drone is set in the default start position.
+     * @param deliveries the positions of the drone at each delivery of the tours, in delivery order.
+     */
+    public void completeTours(final PositionColumns deliveries) {
+        pointsOfDelivery.addAll(deliveries);
+        state = DEFAULT_START_STATE;
     }
 
     /**
@@ -57,24 +97,65 @@ public class Drone {
      * @param position to be reached by the drone.
      */
     public void navigate(final Position position) {
-        this.position = position;
+        this.state = pack(position);
     }
 
-    public List<Route> getRoutes() {
-        return ImmutableList.copyOf(routes);
+    /**
+     * The routes are stored run-length encoded, so their commands are NOT the text read from the input file but its
+     * normalized form, which reaches the same points of delivery (see <strong>CommandRuns</strong>).
+     * @return a read-only view of the routes with their commands in normalized text form, no copy is done.
+     */
+    public List<Route> getNormalizedRoutes() {
+        return routes.asNormalizedRouteList();
+    }
+
+    /**
+     * @return the read-only columnar routes, no copy is done.
+     */
+    public RouteColumns getRouteColumns() {
+        return routes;
     }
 
+    /**
+     * @return a read-only view of the points of delivery, no copy is done.
+     */
     public List<Position> getPointsOfDelivery() {
-        return ImmutableList.copyOf(pointsOfDelivery);
+        return pointsOfDelivery.asPositionList();
+    }
+
+    /**
+     * @return the columnar points of delivery, no copy is done, so they must NOT be modified.
+     */
+    PositionColumns getPointsOfDeliveryColumns() {
+        return pointsOfDelivery;
+    }
+
+    /**
+     * Visits each point of delivery, in delivery order, without allocating any object.
+     * @param consumer the visitor of each point of delivery.
+     */
+    public void forEachPointOfDelivery(final PositionColumns.PositionConsumer consumer) {
+        pointsOfDelivery.forEach(consumer);
+    }
+
+    public int getNumberOfDeliveries() {
+        return pointsOfDelivery.size();
     }
 
     public String getCode() {
         return code;
     }
 
+    private static RouteColumns toColumns(final List<Route> routes) {
+        final RouteColumns columns = new RouteColumns(routes.size());
+        routes.forEach(columns::add);
+        columns.freeze();
+        return columns;
+    }
+
     @Override
     public String toString() {
-        return format("Drone {code='%s', pointsOfDelivery=%s, position=%s}", code, pointsOfDelivery, position);
+        return format("Drone {code='%s', pointsOfDelivery=%s, position=%s}", code, getPointsOfDelivery(), getPosition());
     }
 
     @Override
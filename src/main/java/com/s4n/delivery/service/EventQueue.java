@@ -0,0 +1,84 @@
+package com.s4n.delivery.service;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of the events of a discrete-event simulation, each one the time at which an entity (for example a
+ * drone) has to be processed. It is a binary heap over two primitive arrays, so the scheduling of an event does NOT
+ * allocate. The events at the same time are processed in the order of their entities, so a simulation is
+ * deterministic.
+ */
+final class EventQueue {
+
+    private long[] times;
+    private int[] entities;
+    private int size;
+
+    EventQueue(final int capacity) {
+        times = new long[Math.max(capacity, 1)];
+        entities = new int[Math.max(capacity, 1)];
+    }
+
+    void schedule(final long time, final int entity) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            entities = Arrays.copyOf(entities, size * 2);
+        }
+        int child = size++;
+        while (child > 0) {
+            final int parent = (child - 1) >>> 1;
+            if (!before(time, entity, times[parent], entities[parent])) {
+                break;
+            }
+            times[child] = times[parent];
+            entities[child] = entities[parent];
+            child = parent;
+        }
+        times[child] = time;
+        entities[child] = entity;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the time of the next event, which must exist.
+     */
+    long peekTime() {
+        return times[0];
+    }
+
+    /**
+     * Removes the next event, which must exist.
+     * @return the entity of the removed event.
+     */
+    int poll() {
+        final int first = entities[0];
+        final long time = times[--size];
+        final int entity = entities[size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(times[child + 1], entities[child + 1], times[child], entities[child])) {
+                child++;
+            }
+            if (!before(times[child], entities[child], time, entity)) {
+                break;
+            }
+            times[parent] = times[child];
+            entities[parent] = entities[child];
+            parent = child;
+        }
+        times[parent] = time;
+        entities[parent] = entity;
+        return first;
+    }
+
+    private static boolean before(final long time, final int entity, final long otherTime, final int otherEntity) {
+        return time < otherTime || (time == otherTime && entity < otherEntity);
+    }
+}
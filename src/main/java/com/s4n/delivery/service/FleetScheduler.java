@@ -0,0 +1,168 @@
+package com.s4n.delivery.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.service.DeliveryExecutors.awaitAll;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Scheduler that multiplexes any number of jobs, for example input files, over a bounded fleet of drone slots
+ * instead of rejecting the batch when there are more jobs than drones. Some facts:
+ *  - The jobs are queued round-robin in a deque per slot, and each slot takes the jobs of its own deque in order.
+ *  - A slot whose deque is empty steals the last job of the slot with more pending jobs, so the slots that finish
+ *    early keep working while there is work left in the fleet.
+ *  - The time each slot is busy is measured, so the utilization of each slot is reported at the end of each run.
+ */
+public class FleetScheduler {
+
+    private static final Logger logger = LogManager.getLogger(FleetScheduler.class);
+    private final int numberOfSlots;
+    private final Executor executor;
+
+    /**
+     * @param numberOfSlots the number of drones of the fleet.
+     * @param executor the executor in which the slots run.
+     */
+    public FleetScheduler(final int numberOfSlots, final Executor executor) {
+        if (numberOfSlots < 1) {
+            throw new IllegalArgumentException("The fleet must have at least one drone.");
+        }
+        this.numberOfSlots = numberOfSlots;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs all the given jobs over the slots of the fleet and waits for them.
+     * @param jobs the jobs to run.
+     * @param work the work to do for each job.
+     * @param <T> the type of the jobs.
+     * @return the report of the run with the utilization of each slot.
+     */
+    public <T> Report run(final List<T> jobs, final Consumer<T> work) {
+        final int slots = Math.max(1, Math.min(numberOfSlots, jobs.size()));
+        final List<Deque<T>> queues = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            queues.add(new ConcurrentLinkedDeque<>());
+        }
+        for (int i = 0; i < jobs.size(); i++) {
+            queues.get(i % slots).addLast(jobs.get(i));
+        }
+        if (jobs.size() > numberOfSlots) {
+            logger.info("{} jobs for a fleet of {} drones, the surplus is queued", jobs.size(), numberOfSlots);
+        }
+        final long[] busyNanos = new long[slots];
+        final int[] completedJobs = new int[slots];
+        final int[] stolenJobs = new int[slots];
+        final long start = System.nanoTime();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            final int currentSlot = slot;
+            futures.add(CompletableFuture.runAsync(
+                    () -> runSlot(currentSlot, queues, work, busyNanos, completedJobs, stolenJobs), executor));
+        }
+        awaitAll(futures);
+        final Report report = new Report(System.nanoTime() - start, busyNanos, completedJobs, stolenJobs);
+        logger.info("Fleet run finished: {}", report);
+        return report;
+    }
+
+    private static <T> void runSlot(final int slot, final List<Deque<T>> queues, final Consumer<T> work,
+                                    final long[] busyNanos, final int[] completedJobs, final int[] stolenJobs) {
+        T job;
+        while ((job = nextJob(slot, queues, stolenJobs)) != null) {
+            final long start = System.nanoTime();
+            work.accept(job);
+            busyNanos[slot] += System.nanoTime() - start;
+            completedJobs[slot]++;
+        }
+    }
+
+    private static <T> T nextJob(final int slot, final List<Deque<T>> queues, final int[] stolenJobs) {
+        final T job = queues.get(slot).pollFirst();
+        if (job != null) {
+            return job;
+        }
+        while (true) {
+            Deque<T> victim = null;
+            int pendingJobs = 0;
+            for (final Deque<T> queue : queues) {
+                final int size = queue.size();
+                if (size > pendingJobs) {
+                    victim = queue;
+                    pendingJobs = size;
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            final T stolenJob = victim.pollLast();
+            if (stolenJob != null) {
+                stolenJobs[slot]++;
+                return stolenJob;
+            }
+        }
+    }
+
+    /**
+     * The result of a run: the wall time and, for each slot, the busy time and the number of completed and
+     * stolen jobs.
+     */
+    public static class Report {
+
+        private final long wallNanos;
+        private final long[] busyNanos;
+        private final int[] completedJobs;
+        private final int[] stolenJobs;
+
+        Report(final long wallNanos, final long[] busyNanos, final int[] completedJobs, final int[] stolenJobs) {
+            this.wallNanos = wallNanos;
+            this.busyNanos = busyNanos;
+            this.completedJobs = completedJobs;
+            this.stolenJobs = stolenJobs;
+        }
+
+        public int getNumberOfSlots() {
+            return busyNanos.length;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public int getCompletedJobs(final int slot) {
+            return completedJobs[slot];
+        }
+
+        public int getStolenJobs(final int slot) {
+            return stolenJobs[slot];
+        }
+
+        /**
+         * @param slot the slot.
+         * @return the fraction, between 0 and 1, of the wall time the slot was busy.
+         */
+        public double getUtilization(final int slot) {
+            return wallNanos > 0 ? (double) busyNanos[slot] / wallNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder(format("Report {wallMillis=%s, slots=[", NANOSECONDS.toMillis(wallNanos)));
+            for (int slot = 0; slot < getNumberOfSlots(); slot++) {
+                builder.append(format("%s{jobs=%s, stolen=%s, utilization=%.2f}", slot > 0 ? ", " : "",
+                                      completedJobs[slot], stolenJobs[slot], getUtilization(slot)));
+            }
+            return builder.append("]}").toString();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.util.CommandRuns;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static java.lang.String.format;
+
+/**
+ * Discrete-event simulation of a fleet of drones that deliver a pool of packages from the depot, in the origin
+ * (0, 0), so the time of the delivery process can be modeled for capacity planning. Some facts:
+ *  - The tours are taken from the pool in order, one at a time, by the first drone that is idle in the depot. Each
+ *    tour starts with the loading time, then each leg takes the time of its commands (a forward command and a gyro
+ *    have their own duration) plus the time to drop the package, and finally the drone flies back to the depot.
+ *  - The tours are planned by the <strong>TourPlanner</strong> of the delivery process (see
+ *    <strong>TourPlanner.planTours</strong>), so they are built, ordered and checked against the operation radio as
+ *    the delivered ones, and the commands flown are the same commands.
+ *  - The engine is single-threaded and processes one event per loading, per delivery and per return, scheduled in a
+ *    primitive priority queue (see <strong>EventQueue</strong>), so a simulation does NOT allocate per event. Several
+ *    simulations (replications or what-if scenarios) can run in parallel, as each one has its own state.
+ *  - The durations can have a random jitter, uniform in [-jitter, +jitter] of each duration, drawn from the seed of
+ *    each replication.
+ */
+class FleetSimulator {
+
+    private static final int LOADING = 0;
+    private static final int FLYING = 1;
+    private static final int RETURNING = 2;
+    private static final int IDLE = 3;
+    private final Durations durations;
+
+    FleetSimulator(final Durations durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * @param tours the commands of the legs of each tour of the pool, in the order they are loaded, each tour in
+     *              flight order and with the leg back to the depot at the end.
+     * @param fleetSize the number of drones.
+     * @param maxLoad the maximum number of packages of each tour, with which the tours were planned.
+     * @param replication the number of the replication, used as the seed of the jitter.
+     * @param throughputBuckets the number of points of the throughput curve.
+     * @return the result of the simulation.
+     */
+    Result simulate(final List<List<CommandRuns>> tours, final int fleetSize, final int maxLoad, final int replication,
+                    final int throughputBuckets) {
+        final long startNanos = System.nanoTime();
+        final SplittableRandom random = new SplittableRandom(replication);
+        int numberOfPackages = 0;
+        for (final List<CommandRuns> tour : tours) {
+            numberOfPackages += tour.size() - 1;
+        }
+        final int[] phases = new int[fleetSize];
+        final int[] droneTours = new int[fleetSize];
+        final int[] nextLegs = new int[fleetSize];
+        final long[] finishTimes = new long[fleetSize];
+        final long[] deliveryTimes = new long[numberOfPackages];
+        final EventQueue events = new EventQueue(fleetSize);
+        for (int drone = 0; drone < fleetSize; drone++) {
+            phases[drone] = IDLE;
+            events.schedule(0, drone);
+        }
+        int nextTour = 0;
+        int delivered = 0;
+        long processedEvents = 0;
+        while (!events.isEmpty()) {
+            final long time = events.peekTime();
+            final int drone = events.poll();
+            processedEvents++;
+            if (phases[drone] == FLYING) {
+                deliveryTimes[delivered++] = time;
+            }
+            if (phases[drone] == RETURNING || phases[drone] == IDLE) {
+                finishTimes[drone] = time;
+                if (nextTour < tours.size()) {
+                    droneTours[drone] = nextTour++;
+                    nextLegs[drone] = 0;
+                    phases[drone] = LOADING;
+                    events.schedule(time + jitter(durations.loadingMillis, random), drone);
+                }
+            } else {
+                final List<CommandRuns> tour = tours.get(droneTours[drone]);
+                final CommandRuns leg = tour.get(nextLegs[drone]++);
+                if (nextLegs[drone] < tour.size()) {
+                    phases[drone] = FLYING;
+                    events.schedule(time + jitter(flightMillis(leg) + durations.deliveryMillis, random), drone);
+                } else {
+                    phases[drone] = RETURNING;
+                    events.schedule(time + jitter(flightMillis(leg), random), drone);
+                }
+            }
+        }
+
+        long makespan = 0;
+        for (final long finishTime : finishTimes) {
+            makespan = Math.max(makespan, finishTime);
+        }
+        final double[] utilization = new double[fleetSize];
+        for (int drone = 0; drone < fleetSize; drone++) {
+            utilization[drone] = makespan > 0 ? (double) finishTimes[drone] / makespan : 0;
+        }
+        final long bucketMillis = Math.max(1, (makespan + throughputBuckets - 1) / throughputBuckets);
+        final int[] cumulativeDeliveries = new int[throughputBuckets];
+        for (int bucket = 0, i = 0; bucket < throughputBuckets; bucket++) {
+            while (i < delivered && deliveryTimes[i] <= (bucket + 1) * bucketMillis) {
+                i++;
+            }
+            cumulativeDeliveries[bucket] = i;
+        }
+        return new Result(fleetSize, maxLoad, replication, makespan, delivered, processedEvents,
+                          System.nanoTime() - startNanos, utilization, bucketMillis, cumulativeDeliveries);
+    }
+
+    private long flightMillis(final CommandRuns leg) {
+        final int forward = leg.getForwardLength();
+        return forward * durations.forwardMillis + (leg.getTextLength() - forward) * durations.gyroMillis;
+    }
+
+    private long jitter(final long millis, final SplittableRandom random) {
+        if (durations.jitter == 0) {
+            return millis;
+        }
+        return Math.max(0, Math.round(millis * (1 + durations.jitter * (2 * random.nextDouble() - 1))));
+    }
+
+    /**
+     * The durations, in milliseconds, of the operations of the drones.
+     */
+    static final class Durations {
+
+        private final long forwardMillis;
+        private final long gyroMillis;
+        private final long loadingMillis;
+        private final long deliveryMillis;
+        private final double jitter;
+
+        Durations(final long forwardMillis, final long gyroMillis, final long loadingMillis, final long deliveryMillis,
+                  final double jitter) {
+            this.forwardMillis = forwardMillis;
+            this.gyroMillis = gyroMillis;
+            this.loadingMillis = loadingMillis;
+            this.deliveryMillis = deliveryMillis;
+            this.jitter = jitter;
+        }
+    }
+
+    static class Result {
+
+        private final int fleetSize;
+        private final int maxLoad;
+        private final int replication;
+        private final long makespanMillis;
+        private final int deliveries;
+        private final long events;
+        private final long wallNanos;
+        private final double[] utilization;
+        private final long bucketMillis;
+        private final int[] cumulativeDeliveries;
+
+        Result(final int fleetSize, final int maxLoad, final int replication, final long makespanMillis,
+               final int deliveries, final long events, final long wallNanos, final double[] utilization,
+               final long bucketMillis, final int[] cumulativeDeliveries) {
+            this.fleetSize = fleetSize;
+            this.maxLoad = maxLoad;
+            this.replication = replication;
+            this.makespanMillis = makespanMillis;
+            this.deliveries = deliveries;
+            this.events = events;
+            this.wallNanos = wallNanos;
+            this.utilization = utilization;
+            this.bucketMillis = bucketMillis;
+            this.cumulativeDeliveries = cumulativeDeliveries;
+        }
+
+        int getFleetSize() {
+            return fleetSize;
+        }
+
+        int getMaxLoad() {
+            return maxLoad;
+        }
+
+        int getReplication() {
+            return replication;
+        }
+
+        long getMakespanMillis() {
+            return makespanMillis;
+        }
+
+        int getDeliveries() {
+            return deliveries;
+        }
+
+        long getEvents() {
+            return events;
+        }
+
+        double getEventsPerSecond() {
+            return wallNanos > 0 ? events * 1e9 / wallNanos : 0;
+        }
+
+        /**
+         * @param drone the drone.
+         * @return the fraction, between 0 and 1, of the makespan the drone was busy.
+         */
+        double getUtilization(final int drone) {
+            return utilization[drone];
+        }
+
+        double getMeanUtilization() {
+            double sum = 0;
+            for (final double value : utilization) {
+                sum += value;
+            }
+            return utilization.length > 0 ? sum / utilization.length : 0;
+        }
+
+        double getDeliveriesPerHour() {
+            return makespanMillis > 0 ? deliveries * 3_600_000.0 / makespanMillis : 0;
+        }
+
+        long getBucketMillis() {
+            return bucketMillis;
+        }
+
+        /**
+         * @return the number of packages delivered at the end of each bucket of time, that is, the throughput curve.
+         */
+        int[] getCumulativeDeliveries() {
+            return cumulativeDeliveries.clone();
+        }
+
+        @Override
+        public String toString() {
+            return format("Result {fleetSize=%s, maxLoad=%s, replication=%s, makespanMillis=%s, deliveries=%s, "
+                          + "meanUtilization=%.2f, events=%s, eventsPerSecond=%.0f}", fleetSize, maxLoad, replication,
+                          makespanMillis, deliveries, getMeanUtilization(), events, getEventsPerSecond());
+        }
+    }
+}
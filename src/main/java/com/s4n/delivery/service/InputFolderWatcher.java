@@ -0,0 +1,280 @@
+package com.s4n.delivery.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Watcher of the input folder that hands each new or completed input file to the work as soon as it lands, instead
+ * of waiting for the whole folder. Some facts:
+ *  - A file is complete when no event about it arrives during the settle time, so a file still being written is
+ *    NOT processed half way. The files moved into the folder at once are complete as soon as the settle time ends.
+ *  - The files already in the folder when the watcher starts are processed first, so nothing is missed.
+ *  - The files are handed to a fleet of drone slots that lives as long as the watcher: at most one file per slot is
+ *    processed at the same time and the surplus is queued, in order of arrival, for the next free slot. The slots are
+ *    just a cap on the number of files processed at once, they are NOT bound to a drone or a thread: a busy slot is
+ *    a task of the executor that processes queued files until the queue is empty, so the files may run fewer at once
+ *    when the executor is bounded too.
+ *  - The slots are started just by the watching thread and a slot keeps its task while it finds queued files, so
+ *    a file that is done never waits for the executor to start the next one.
+ *  - A file that changes again while it is processed is processed once more when it is done, and a file already
+ *    queued is NOT queued twice.
+ *  - When the watcher is closed, the files already accepted are finished before <strong>run</strong> returns.
+ */
+final class InputFolderWatcher implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(InputFolderWatcher.class);
+    private final Path folder;
+    private final Predicate<Path> filter;
+    private final long settleNanos;
+    private final int numberOfSlots;
+    private final Executor executor;
+    private final Consumer<File> work;
+    private final WatchService watchService;
+    // Last event of each file that is NOT complete yet, used just by the watching thread
+    private final Map<Path, Long> settlingFiles = new HashMap<>();
+    // The drone slots, guarded by this
+    private final Deque<Path> queuedFiles = new ArrayDeque<>();
+    private final Set<Path> inFlightFiles = new HashSet<>();
+    private final Set<Path> changedInFlightFiles = new HashSet<>();
+    private int busySlots;
+    private long processedFiles;
+    private long processingNanos;
+
+    /**
+     * @param folder the folder to watch.
+     * @param filter the filter of the files of the folder to process.
+     * @param settleMillis the time without events after which a file is complete.
+     * @param numberOfSlots the number of drones of the fleet, that is, the maximum number of files processed at once.
+     *                      It is just a cap, the executor may run fewer of them at once.
+     * @param executor the executor in which the files are processed.
+     * @param work the work to do for each file.
+     * @throws IOException if the folder can NOT be watched.
+     */
+    InputFolderWatcher(final Path folder, final Predicate<Path> filter, final long settleMillis, final int numberOfSlots,
+                       final Executor executor, final Consumer<File> work) throws IOException {
+        if (numberOfSlots < 1) {
+            throw new IllegalArgumentException("The fleet must have at least one drone.");
+        }
+        this.folder = folder;
+        this.filter = filter;
+        this.settleNanos = MILLISECONDS.toNanos(Math.max(0, settleMillis));
+        this.numberOfSlots = numberOfSlots;
+        this.executor = executor;
+        this.work = work;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+    }
+
+    /**
+     * Watches the folder until the watcher is closed or the thread is interrupted, and then waits for the files
+     * already accepted.
+     * @throws IOException if the folder can NOT be listed.
+     */
+    void run() throws IOException {
+        logger.info("Watching '{}' with a fleet of {} drones", folder, numberOfSlots);
+        try {
+            scanFolder();
+            while (true) {
+                final WatchKey key = settlingFiles.isEmpty()
+                                     ? watchService.take()
+                                     : watchService.poll(NANOSECONDS.toMillis(nextSettleNanos()) + 1, MILLISECONDS);
+                if (key != null) {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            logger.warn("Events lost while watching '{}', scanning the whole folder", folder);
+                            scanFolder();
+                        } else {
+                            settle(folder.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        logger.warn("The folder '{}' can NOT be watched anymore", folder);
+                        break;
+                    }
+                }
+                dispatchSettledFiles();
+            }
+        } catch (final ClosedWatchServiceException exception) {
+            logger.info("Stopped watching '{}'", folder);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            awaitAcceptedFiles();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (final IOException exception) {
+            logger.error("Exception: ", exception);
+        }
+    }
+
+    private void scanFolder() throws IOException {
+        try (final Stream<Path> files = Files.list(folder)) {
+            files.forEach(this::settle);
+        }
+        // The files already in the folder do NOT wait for the settle time
+        settlingFiles.replaceAll((file, lastEventNanos) -> lastEventNanos - settleNanos);
+    }
+
+    private void settle(final Path file) {
+        if (filter.test(file)) {
+            settlingFiles.put(file, System.nanoTime());
+        }
+    }
+
+    private long nextSettleNanos() {
+        final long now = System.nanoTime();
+        long next = settleNanos;
+        for (final long lastEventNanos : settlingFiles.values()) {
+            next = Math.min(next, Math.max(0, lastEventNanos + settleNanos - now));
+        }
+        return next;
+    }
+
+    private void dispatchSettledFiles() {
+        final long now = System.nanoTime();
+        final Iterator<Map.Entry<Path, Long>> iterator = settlingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() >= settleNanos) {
+                iterator.remove();
+                if (Files.isRegularFile(entry.getKey()) && entry.getKey().toFile().length() > 0) {
+                    accept(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private void accept(final Path file) {
+        if (enqueue(file)) {
+            startSlot();
+        }
+    }
+
+    /**
+     * Queues the given file, unless it is already queued or in flight.
+     * @return true if a new slot has to be started for the queued files.
+     */
+    private synchronized boolean enqueue(final Path file) {
+        if (inFlightFiles.contains(file)) {
+            changedInFlightFiles.add(file);
+            return false;
+        }
+        if (queuedFiles.contains(file)) {
+            return false;
+        }
+        queuedFiles.addLast(file);
+        if (busySlots < numberOfSlots) {
+            busySlots++;
+            return true;
+        }
+        logger.info("All the {} drones are busy, '{}' is queued after {} files", numberOfSlots, file,
+                    queuedFiles.size() - 1);
+        return false;
+    }
+
+    // Called out of the lock, as a bounded executor may block the caller until it has room
+    private void startSlot() {
+        try {
+            executor.execute(this::runSlot);
+        } catch (final RejectedExecutionException exception) {
+            logger.error("Exception: ", exception);
+            synchronized (this) {
+                busySlots--;
+                notifyAll();
+            }
+        }
+    }
+
+    private void runSlot() {
+        Path file;
+        while ((file = nextFile()) != null) {
+            final long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                work.accept(file.toFile());
+            } catch (final Throwable exception) {
+                failure = exception;
+            }
+            complete(file, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * @return the next queued file, which is in flight from now on, or null if there is none, in which case the slot
+     *         is free.
+     */
+    private synchronized Path nextFile() {
+        final Path file = queuedFiles.pollFirst();
+        if (file == null) {
+            busySlots--;
+            notifyAll();
+            return null;
+        }
+        inFlightFiles.add(file);
+        return file;
+    }
+
+    private synchronized void complete(final Path file, final long nanos, final Throwable exception) {
+        inFlightFiles.remove(file);
+        processedFiles++;
+        processingNanos += nanos;
+        if (exception != null) {
+            logger.warn("Error processing file '{}'", file);
+            logger.error("Exception: ", exception);
+        }
+        logger.info("Processed '{}' in {} ms, {} files processed in {} ms on average, {} of {} drones busy, {} files queued",
+                    file, NANOSECONDS.toMillis(nanos), processedFiles, NANOSECONDS.toMillis(processingNanos / processedFiles),
+                    busySlots, numberOfSlots, queuedFiles.size());
+        if (changedInFlightFiles.remove(file)) {
+            queuedFiles.addLast(file);
+        }
+    }
+
+    private synchronized void awaitAcceptedFiles() {
+        boolean interrupted = false;
+        while (busySlots > 0) {
+            try {
+                wait();
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
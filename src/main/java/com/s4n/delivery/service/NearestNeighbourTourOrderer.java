@@ -0,0 +1,130 @@
+package com.s4n.delivery.service;
+
+import static java.lang.Math.abs;
+
+/**
+ * Orders the packages of a tour with the nearest-neighbour heuristic starting from the origin, and then improves the
+ * order with 2-opt moves until no move shortens the tour or the maximum number of passes is done.
+ * Some facts:
+ *  - The length of the tour is measured in grid units (Manhattan distance) from the origin, through all the points of
+ *    delivery and back to the origin, that is, the forward commands. The gyros (at most 3 per leg) are NOT counted.
+ *  - The improvement is bounded by passes and NOT by time, so the same tour is always ordered the same way, and so
+ *    are the orientations of the reports, whatever the machine or its load.
+ *  - If the optimized order is NOT shorter than the order of the input file, the order of the file is kept.
+ */
+public class NearestNeighbourTourOrderer implements TourOrderer {
+
+    private final int maxPasses;
+
+    /**
+     * @param maxPasses the maximum number of 2-opt passes over each tour, 0 to skip the improvement.
+     */
+    public NearestNeighbourTourOrderer(final int maxPasses) {
+        this.maxPasses = maxPasses;
+    }
+
+    @Override
+    public void order(final PositionColumns pointsOfDelivery, final int from, final int to, final int[] order) {
+        final int size = to - from;
+        if (size < 2) {
+            FILE_ORDER.order(pointsOfDelivery, from, to, order);
+            return;
+        }
+        final int[] xs = new int[size];
+        final int[] ys = new int[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = pointsOfDelivery.getX(from + i);
+            ys[i] = pointsOfDelivery.getY(from + i);
+        }
+        // The tour is kept as the positions 1..size of a closed path whose position 0 (and size + 1) is the origin
+        final int[] tour = nearestNeighbourTour(xs, ys);
+        improveWithTwoOpt(tour, xs, ys, maxPasses);
+
+        final int[] fileTour = new int[size + 2];
+        for (int i = 0; i < size; i++) {
+            fileTour[i + 1] = i + 1;
+        }
+        final int[] best = length(tour, xs, ys) < length(fileTour, xs, ys) ? tour : fileTour;
+        for (int i = 0; i < size; i++) {
+            order[i] = from + best[i + 1] - 1;
+        }
+    }
+
+    private static int[] nearestNeighbourTour(final int[] xs, final int[] ys) {
+        final int size = xs.length;
+        final int[] tour = new int[size + 2];
+        final boolean[] visited = new boolean[size];
+        int x = 0;
+        int y = 0;
+        for (int position = 1; position <= size; position++) {
+            int nearest = -1;
+            long nearestDistance = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (!visited[i]) {
+                    final long distance = distance(x, y, xs[i], ys[i]);
+                    if (distance < nearestDistance) {
+                        nearest = i;
+                        nearestDistance = distance;
+                    }
+                }
+            }
+            visited[nearest] = true;
+            tour[position] = nearest + 1;
+            x = xs[nearest];
+            y = ys[nearest];
+        }
+        return tour;
+    }
+
+    /**
+     * Reverses the segments of the tour that shorten it, the origin at both ends never moves.
+     */
+    private static void improveWithTwoOpt(final int[] tour, final int[] xs, final int[] ys, final int maxPasses) {
+        final int last = tour.length - 1;
+        boolean improved = true;
+        for (int pass = 0; improved && pass < maxPasses; pass++) {
+            improved = false;
+            for (int i = 1; i < last - 1; i++) {
+                for (int j = i + 1; j < last; j++) {
+                    final long delta = distance(tour[i - 1], tour[j], xs, ys) + distance(tour[i], tour[j + 1], xs, ys)
+                                       - distance(tour[i - 1], tour[i], xs, ys) - distance(tour[j], tour[j + 1], xs, ys);
+                    if (delta < 0) {
+                        reverse(tour, i, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private static long length(final int[] tour, final int[] xs, final int[] ys) {
+        long length = 0;
+        for (int i = 1; i < tour.length; i++) {
+            length += distance(tour[i - 1], tour[i], xs, ys);
+        }
+        return length;
+    }
+
+    /**
+     * @return the distance between two stops of the tour, where the stop 0 is the origin and the stop k the package k - 1.
+     */
+    private static long distance(final int first, final int second, final int[] xs, final int[] ys) {
+        final int firstX = first == 0 ? 0 : xs[first - 1];
+        final int firstY = first == 0 ? 0 : ys[first - 1];
+        final int secondX = second == 0 ? 0 : xs[second - 1];
+        final int secondY = second == 0 ? 0 : ys[second - 1];
+        return distance(firstX, firstY, secondX, secondY);
+    }
+
+    private static long distance(final int x1, final int y1, final int x2, final int y2) {
+        return abs((long) x1 - x2) + abs((long) y1 - y2);
+    }
+
+    private static void reverse(final int[] tour, final int from, final int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            final int stop = tour[i];
+            tour[i] = tour[j];
+            tour[j] = stop;
+        }
+    }
+}
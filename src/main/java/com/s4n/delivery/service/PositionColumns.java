@@ -0,0 +1,201 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.service.Position.Orientation;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.orientationOf;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+
+/**
+ * Growable columnar (struct-of-arrays) store of positions. Each position is kept as one entry in three primitive
+ * arrays (x, y and the orientation ordinal) instead of one <strong>Position</strong> object per element, which
+ * makes the store compact and cheap to iterate for hundreds of thousands of elements.
+ * Once frozen, any attempt to add more positions throws an <strong>UnsupportedOperationException</strong>.
+ */
+public class PositionColumns {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private int[] xs;
+    private int[] ys;
+    private byte[] orientations;
+    private int size;
+    private boolean frozen;
+
+    public PositionColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PositionColumns(final int capacity) {
+        final int initialCapacity = Math.max(capacity, 1);
+        xs = new int[initialCapacity];
+        ys = new int[initialCapacity];
+        orientations = new byte[initialCapacity];
+    }
+
+    public void add(final int x, final int y, final int orientation) {
+        checkNotFrozen();
+        ensurePositionCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        orientations[size] = (byte) orientation;
+        size++;
+    }
+
+    public void add(final long state) {
+        add(x(state), y(state), orientation(state));
+    }
+
+    public void add(final Position position) {
+        add(position.getX(), position.getY(), position.getOrientation().ordinal());
+    }
+
+    public void addAll(final PositionColumns other) {
+        checkNotFrozen();
+        ensurePositionCapacity(size + other.size);
+        System.arraycopy(other.xs, 0, xs, size, other.size);
+        System.arraycopy(other.ys, 0, ys, size, other.size);
+        System.arraycopy(other.orientations, 0, orientations, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Removes all the positions, keeping the allocated capacity so the store can be reused.
+     */
+    public void clear() {
+        checkNotFrozen();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getX(final int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public int getY(final int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public int getOrientation(final int index) {
+        checkIndex(index);
+        return orientations[index];
+    }
+
+    public long getState(final int index) {
+        checkIndex(index);
+        return pack(xs[index], ys[index], orientations[index]);
+    }
+
+    public Position getPosition(final int index) {
+        checkIndex(index);
+        return new Position(xs[index], ys[index], orientationOf(orientations[index]));
+    }
+
+    /**
+     * Freezes the store, so it can be shared as a read-only structure.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @return a read-only view of the positions. No copy is done, each <strong>Position</strong> is created on access.
+     */
+    public List<Position> asPositionList() {
+        return new AbstractList<Position>() {
+            @Override
+            public Position get(final int index) {
+                return getPosition(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Visits each position without allocating any object.
+     * @param consumer the visitor that receives the values of each position, in insertion order.
+     */
+    public void forEach(final PositionConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(xs[i], ys[i], orientationOf(orientations[i]));
+        }
+    }
+
+    /**
+     * @return a primitive iterator over the packed positions (see <strong>PackedPositions</strong>).
+     */
+    public PrimitiveIterator.OfLong stateIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                final long state = pack(xs[next], ys[next], orientations[next]);
+                next++;
+                return state;
+            }
+        };
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The columns are read-only.");
+        }
+    }
+
+    protected void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    /**
+     * Grows the arrays, if needed, so the given number of positions fit without growing them again.
+     * @param capacity the number of positions.
+     */
+    void ensurePositionCapacity(final int capacity) {
+        if (capacity > xs.length) {
+            final int newCapacity = Math.max(capacity, xs.length + (xs.length >> 1));
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            orientations = Arrays.copyOf(orientations, newCapacity);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PositionConsumer {
+        void accept(int x, int y, Orientation orientation);
+    }
+}
@@ -0,0 +1,267 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.service.Position.Orientation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writer of delivery reports straight into bytes, with the same content that <strong>Position.getDescription</strong>
+ * and a <strong>BufferedWriter</strong> produce, but without <strong>String.format</strong> or any other per line
+ * allocation. Some facts:
+ *  - The lines are formatted into a set of segments (byte arrays), and the full segments are written at once with a
+ *    single gathering write when the channel supports it, so a report of thousands of lines takes a handful of system
+ *    calls.
+ *  - The sets of segments are taken from a pool shared by all the threads, and each set allocates its segments as the
+ *    report grows, so a small report takes a single segment, and the memory kept is bounded by the size of the pool
+ *    and NOT by the number of threads that ever wrote a report.
+ *  - The number of bytes written is counted, so several reports can be written to the same channel and indexed.
+ *  - A writer is NOT thread-safe, and it closes its channel when it is closed.
+ */
+final class ReportWriter implements Closeable {
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+    private static final int SEGMENTS = 8;
+    // Enough room for the longest line: two 11-chars numbers, the longest orientation name and the separators
+    private static final int MAX_LINE_LENGTH = 64;
+    private static final byte[] HEADER = ("== Delivery Report ==" + System.lineSeparator()).getBytes(US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(US_ASCII);
+    private static final byte[][] ORIENTATION_SUFFIXES = new byte[Orientation.values().length][];
+    private static final byte[] MIN_INT = String.valueOf(Integer.MIN_VALUE).getBytes(US_ASCII);
+    private static final int MAX_POOLED_SEGMENTS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final Queue<Segments> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+    private final WritableByteChannel channel;
+    private final Segments segments;
+    private long bytesWritten;
+
+    static {
+        for (final Orientation orientation : Orientation.values()) {
+            ORIENTATION_SUFFIXES[orientation.ordinal()] =
+                    (") " + orientation.getName() + " orientation" + System.lineSeparator()).getBytes(US_ASCII);
+        }
+    }
+
+    ReportWriter(final WritableByteChannel channel) {
+        this.channel = channel;
+        final Segments pooled = POOL.poll();
+        if (pooled != null) {
+            POOLED.decrementAndGet();
+            pooled.reset();
+        }
+        this.segments = pooled != null ? pooled : new Segments();
+    }
+
+    /**
+     * @param file the file, which is created or truncated.
+     * @return a writer of the given file.
+     * @throws IOException if the file can NOT be opened.
+     */
+    static ReportWriter open(final Path file) throws IOException {
+        return new ReportWriter(FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE));
+    }
+
+    void writeHeader() throws IOException {
+        write(HEADER);
+    }
+
+    /**
+     * Writes the line of a delivery, for example '(-2, 4) West orientation'.
+     * @param x the value in the X axis.
+     * @param y the value in the Y axis.
+     * @param orientation the ordinal of the <strong>Orientation</strong>.
+     * @throws IOException if the line can NOT be written.
+     */
+    void writeLine(final int x, final int y, final int orientation) throws IOException {
+        ensureRoom(MAX_LINE_LENGTH);
+        final byte[] segment = segments.current();
+        int position = segments.position;
+        segment[position++] = '(';
+        position = writeInt(x, segment, position);
+        segment[position++] = ',';
+        segment[position++] = ' ';
+        position = writeInt(y, segment, position);
+        final byte[] suffix = ORIENTATION_SUFFIXES[orientation];
+        System.arraycopy(suffix, 0, segment, position, suffix.length);
+        segments.position = position + suffix.length;
+    }
+
+    void writeLines(final PositionColumns deliveries) throws IOException {
+        for (int i = 0; i < deliveries.size(); i++) {
+            writeLine(deliveries.getX(i), deliveries.getY(i), deliveries.getOrientation(i));
+        }
+    }
+
+    /**
+     * Writes the given bytes as they are, for example a line of an index.
+     * @param bytes the bytes.
+     * @throws IOException if the bytes can NOT be written.
+     */
+    void write(final byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRoom(1);
+            final int length = Math.min(bytes.length - offset, SEGMENT_SIZE - segments.position);
+            System.arraycopy(bytes, offset, segments.current(), segments.position, length);
+            segments.position += length;
+            offset += length;
+        }
+    }
+
+    /**
+     * @return the number of bytes written so far, including the ones NOT flushed yet.
+     */
+    long getBytesWritten() {
+        return bytesWritten + segments.pendingBytes();
+    }
+
+    void flush() throws IOException {
+        final ByteBuffer[] buffers = segments.buffers();
+        final long pending = segments.pendingBytes();
+        if (channel instanceof GatheringByteChannel) {
+            long remaining = pending;
+            while (remaining > 0) {
+                remaining -= ((GatheringByteChannel) channel).write(buffers);
+            }
+        } else {
+            for (final ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+        bytesWritten += pending;
+        segments.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            release(segments);
+            channel.close();
+        }
+    }
+
+    private void ensureRoom(final int length) throws IOException {
+        if (SEGMENT_SIZE - segments.position < length) {
+            if (segments.index == SEGMENTS - 1) {
+                flush();
+            } else {
+                segments.next();
+            }
+        }
+    }
+
+    private static void release(final Segments segments) {
+        // The pool is bounded, so a burst of writers does NOT keep its segments once it is over
+        if (POOLED.incrementAndGet() <= MAX_POOLED_SEGMENTS) {
+            POOL.offer(segments);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+    private static int writeInt(final int value, final byte[] target, final int offset) {
+        if (value == Integer.MIN_VALUE) {
+            System.arraycopy(MIN_INT, 0, target, offset, MIN_INT.length);
+            return offset + MIN_INT.length;
+        }
+        int position = offset;
+        int rest = value;
+        if (rest < 0) {
+            target[position++] = '-';
+            rest = -rest;
+        }
+        final int end = position + digits(rest);
+        position = end;
+        do {
+            target[--position] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        return end;
+    }
+
+    private static int digits(final int value) {
+        int digits = 1;
+        for (long limit = 10; limit <= value; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * The segments of a writer: the index of the segment being filled and the position in it.
+     */
+    private static final class Segments {
+
+        // Allocated on first use, so the segments follow the size of the reports
+        private final byte[][] arrays = new byte[SEGMENTS][];
+        private final ByteBuffer[] wrappers = new ByteBuffer[SEGMENTS];
+        // The bytes of each segment before the current one, as a segment is left when a line does NOT fit in it
+        private final int[] lengths = new int[SEGMENTS];
+        private long filledBytes;
+        private int index;
+        private int position;
+
+        byte[] current() {
+            return array(index);
+        }
+
+        void next() {
+            lengths[index] = position;
+            filledBytes += position;
+            index++;
+            position = 0;
+        }
+
+        long pendingBytes() {
+            return filledBytes + position;
+        }
+
+        /**
+         * @return the buffers with the pending bytes, ready to be written.
+         */
+        ByteBuffer[] buffers() {
+            final ByteBuffer[] buffers = index == SEGMENTS - 1 ? wrappers : new ByteBuffer[index + 1];
+            for (int i = 0; i <= index; i++) {
+                if (wrappers[i] == null) {
+                    wrappers[i] = ByteBuffer.wrap(array(i));
+                }
+                // Called through Buffer, so the class runs on Java 8 when it is compiled by a newer JDK
+                ((Buffer) wrappers[i]).clear();
+                ((Buffer) wrappers[i]).limit(i == index ? position : lengths[i]);
+                buffers[i] = wrappers[i];
+            }
+            return buffers;
+        }
+
+        void reset() {
+            filledBytes = 0;
+            index = 0;
+            position = 0;
+        }
+
+        private byte[] array(final int i) {
+            if (arrays[i] == null) {
+                arrays[i] = new byte[SEGMENT_SIZE];
+            }
+            return arrays[i];
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.util.CommandRuns;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.util.Arrays.binarySearch;
+
+/**
+ * Columnar (struct-of-arrays) store of routes. The points of delivery are kept in a <strong>PositionColumns</strong>
+ * and the commands of all the routes are appended, run-length encoded (see <strong>CommandRuns</strong>), to a single
+ * buffer, so the commands of the route 'i' are the bytes in the range [starts[i], starts[i] + lengths[i]). The text
+ * form of the commands is normalized by the encoding, for example the gyros that cancel each other disappear.
+ * When the store deduplicates the commands, the routes with the same commands share the same range of the buffer,
+ * so the repeated routes of a file cost just their point of delivery and the range.
+ * Once frozen, any attempt to add more routes throws an <strong>UnsupportedOperationException</strong>.
+ */
+public class RouteColumns {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int EMPTY_SLOT = 0;
+    private final PositionColumns pointsOfDelivery;
+    private final CommandRuns.Encoder encoder = new CommandRuns.Encoder();
+    private byte[] commands;
+    private int commandsLength;
+    private int[] commandStarts;
+    private int[] commandLengths;
+    // Open-addressing table with the index + 1 of the route that owns each distinct commands, null if not deduplicating
+    private int[] deduplicationTable;
+    private int distinctCommands;
+    private boolean frozen;
+
+    public RouteColumns() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    public RouteColumns(final int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity the initial number of routes.
+     * @param deduplicateCommands whether the routes with the same commands share the same range of the buffer.
+     */
+    public RouteColumns(final int capacity, final boolean deduplicateCommands) {
+        final int initialCapacity = Math.max(capacity, 1);
+        pointsOfDelivery = new PositionColumns(initialCapacity);
+        commands = new byte[initialCapacity * 8];
+        commandStarts = new int[initialCapacity];
+        commandLengths = new int[initialCapacity];
+        deduplicationTable = deduplicateCommands ? new int[tableSizeFor(initialCapacity)] : null;
+    }
+
+    /**
+     * Adds a route taking the commands from the range [from, to) of the given ASCII buffer.
+     * @param source the buffer that contains the commands.
+     * @param from the index of the first command (inclusive).
+     * @param to the index of the last command (exclusive).
+     * @param pointOfDelivery the packed point of delivery (see <strong>PackedPositions</strong>).
+     */
+    public void add(final byte[] source, final int from, final int to, final long pointOfDelivery) {
+        checkNotFrozen();
+        final int length = to - from;
+        // The encoding of the commands never takes more bytes than their text form
+        ensureCapacity(size() + 1, commandsLength + length);
+        encoder.reset(commands, commandsLength);
+        for (int i = from; i < to; i++) {
+            encoder.accept(source[i]);
+        }
+        commitRoute(encoder.finish() - commandsLength, pointOfDelivery);
+    }
+
+    /**
+     * Adds a route taking the commands from the range [from, to) of the given ASCII buffer, using absolute reads.
+     * @param source the buffer that contains the commands, for example a memory-mapped file.
+     * @param from the index of the first command (inclusive).
+     * @param to the index of the last command (exclusive).
+     * @param pointOfDelivery the packed point of delivery (see <strong>PackedPositions</strong>).
+     */
+    public void add(final ByteBuffer source, final int from, final int to, final long pointOfDelivery) {
+        if (source.hasArray()) {
+            add(source.array(), source.arrayOffset() + from, source.arrayOffset() + to, pointOfDelivery);
+            return;
+        }
+        checkNotFrozen();
+        final int length = to - from;
+        ensureCapacity(size() + 1, commandsLength + length);
+        encoder.reset(commands, commandsLength);
+        for (int i = from; i < to; i++) {
+            encoder.accept(source.get(i));
+        }
+        commitRoute(encoder.finish() - commandsLength, pointOfDelivery);
+    }
+
+    public void add(final CharSequence routeCommands, final long pointOfDelivery) {
+        checkNotFrozen();
+        final int length = routeCommands.length();
+        ensureCapacity(size() + 1, commandsLength + length);
+        encoder.reset(commands, commandsLength);
+        for (int i = 0; i < length; i++) {
+            encoder.accept(routeCommands.charAt(i));
+        }
+        commitRoute(encoder.finish() - commandsLength, pointOfDelivery);
+    }
+
+    /**
+     * Adds a route whose commands are already run-length encoded.
+     * @param runs the encoded commands.
+     * @param pointOfDelivery the packed point of delivery (see <strong>PackedPositions</strong>).
+     */
+    public void add(final CommandRuns runs, final long pointOfDelivery) {
+        checkNotFrozen();
+        ensureCapacity(size() + 1, commandsLength + runs.getEncodedLength());
+        commitRoute(runs.copyTo(commands, commandsLength), pointOfDelivery);
+    }
+
+    /**
+     * Adds a route whose commands are already run-length encoded in the range [from, to) of the given buffer, for
+     * example a memory-mapped binary file (see <strong>BinaryRouteFile</strong>). The bytes are copied in bulk.
+     * @param encoded the buffer that contains the encoded commands.
+     * @param from the index of the first byte of the runs (inclusive).
+     * @param to the index of the last byte of the runs (exclusive).
+     * @param pointOfDelivery the packed point of delivery (see <strong>PackedPositions</strong>).
+     */
+    void addEncoded(final ByteBuffer encoded, final int from, final int to, final long pointOfDelivery) {
+        checkNotFrozen();
+        final int length = to - from;
+        ensureCapacity(size() + 1, commandsLength + length);
+        final ByteBuffer source = encoded.duplicate();
+        // Through Buffer, so the class compiled by a newer JDK still runs on Java 8
+        ((Buffer) source).position(from);
+        source.get(commands, commandsLength, length);
+        commitRoute(length, pointOfDelivery);
+    }
+
+    public void add(final Route route) {
+        add(route.getCommands(), pack(route.getPointOfDelivery()));
+    }
+
+    public void addAll(final RouteColumns other) {
+        checkNotFrozen();
+        if (deduplicationTable == null && other.deduplicationTable == null) {
+            final int base = commandsLength;
+            final int first = size();
+            final int otherSize = other.size();
+            ensureCapacity(first + otherSize, base + other.commandsLength);
+            System.arraycopy(other.commands, 0, commands, base, other.commandsLength);
+            for (int i = 0; i < otherSize; i++) {
+                commandStarts[first + i] = base + other.commandStarts[i];
+                commandLengths[first + i] = other.commandLengths[i];
+            }
+            commandsLength += other.commandsLength;
+            pointsOfDelivery.addAll(other.pointsOfDelivery);
+        } else if (deduplicationTable != null && other.deduplicationTable != null) {
+            addAllDeduplicated(other);
+        } else {
+            for (int i = 0; i < other.size(); i++) {
+                final int length = other.commandLengths[i];
+                ensureCapacity(size() + 1, commandsLength + length);
+                System.arraycopy(other.commands, other.commandStarts[i], commands, commandsLength, length);
+                commitRoute(length, other.getState(i));
+            }
+        }
+    }
+
+    /**
+     * Appends all the routes of the given columns, in order, growing the buffers just once, for example the chunks of
+     * a file parsed in parallel (see <strong>RouteFileReader.parseRoutes</strong>).
+     * @param others the columns whose routes are appended.
+     */
+    public void addAll(final List<RouteColumns> others) {
+        checkNotFrozen();
+        int routes = size();
+        int bytes = commandsLength;
+        for (final RouteColumns other : others) {
+            routes += other.size();
+            bytes += other.commandsLength;
+        }
+        ensureCapacity(routes, bytes);
+        pointsOfDelivery.ensurePositionCapacity(routes);
+        for (final RouteColumns other : others) {
+            addAll(other);
+        }
+    }
+
+    public int size() {
+        return pointsOfDelivery.size();
+    }
+
+    public boolean isEmpty() {
+        return pointsOfDelivery.isEmpty();
+    }
+
+    public int getX(final int index) {
+        return pointsOfDelivery.getX(index);
+    }
+
+    public int getY(final int index) {
+        return pointsOfDelivery.getY(index);
+    }
+
+    public long getState(final int index) {
+        return pointsOfDelivery.getState(index);
+    }
+
+    public Position getPointOfDelivery(final int index) {
+        return pointsOfDelivery.getPosition(index);
+    }
+
+    /**
+     * @param index the index of the route.
+     * @return the commands of the route in the normalized text form of <strong>CommandRuns</strong>, which may differ
+     *         from the text that was added, for example 'AIDA' is 'AA', though both reach the same point.
+     */
+    public String getNormalizedCommands(final int index) {
+        pointsOfDelivery.checkIndex(index);
+        return CommandRuns.toText(commands, commandStarts[index], commandStarts[index] + commandLengths[index]);
+    }
+
+    public CommandRuns getCommandRuns(final int index) {
+        pointsOfDelivery.checkIndex(index);
+        return CommandRuns.copyOf(commands, commandStarts[index], commandStarts[index] + commandLengths[index]);
+    }
+
+    /**
+     * @param index the index of the route.
+     * @return the number of bytes of the encoded commands of the route.
+     */
+    int getEncodedLength(final int index) {
+        pointsOfDelivery.checkIndex(index);
+        return commandLengths[index];
+    }
+
+    /**
+     * Copies the encoded commands of the route into the given buffer, at its position.
+     * @param index the index of the route.
+     * @param target the buffer, which must have room for <strong>getEncodedLength(index)</strong> bytes.
+     */
+    void copyEncodedTo(final int index, final ByteBuffer target) {
+        pointsOfDelivery.checkIndex(index);
+        target.put(commands, commandStarts[index], commandLengths[index]);
+    }
+
+    /**
+     * @param index the index of the route.
+     * @return the route, with its commands in normalized text form (see <strong>getNormalizedCommands</strong>).
+     */
+    public Route getNormalizedRoute(final int index) {
+        return new Route(getNormalizedCommands(index), getPointOfDelivery(index));
+    }
+
+    /**
+     * @return the number of bytes used by the encoded commands of all the routes, after the deduplication if enabled.
+     */
+    public int getCommandsLength() {
+        return commandsLength;
+    }
+
+    /**
+     * @return the read-only columns with the points of delivery of the routes, no copy is done.
+     */
+    public PositionColumns getPointsOfDelivery() {
+        return pointsOfDelivery;
+    }
+
+    /**
+     * Freezes the store, so it can be shared as a read-only structure.
+     */
+    public void freeze() {
+        frozen = true;
+        pointsOfDelivery.freeze();
+    }
+
+    /**
+     * @return a read-only view of the routes, with their commands in normalized text form (see
+     *         <strong>getNormalizedCommands</strong>). No copy is done, each <strong>Route</strong> is created on access.
+     */
+    public List<Route> asNormalizedRouteList() {
+        return new AbstractList<Route>() {
+            @Override
+            public Route get(final int index) {
+                return getNormalizedRoute(index);
+            }
+
+            @Override
+            public int size() {
+                return RouteColumns.this.size();
+            }
+        };
+    }
+
+    /**
+     * Records the route whose encoded commands were just written at the end of the buffer. If the same commands are already
+     * in the buffer and the store deduplicates, the route points to them and the copied bytes are discarded.
+     */
+    private void commitRoute(final int length, final long pointOfDelivery) {
+        final int index = size();
+        int start = commandsLength;
+        if (deduplicationTable != null && length > 0) {
+            final int duplicate = findOrInsert(index, commandsLength, length);
+            if (duplicate >= 0) {
+                start = commandStarts[duplicate];
+            }
+        }
+        commandStarts[index] = start;
+        commandLengths[index] = length;
+        if (start == commandsLength) {
+            commandsLength += length;
+        }
+        pointsOfDelivery.add(pointOfDelivery);
+    }
+
+    /**
+     * @return the index of the route with the same commands, or -1 if the commands are new and were inserted.
+     */
+    private int findOrInsert(final int index, final int start, final int length) {
+        if ((distinctCommands + 1) * 2 > deduplicationTable.length) {
+            rehash();
+        }
+        final int mask = deduplicationTable.length - 1;
+        int slot = hash(start, length) & mask;
+        while (deduplicationTable[slot] != EMPTY_SLOT) {
+            final int candidate = deduplicationTable[slot] - 1;
+            if (commandLengths[candidate] == length && sameCommands(commandStarts[candidate], start, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        deduplicationTable[slot] = index + 1;
+        distinctCommands++;
+        return -1;
+    }
+
+    /**
+     * Appends the routes of other deduplicated columns. Their distinct commands are laid out in their buffer in order
+     * of first appearance, so only the first route of each range is looked up in the table, and the rest of the routes
+     * of the range are mapped to it with a binary search over the starts of the ranges seen so far.
+     */
+    private void addAllDeduplicated(final RouteColumns other) {
+        final int otherSize = other.size();
+        final int[] otherStarts = new int[other.distinctCommands];
+        final int[] starts = new int[other.distinctCommands];
+        int ranges = 0;
+        int nextRange = 0;
+        ensureCapacity(size() + otherSize, commandsLength + other.commandsLength);
+        for (int i = 0; i < otherSize; i++) {
+            final int otherStart = other.commandStarts[i];
+            final int length = other.commandLengths[i];
+            if (length > 0 && otherStart >= nextRange) {
+                System.arraycopy(other.commands, otherStart, commands, commandsLength, length);
+                commitRoute(length, other.getState(i));
+                otherStarts[ranges] = otherStart;
+                starts[ranges++] = commandStarts[size() - 1];
+                nextRange = otherStart + length;
+            } else {
+                final int index = size();
+                commandStarts[index] = length > 0 ? starts[binarySearch(otherStarts, 0, ranges, otherStart)] : commandsLength;
+                commandLengths[index] = length;
+                pointsOfDelivery.add(other.getState(i));
+            }
+        }
+    }
+
+    private void rehash() {
+        final int[] oldTable = deduplicationTable;
+        deduplicationTable = new int[oldTable.length * 2];
+        final int mask = deduplicationTable.length - 1;
+        for (final int entry : oldTable) {
+            if (entry != EMPTY_SLOT) {
+                final int route = entry - 1;
+                int slot = hash(commandStarts[route], commandLengths[route]) & mask;
+                while (deduplicationTable[slot] != EMPTY_SLOT) {
+                    slot = (slot + 1) & mask;
+                }
+                deduplicationTable[slot] = entry;
+            }
+        }
+    }
+
+    private boolean sameCommands(final int first, final int second, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (commands[first + i] != commands[second + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(final int start, final int length) {
+        int hash = 0x811C9DC5;
+        for (int i = start; i < start + length; i++) {
+            hash = (hash ^ commands[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(final int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1) << 1;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The columns are read-only.");
+        }
+    }
+
+    private void ensureCapacity(final int routes, final int commandsCapacity) {
+        if (routes > commandStarts.length) {
+            final int newCapacity = Math.max(routes, commandStarts.length + (commandStarts.length >> 1));
+            commandStarts = Arrays.copyOf(commandStarts, newCapacity);
+            commandLengths = Arrays.copyOf(commandLengths, newCapacity);
+        }
+        if (commandsCapacity > commands.length) {
+            commands = Arrays.copyOf(commands, Math.max(commandsCapacity, commands.length + (commands.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.util.CommandRuns;
+import com.s4n.delivery.util.RouteFileReader.EndpointResolver;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.util.RouteFileReader.readRoutes;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Server of the local submission API, so a dispatch system can plan the deliveries of a drone with a request instead
+ * of dropping a file in the input folder and polling the output folder. Some facts:
+ *  - 'POST /deliveries/{droneCode}' takes the routes of the drone, one route per line as in an input file, and answers
+ *    with the report of the drone, the same content as its report file, followed by a '== Tours ==' line and a line
+ *    per tour with the commands of its legs, in flight order and separated by a space, the last one back to the
+ *    origin.
+ *  - The server listens on the loopback address only, and the connections are persistent (HTTP/1.1 keep-alive), so a
+ *    client can send its requests back to back, even pipelined, over the same connection. Nagle's algorithm is the
+ *    decision of the application, with the JDK property 'sun.net.httpserver.nodelay', read when the first server of
+ *    the JVM starts (see <strong>Application</strong>).
+ *  - The connection threads parse the requests and write the responses, and the planning, which is CPU-bound, is
+ *    handed over to the given planner in batches: all the requests waiting when the planner is free (up to the
+ *    batch size) are planned together, so under load there is one handoff per batch instead of one per request.
+ *  - The errors are answered with a status and a message: 405 if the method is NOT 'POST', 404 if there is no drone
+ *    code, 413 if the body is larger than the maximum, 400 if there are no routes, 422 if a point of delivery is out
+ *    of the bounds and 503 if the server is closing. The body is read up to the maximum, so a large request does
+ *    NOT take more memory than that.
+ */
+final class RouteSubmissionServer implements Closeable {
+
+    static final String CONTEXT_PATH = "/deliveries/";
+    private static final Logger logger = LogManager.getLogger(RouteSubmissionServer.class);
+    private static final byte[] TOURS_HEADER = ("== Tours ==" + System.lineSeparator()).getBytes(US_ASCII);
+    private static final int DEFAULT_ROUTES_CAPACITY = 16;
+    // Maximum number of requests waiting for the planner, the connection threads wait when it is reached
+    private static final int QUEUE_CAPACITY_PER_THREAD = 4;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private final HttpServer server;
+    private final ExecutorService connectionExecutor;
+    private final EndpointResolver resolver;
+    private final Consumer<List<Submission>> planner;
+    private final BlockingQueue<Submission> submissions;
+    private final int batchSize;
+    private final int maxRequestBytes;
+    private final Thread batcher;
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    /**
+     * Creates and starts the server.
+     * @param port the port, or 0 for any free port.
+     * @param threads the number of connection threads.
+     * @param batchSize the maximum number of requests planned together, 1 to plan them one by one.
+     * @param maxRequestBytes the maximum size of the body of a request.
+     * @param resolver the resolver of the point of delivery of each route.
+     * @param planner the planner of a batch of requests, which fills each one (see <strong>Submission.plan</strong>).
+     * @throws IOException if the port can NOT be bound.
+     */
+    RouteSubmissionServer(final int port, final int threads, final int batchSize, final int maxRequestBytes,
+                          final EndpointResolver resolver, final Consumer<List<Submission>> planner) throws IOException {
+        if (threads < 1 || batchSize < 1 || maxRequestBytes < 1) {
+            throw new IllegalArgumentException("The server must have at least one thread, a batch size of at least one "
+                                               + "and a maximum request size of at least one byte.");
+        }
+        this.resolver = resolver;
+        this.planner = planner;
+        this.batchSize = batchSize;
+        this.maxRequestBytes = maxRequestBytes;
+        this.submissions = new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD);
+        this.connectionExecutor = Executors.newFixedThreadPool(threads, newThreadFactory("delivery-http-"));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext(CONTEXT_PATH, this::handle);
+        this.server.setExecutor(connectionExecutor);
+        this.batcher = newThreadFactory("delivery-batcher-").newThread(this::planBatches);
+        this.batcher.start();
+        this.server.start();
+        logger.info("Serving on 'http://{}:{}{}' with {} threads and batches of up to {} requests",
+                    server.getAddress().getHostString(), getPort(), CONTEXT_PATH, threads, batchSize);
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Waits until the server is closed.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * Stops accepting requests, finishes the ones in progress and releases the threads.
+     */
+    @Override
+    public void close() {
+        if (closed.getCount() > 0) {
+            server.stop(STOP_DELAY_SECONDS);
+            batcher.interrupt();
+            connectionExecutor.shutdown();
+            closed.countDown();
+            logger.info("Stopped serving on port {}", getPort());
+        }
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Just POST is supported.");
+                return;
+            }
+            final String droneCode = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+            if (droneCode.isEmpty() || droneCode.contains("/")) {
+                respond(exchange, 404, "The path must be " + CONTEXT_PATH + "{droneCode}.");
+                return;
+            }
+            final byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "The request is larger than " + maxRequestBytes + " bytes.");
+                return;
+            }
+            final PositionColumns pointsOfDelivery = new PositionColumns(DEFAULT_ROUTES_CAPACITY);
+            readRoutes(ByteBuffer.wrap(body), resolver,
+                       (buffer, from, to, pointOfDelivery) -> pointsOfDelivery.add(pointOfDelivery));
+            if (pointsOfDelivery.isEmpty()) {
+                respond(exchange, 400, "There are no routes in the request.");
+                return;
+            }
+            final Submission submission = new Submission(droneCode, pointsOfDelivery);
+            submissions.put(submission);
+            submission.done.await();
+            if (submission.failure != null) {
+                logger.warn("Request of drone with code={} failed: {}", droneCode, submission.failure.getMessage());
+                respond(exchange, submission.failure instanceof IllegalArgumentException ? 422 : 500,
+                        submission.failure.getMessage());
+            } else {
+                respond(exchange, 200, submission.toResponse());
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "The server is closing.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return the body of the request, or null if it is larger than the maximum, in which case the rest is NOT read.
+     */
+    private byte[] readBody(final InputStream input) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            if (read > maxRequestBytes - body.size()) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private void planBatches() {
+        final List<Submission> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(submissions.take());
+                submissions.drainTo(batch, batchSize - 1);
+                try {
+                    planner.accept(batch);
+                } catch (final RuntimeException exception) {
+                    logger.error("Exception: ", exception);
+                    batch.forEach(submission -> submission.fail(exception));
+                }
+                batch.forEach(submission -> submission.done.countDown());
+                batch.clear();
+            }
+        } catch (final InterruptedException exception) {
+            // Closed, the waiting requests are answered as failed
+            batch.addAll(submissions);
+            batch.forEach(submission -> {
+                submission.fail(new IllegalStateException("The server is closing."));
+                submission.done.countDown();
+            });
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String message) throws IOException {
+        respond(exchange, status, (message + System.lineSeparator()).getBytes(US_ASCII));
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=US-ASCII");
+        exchange.sendResponseHeaders(status, body.length);
+        try (final OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            final Thread thread = new Thread(task, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A request of the API: the points of delivery of the routes of a drone and, once planned, its deliveries and
+     * the commands of its tours, or the failure.
+     */
+    static final class Submission {
+
+        private final String droneCode;
+        private final PositionColumns pointsOfDelivery;
+        private final List<List<CommandRuns>> tours = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private PositionColumns deliveries;
+        private RuntimeException failure;
+
+        Submission(final String droneCode, final PositionColumns pointsOfDelivery) {
+            this.droneCode = droneCode;
+            this.pointsOfDelivery = pointsOfDelivery;
+        }
+
+        /**
+         * Plans the tours of the request, as the <strong>deliver</strong> phase does for the routes of a file.
+         * @param tourPlanner the planner of the tours.
+         * @param maxLoad the maximum number of packages of each tour.
+         * @param metrics the metrics, which count the routes, tours and aborted deliveries of the drone of the
+         *                request.
+         */
+        void plan(final TourPlanner tourPlanner, final int maxLoad, final DeliveryMetrics metrics) {
+            metrics.recordRoutes(droneCode, pointsOfDelivery.size());
+            final Consumer<List<CommandRuns>> tourCounter = metrics.tourCounter(droneCode);
+            final Consumer<List<CommandRuns>> tourLegs = tours::add;
+            try {
+                deliveries = tourPlanner.planTours(pointsOfDelivery, 0, pointsOfDelivery.size(), maxLoad,
+                                                   tourCounter == null ? tourLegs : tourLegs.andThen(tourCounter));
+            } catch (final IllegalArgumentException exception) {
+                metrics.recordAbortedDelivery(droneCode);
+                fail(exception);
+            } catch (final RuntimeException exception) {
+                fail(exception);
+            }
+        }
+
+        private void fail(final RuntimeException exception) {
+            failure = exception;
+        }
+
+        private byte[] toResponse() throws IOException {
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            try (final ReportWriter writer = new ReportWriter(Channels.newChannel(response))) {
+                writer.writeHeader();
+                writer.writeLines(deliveries);
+                writer.write(TOURS_HEADER);
+                final StringBuilder line = new StringBuilder();
+                for (final List<CommandRuns> legs : tours) {
+                    line.setLength(0);
+                    for (int leg = 0; leg < legs.size(); leg++) {
+                        line.append(leg > 0 ? " " : "").append(legs.get(leg));
+                    }
+                    writer.write(line.append(System.lineSeparator()).toString().getBytes(US_ASCII));
+                }
+            }
+            return response.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.s4n.delivery.service;
+
+import java.util.Arrays;
+
+import static java.lang.Math.abs;
+
+/**
+ * Splits a pool of points of delivery into groups that are spatially compact and balanced in work, so each group
+ * can be handed to a drone of the fleet.
+ * Some facts:
+ *  - The points are indexed in a uniform grid over their bounding box, built with a counting sort in O(n) time.
+ *  - The cells are visited by the angle of their center around the origin, so consecutive cells form sectors that
+ *    start in the origin, which is where every tour starts and ends.
+ *  - The sequence of points is cut in groups of about the same work, where the work of a package is its
+ *    round trip in grid units plus one unit for the delivery itself. So the makespan is balanced across the drones,
+ *    NOT just the number of packages.
+ */
+class SpatialPartitioner {
+
+    private static final int POINTS_PER_CELL = 16;
+    private static final int MAX_CELLS_PER_AXIS = 1024;
+
+    private SpatialPartitioner() {
+        // As utility class no instances are required
+    }
+
+    /**
+     * @param pointsOfDelivery the pool of points of delivery.
+     * @param groups the number of groups.
+     * @param order the array, of at least as many elements as points, in which the indexes of the points are written
+     *              grouped by group.
+     * @param groupEnds the array, of at least the given number of groups elements, in which the end (exclusive) of
+     *                  each group in the order array is written. Some groups can be empty.
+     */
+    static void partition(final PositionColumns pointsOfDelivery, final int groups, final int[] order, final int[] groupEnds) {
+        final int size = pointsOfDelivery.size();
+        if (size == 0) {
+            Arrays.fill(groupEnds, 0, groups, 0);
+            return;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minX = Math.min(minX, pointsOfDelivery.getX(i));
+            minY = Math.min(minY, pointsOfDelivery.getY(i));
+            maxX = Math.max(maxX, pointsOfDelivery.getX(i));
+            maxY = Math.max(maxY, pointsOfDelivery.getY(i));
+        }
+        final int cellsPerAxis = (int) Math.min(MAX_CELLS_PER_AXIS, Math.max(1, Math.sqrt((double) size / POINTS_PER_CELL)));
+        final long cellWidth = ((long) maxX - minX) / cellsPerAxis + 1;
+        final long cellHeight = ((long) maxY - minY) / cellsPerAxis + 1;
+        final int[] rankOfCell = rankCellsByAngle(cellsPerAxis, minX, minY, cellWidth, cellHeight);
+
+        // Counting sort of the points by the rank of their cell
+        final int[] cellOfPoint = new int[size];
+        final int[] starts = new int[rankOfCell.length + 1];
+        for (int i = 0; i < size; i++) {
+            final int cellX = (int) (((long) pointsOfDelivery.getX(i) - minX) / cellWidth);
+            final int cellY = (int) (((long) pointsOfDelivery.getY(i) - minY) / cellHeight);
+            cellOfPoint[i] = rankOfCell[cellY * cellsPerAxis + cellX];
+            starts[cellOfPoint[i] + 1]++;
+        }
+        for (int rank = 0; rank < rankOfCell.length; rank++) {
+            starts[rank + 1] += starts[rank];
+        }
+        long totalWork = 0;
+        for (int i = 0; i < size; i++) {
+            order[starts[cellOfPoint[i]]++] = i;
+            totalWork += work(pointsOfDelivery, i);
+        }
+
+        int group = 0;
+        long work = 0;
+        for (int k = 0; k < size && group < groups - 1; k++) {
+            work += work(pointsOfDelivery, order[k]);
+            if (work * groups >= totalWork * (group + 1)) {
+                groupEnds[group++] = k + 1;
+            }
+        }
+        while (group < groups) {
+            groupEnds[group++] = size;
+        }
+    }
+
+    private static int[] rankCellsByAngle(final int cellsPerAxis, final int minX, final int minY,
+                                          final long cellWidth, final long cellHeight) {
+        final int cells = cellsPerAxis * cellsPerAxis;
+        final long[] keys = new long[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            final double centerX = minX + (cell % cellsPerAxis + 0.5) * cellWidth;
+            final double centerY = minY + (cell / cellsPerAxis + 0.5) * cellHeight;
+            // The polar angle in [0, 2 PI) scaled to 31 bits, the ties keep the order of the cells
+            final double angle = Math.atan2(centerY, centerX);
+            final long scaledAngle = (long) ((angle < 0 ? angle + 2 * Math.PI : angle) / (2 * Math.PI) * Integer.MAX_VALUE);
+            keys[cell] = scaledAngle << 32 | cell;
+        }
+        Arrays.sort(keys);
+        final int[] rankOfCell = new int[cells];
+        for (int rank = 0; rank < cells; rank++) {
+            rankOfCell[(int) keys[rank]] = rank;
+        }
+        return rankOfCell;
+    }
+
+    private static long work(final PositionColumns pointsOfDelivery, final int index) {
+        return 2 * (abs((long) pointsOfDelivery.getX(index)) + abs((long) pointsOfDelivery.getY(index))) + 1;
+    }
+}
@@ -0,0 +1,105 @@
+package com.s4n.delivery.service;
+
+import java.util.Arrays;
+
+import static java.lang.Math.abs;
+
+/**
+ * Builds the tours with the sweep algorithm: the points of delivery are sorted by their angle around the origin and
+ * then cut into tours, in that order, every time the next package does NOT fit in the load or in the flight length of
+ * the current tour. So each tour covers a narrow sector of the operation area, and it is much shorter than a tour
+ * of packages taken at random.
+ * Some facts:
+ *  - The flight length of a tour is measured in grid units (Manhattan distance) from the origin, through all the
+ *    points of delivery in sweep order and back to the origin.
+ *  - A package whose round trip alone exceeds the maximum flight length goes in a tour of its own.
+ *  - By default the maximum flight length is the round trip to a corner of the square of the operation radio (see
+ *    <strong>maxTourLengthFor</strong>). The operation area is NOT that square: a point is within the limits when
+ *    either axis is within the radio (see <strong>TourPlanner</strong>), so the area is a cross whose arms have no
+ *    end, and there is no farthest point. So the packages far out along an arm, whose round trip alone exceeds the
+ *    limit, each go in a tour of their own.
+ *  - The angle is the "diamond angle" (the position in the perimeter of the unit diamond |x| + |y| = 1), which has
+ *    the same order as the polar angle without trigonometry. The ties keep the order of the input file.
+ *  - It takes O(n log n) time and a couple of arrays of n elements, so it scales to hundreds of thousands of points.
+ */
+public class SweepTourBuilder implements TourBuilder {
+
+    // The diamond angle, in [0, 4), is scaled to use the 31 bits of a positive int
+    private static final double ANGLE_SCALE = (1 << 29) - 1;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+    private final long maxTourLength;
+
+    /**
+     * @param maxTourLength the maximum flight length, in grid units, of each tour, 0 for no limit.
+     */
+    public SweepTourBuilder(final long maxTourLength) {
+        this.maxTourLength = maxTourLength > 0 ? maxTourLength : Long.MAX_VALUE;
+    }
+
+    /**
+     * @param maxOperationRadio the maximum distance from the origin to a point of delivery in, at least, one axis.
+     * @return the round trip, in grid units, to a corner of the square of the given radio, which bounds the tours of
+     *         the points within the radio in both axes.
+     */
+    public static long maxTourLengthFor(final int maxOperationRadio) {
+        return 4L * maxOperationRadio;
+    }
+
+    @Override
+    public int buildTours(final PositionColumns pointsOfDelivery, final int from, final int to, final int maxLoad,
+                          final int[] order, final int[] tourEnds) {
+        final int size = to - from;
+        final long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            final long angle = (long) (diamondAngle(pointsOfDelivery.getX(from + i), pointsOfDelivery.getY(from + i)) * ANGLE_SCALE);
+            keys[i] = angle << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        int tours = 0;
+        int load = 0;
+        long length = 0;
+        int lastX = 0;
+        int lastY = 0;
+        for (int k = 0; k < size; k++) {
+            final int index = from + (int) (keys[k] & INDEX_MASK);
+            final int x = pointsOfDelivery.getX(index);
+            final int y = pointsOfDelivery.getY(index);
+            final long lengthWithPackage = length - distance(lastX, lastY, 0, 0) + distance(lastX, lastY, x, y) + distance(x, y, 0, 0);
+            if (load > 0 && (load == maxLoad || lengthWithPackage > maxTourLength)) {
+                tourEnds[tours++] = k;
+                load = 0;
+                length = 2 * distance(x, y, 0, 0);
+            } else {
+                length = lengthWithPackage;
+            }
+            order[k] = index;
+            load++;
+            lastX = x;
+            lastY = y;
+        }
+        if (load > 0) {
+            tourEnds[tours++] = size;
+        }
+        return tours;
+    }
+
+    /**
+     * @return the angle of the point around the origin in [0, 4), 0 for the origin itself.
+     */
+    private static double diamondAngle(final int x, final int y) {
+        final double sum = abs((double) x) + abs((double) y);
+        if (sum == 0) {
+            return 0;
+        }
+        if (y >= 0) {
+            return x >= 0 ? y / sum : 1 - x / sum;
+        } else {
+            return x < 0 ? 2 - y / sum : 3 + x / sum;
+        }
+    }
+
+    private static long distance(final int x1, final int y1, final int x2, final int y2) {
+        return abs((long) x1 - x2) + abs((long) y1 - y2);
+    }
+}
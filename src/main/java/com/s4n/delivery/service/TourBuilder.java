@@ -0,0 +1,39 @@
+package com.s4n.delivery.service;
+
+/**
+ * Stage that splits the packages of a drone into tours. Each tour starts and ends in the origin (0, 0) and carries
+ * at most the maximum load of packages.
+ */
+@FunctionalInterface
+public interface TourBuilder {
+
+    enum Type { FIXED_LOAD, SWEEP }
+
+    /**
+     * Cuts the packages in the order of the input file every maximum load, as the drones always did.
+     */
+    TourBuilder FIXED_LOAD = (pointsOfDelivery, from, to, maxLoad, order, tourEnds) -> {
+        int tours = 0;
+        for (int i = from; i < to; i++) {
+            order[i - from] = i;
+            if ((i - from + 1) % maxLoad == 0 || i == to - 1) {
+                tourEnds[tours++] = i - from + 1;
+            }
+        }
+        return tours;
+    };
+
+    /**
+     * Splits the packages whose points of delivery are in the range [from, to) of the given columns into tours.
+     * @param pointsOfDelivery the points in which the packages have to be delivered.
+     * @param from the index of the first package (inclusive).
+     * @param to the index of the last package (exclusive).
+     * @param maxLoad the maximum number of packages of each tour.
+     * @param order the array, of at least (to - from) elements, in which the indexes of the packages are written
+     *              grouped by tour.
+     * @param tourEnds the array, of at least (to - from) elements, in which the end (exclusive) of each tour in the
+     *                 order array is written.
+     * @return the number of tours.
+     */
+    int buildTours(PositionColumns pointsOfDelivery, int from, int to, int maxLoad, int[] order, int[] tourEnds);
+}
@@ -0,0 +1,32 @@
+package com.s4n.delivery.service;
+
+/**
+ * Stage that decides the order in which the packages of a tour are delivered. The tour always starts and ends in the
+ * origin (0, 0), so a good order reduces the distance flown per load (the forward commands, which dominate the gyros),
+ * that is, more deliveries per drone per day.
+ * The order does NOT change the package that each point of delivery belongs to, so the reports keep one delivery
+ * point per package, in the order of the input file.
+ */
+@FunctionalInterface
+public interface TourOrderer {
+
+    enum Type { FILE, NEAREST_NEIGHBOUR }
+
+    /**
+     * Delivers the packages in the order of the input file, as the drones always did.
+     */
+    TourOrderer FILE_ORDER = (pointsOfDelivery, from, to, order) -> {
+        for (int i = from; i < to; i++) {
+            order[i - from] = i;
+        }
+    };
+
+    /**
+     * Fills the given array with the indexes in the range [from, to) of the given columns in delivery order.
+     * @param pointsOfDelivery the points in which the packages of the tour have to be delivered.
+     * @param from the index of the first package of the tour (inclusive).
+     * @param to the index of the last package of the tour (exclusive).
+     * @param order the array, of at least (to - from) elements, in which the indexes are written.
+     */
+    void order(PositionColumns pointsOfDelivery, int from, int to, int[] order);
+}
@@ -0,0 +1,249 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.util.CommandRuns;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.service.Drone.DEFAULT_START_STATE;
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.toPosition;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static java.lang.Math.abs;
+
+/**
+ * Plans the tours of the drones. A tour always starts in the origin (0, 0, N) with a load of packages and
+ * delivers them in the given order, navigating from one point of delivery to the next one, before going back
+ * to the origin. So every tour is independent of the others.
+ * The order in which the packages of a tour are visited is decided by the <strong>TourOrderer</strong>, but the
+ * positions of the drone at each delivery are always recorded in the order of the packages.
+ */
+class TourPlanner {
+
+    private static final Logger logger = LogManager.getLogger(TourPlanner.class);
+    // Indexed by Orientation ordinal: E, N, W, S, as in RouteUtils
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private final int maxOperationRadio;
+    private final LegPlanner legPlanner;
+    private final TourOrderer tourOrderer;
+    private final TourBuilder tourBuilder;
+
+    TourPlanner(final int maxOperationRadio, final LegPlanner legPlanner) {
+        this(maxOperationRadio, legPlanner, TourOrderer.FILE_ORDER, TourBuilder.FIXED_LOAD);
+    }
+
+    TourPlanner(final int maxOperationRadio, final LegPlanner legPlanner,
+                final TourOrderer tourOrderer, final TourBuilder tourBuilder) {
+        this.maxOperationRadio = maxOperationRadio;
+        this.legPlanner = legPlanner;
+        this.tourOrderer = tourOrderer;
+        this.tourBuilder = tourBuilder;
+    }
+
+    /**
+     * Plans the tour that delivers the packages whose points of delivery are in the range [from, to) of the given
+     * columns, and records the position of the drone at each delivery.
+     * @param pointsOfDelivery the points in which the packages have to be delivered.
+     * @param from the index of the first package of the tour (inclusive).
+     * @param to the index of the last package of the tour (exclusive).
+     * @param deliveries the columns in which the position of the drone at each delivery will be added.
+     */
+    void planTour(final PositionColumns pointsOfDelivery, final int from, final int to, final PositionColumns deliveries) {
+        planTour(pointsOfDelivery, from, to, deliveries, null);
+    }
+
+    /**
+     * Same as <strong>planTour(PositionColumns, int, int, PositionColumns)</strong> but also adds the commands of each
+     * leg of the tour, in flight order and including the leg back to the origin, to the given list.
+     * @param legs the list in which the commands of the legs will be added, or null if they are NOT needed.
+     */
+    void planTour(final PositionColumns pointsOfDelivery, final int from, final int to, final PositionColumns deliveries,
+                  final List<CommandRuns> legs) {
+        long state = DEFAULT_START_STATE;
+        if (tourOrderer == TourOrderer.FILE_ORDER) {
+            for (int i = from; i < to; i++) {
+                state = flyTo(pointsOfDelivery, i, state, legs);
+                deliveries.add(state);
+            }
+        } else {
+            final int[] order = new int[to - from];
+            final long[] states = new long[to - from];
+            tourOrderer.order(pointsOfDelivery, from, to, order);
+            for (final int i : order) {
+                state = flyTo(pointsOfDelivery, i, state, legs);
+                states[i - from] = state;
+            }
+            for (final long delivery : states) {
+                deliveries.add(delivery);
+            }
+        }
+        if (legs != null) {
+            legs.add(legPlanner.planLeg(state, 0, 0));
+        }
+    }
+
+    /**
+     * Plans the tours, of the given maximum load each, that deliver the packages whose points of delivery are in the
+     * range [from, to) of the given columns. The packages are split into tours by the <strong>TourBuilder</strong>.
+     * @param pointsOfDelivery the points in which the packages have to be delivered.
+     * @param from the index of the first package of the first tour (inclusive).
+     * @param to the index of the last package of the last tour (exclusive).
+     * @param maxLoad the maximum number of packages of each tour.
+     * @return the positions of the drone at each delivery of the tours, in the order of the packages.
+     */
+    PositionColumns planTours(final PositionColumns pointsOfDelivery, final int from, final int to, final int maxLoad) {
+        return planTours(pointsOfDelivery, from, to, maxLoad, null);
+    }
+
+    /**
+     * Same as <strong>planTours(PositionColumns, int, int, int)</strong> but also hands the commands of the legs of
+     * each tour, as <strong>planTour</strong> adds them, to the given consumer, in flight order.
+     * @param tourLegs the consumer of the commands of the legs of each tour, or null if they are NOT needed.
+     */
+    PositionColumns planTours(final PositionColumns pointsOfDelivery, final int from, final int to, final int maxLoad,
+                              final Consumer<List<CommandRuns>> tourLegs) {
+        final PositionColumns deliveries = new PositionColumns(to - from);
+        if (tourBuilder == TourBuilder.FIXED_LOAD) {
+            // The tour ends are computed in long, so a big load does NOT overflow
+            for (int tourStart = from; tourStart < to; tourStart = (int) Math.min((long) tourStart + maxLoad, to)) {
+                final List<CommandRuns> legs = tourLegs != null ? new ArrayList<>() : null;
+                planTour(pointsOfDelivery, tourStart, (int) Math.min((long) tourStart + maxLoad, to), deliveries, legs);
+                if (tourLegs != null) {
+                    tourLegs.accept(legs);
+                }
+            }
+            return deliveries;
+        }
+        final int[] order = new int[to - from];
+        final int[] tourEnds = new int[to - from];
+        final int tours = tourBuilder.buildTours(pointsOfDelivery, from, to, maxLoad, order, tourEnds);
+        final PositionColumns tourPoints = new PositionColumns(to - from);
+        for (final int index : order) {
+            tourPoints.add(pointsOfDelivery.getState(index));
+        }
+        final PositionColumns tourDeliveries = new PositionColumns(to - from);
+        for (int tour = 0, tourStart = 0; tour < tours; tourStart = tourEnds[tour++]) {
+            final List<CommandRuns> legs = tourLegs != null ? new ArrayList<>() : null;
+            planTour(tourPoints, tourStart, tourEnds[tour], tourDeliveries, legs);
+            if (tourLegs != null) {
+                tourLegs.accept(legs);
+            }
+        }
+        // Back to the order of the packages, so the report keeps one line per package in the order of the file
+        final long[] states = new long[to - from];
+        for (int k = 0; k < order.length; k++) {
+            states[order[k] - from] = tourDeliveries.getState(k);
+        }
+        for (final long state : states) {
+            deliveries.add(state);
+        }
+        return deliveries;
+    }
+
+    private long flyTo(final PositionColumns pointsOfDelivery, final int index, final long state,
+                       final List<CommandRuns> legs) {
+        final int x = pointsOfDelivery.getX(index);
+        final int y = pointsOfDelivery.getY(index);
+        if (isThePositionWithinLimits(x, y)) {
+            final CommandRuns leg = legPlanner.planLeg(state, x, y);
+            if (legs != null) {
+                legs.add(leg);
+            }
+            return leg.apply(state);
+        } else {
+            logger.error("Position is out of the bounds: {}", toPosition(pointsOfDelivery.getState(index)));
+            throw new IllegalArgumentException("The drone position is out of the bounds");
+        }
+    }
+
+    private boolean isThePositionWithinLimits(final int x, final int y) {
+        return abs(x) <= maxOperationRadio || abs(y) <= maxOperationRadio;
+    }
+
+    /**
+     * Flight of a drone command by command through the tours that <strong>planTours</strong> planned, recorded leg by
+     * leg with <strong>addTour</strong> and then replayed, so the flight is exactly the delivered one whatever the
+     * order of the deliveries (see <strong>TourOrderer</strong>). Each tour starts in the origin (0, 0, N) and ends with
+     * the leg back to the origin.
+     */
+    static final class Flight {
+
+        private final List<List<CommandRuns>> tours = new ArrayList<>();
+        private int tour;
+        private int visit;
+        private List<CommandRuns> tourLegs = Collections.emptyList();
+        private final CommandRuns.Cursor leg = new CommandRuns.Cursor();
+        private long state = DEFAULT_START_STATE;
+
+        /**
+         * Records the next tour of the flight. It must NOT be called once the flight is replayed.
+         * @param legs the commands of the legs of the tour, in flight order and including the leg back to the origin.
+         */
+        void addTour(final List<CommandRuns> legs) {
+            tours.add(legs);
+        }
+
+        /**
+         * @return the packed position of the drone (see <strong>PackedPositions</strong>).
+         */
+        long getState() {
+            return state;
+        }
+
+        /**
+         * @return the next command of the flight, or -1 if the flight is over.
+         */
+        int peek() {
+            int command = leg.peek();
+            while (command < 0) {
+                if (!nextLeg()) {
+                    return -1;
+                }
+                command = leg.peek();
+            }
+            return command;
+        }
+
+        /**
+         * Executes the next command of the flight, which must have been peeked before.
+         */
+        void advance() {
+            final int orientation = orientation(state);
+            final int command = leg.peek();
+            leg.advance();
+            switch (command) {
+                case 'A':
+                    state = pack(x(state) + DX[orientation], y(state) + DY[orientation], orientation);
+                    break;
+                case 'I':
+                    state = pack(x(state), y(state), orientation + 1);
+                    break;
+                default:
+                    state = pack(x(state), y(state), orientation + 3);
+                    break;
+            }
+        }
+
+        private boolean nextLeg() {
+            if (visit < tourLegs.size()) {
+                leg.reset(tourLegs.get(visit++));
+            } else if (tour < tours.size()) {
+                tourLegs = tours.get(tour++);
+                visit = 0;
+                leg.reset(CommandRuns.EMPTY);
+                state = DEFAULT_START_STATE;
+            } else {
+                return false;
+            }
+            return true;
+        }
+    }
+}
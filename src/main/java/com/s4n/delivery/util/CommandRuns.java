@@ -0,0 +1,357 @@
+package com.s4n.delivery.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+
+/**
+ * Immutable run-length encoding of a series of commands, so both its memory and the time to interpret it scale with
+ * the number of runs (that is, with the number of turns) and NOT with the number of grid units traveled.
+ * Some facts:
+ *  - A run of consecutive 'A' commands is a single forward run, for example 'AAAAAAAAAA' is A x 10.
+ *  - A run of consecutive gyros ('I' and 'D' in any order) is reduced to its net rotation mod 4, keeping the
+ *    direction, for example 'DDD' is D x 3, 'IIIII' is I x 1, and 'ID' disappears. So the two forward runs around a
+ *    gyro that disappears are merged. The commands different from 'A', 'I' and 'D' are ignored, as the interpreter
+ *    of <strong>RouteUtils</strong> does.
+ *  - Each run is encoded in bytes: the first one has the kind of run in the 2 highest bits, a continuation flag in
+ *    the next bit and the 5 lowest bits of the count. If the count does NOT fit, it follows in 7-bit groups with a
+ *    continuation flag in the highest bit. So a run never uses more bytes than its text form.
+ *  - The text form is always available through <strong>toString</strong>, for example for the reports, and the
+ *    commands can be stepped one by one without it through a <strong>Cursor</strong>.
+ */
+public final class CommandRuns {
+
+    public static final CommandRuns EMPTY = new CommandRuns(new byte[0]);
+    static final int FORWARD = 0;
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    // Indexed by Orientation ordinal: E, N, W, S, as in RouteUtils
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final char[] COMMANDS = {'A', 'I', 'D'};
+    private final byte[] runs;
+
+    private CommandRuns(final byte[] runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * @param commands the commands in text form.
+     * @return the run-length encoding of the given commands.
+     */
+    public static CommandRuns parse(final CharSequence commands) {
+        final Encoder encoder = new Encoder().reset(new byte[commands.length()], 0);
+        for (int i = 0; i < commands.length(); i++) {
+            encoder.accept(commands.charAt(i));
+        }
+        return new CommandRuns(Arrays.copyOf(encoder.target, encoder.finish()));
+    }
+
+    /**
+     * @param commands the buffer that contains the commands in ASCII text form.
+     * @param from the index of the first command (inclusive).
+     * @param to the index of the last command (exclusive).
+     * @return the run-length encoding of the given commands.
+     */
+    public static CommandRuns parse(final ByteBuffer commands, final int from, final int to) {
+        final Encoder encoder = new Encoder().reset(new byte[to - from], 0);
+        for (int i = from; i < to; i++) {
+            encoder.accept(commands.get(i));
+        }
+        return new CommandRuns(Arrays.copyOf(encoder.target, encoder.finish()));
+    }
+
+    /**
+     * @param encoded the buffer that contains already encoded runs.
+     * @param from the index of the first byte of the runs (inclusive).
+     * @param to the index of the last byte of the runs (exclusive).
+     * @return a copy of the given encoded runs.
+     */
+    public static CommandRuns copyOf(final byte[] encoded, final int from, final int to) {
+        return new CommandRuns(Arrays.copyOfRange(encoded, from, to));
+    }
+
+    /**
+     * @return the number of bytes of the encoding.
+     */
+    public int getEncodedLength() {
+        return runs.length;
+    }
+
+    /**
+     * Copies the encoding into the given buffer.
+     * @param target the buffer.
+     * @param offset the index of the buffer in which the first byte is copied.
+     * @return the number of bytes copied.
+     */
+    public int copyTo(final byte[] target, final int offset) {
+        System.arraycopy(runs, 0, target, offset, runs.length);
+        return runs.length;
+    }
+
+    /**
+     * @return the number of commands of the text form.
+     */
+    public int getTextLength() {
+        int length = 0;
+        for (int i = 0; i < runs.length; i = next(runs, i)) {
+            length += count(runs, i);
+        }
+        return length;
+    }
+
+    /**
+     * @return the number of forward commands ('A') of the text form, the rest of the commands are gyros.
+     */
+    public int getForwardLength() {
+        int length = 0;
+        for (int i = 0; i < runs.length; i = next(runs, i)) {
+            if (kind(runs, i) == FORWARD) {
+                length += count(runs, i);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Interprets the runs starting from the given packed position (see <strong>PackedPositions</strong>), advancing
+     * a whole run in one step.
+     * @param startState the packed point from which the end position will be calculated.
+     * @return the packed calculated position.
+     */
+    public long apply(final long startState) {
+        return apply(runs, 0, runs.length, startState);
+    }
+
+    /**
+     * Same as <strong>apply(long)</strong> but over the encoded runs in the range [from, to) of the given buffer.
+     * @param encoded the buffer that contains the encoded runs.
+     * @param from the index of the first byte of the runs (inclusive).
+     * @param to the index of the last byte of the runs (exclusive).
+     * @param startState the packed point from which the end position will be calculated.
+     * @return the packed calculated position.
+     */
+    public static long apply(final byte[] encoded, final int from, final int to, final long startState) {
+        int x = x(startState);
+        int y = y(startState);
+        int orientation = orientation(startState);
+        for (int i = from; i < to; i = next(encoded, i)) {
+            final int count = count(encoded, i);
+            switch (kind(encoded, i)) {
+                case FORWARD:
+                    x += DX[orientation] * count;
+                    y += DY[orientation] * count;
+                    break;
+                case LEFT:
+                    orientation = (orientation + count) & 3;
+                    break;
+                default:
+                    orientation = (orientation - count) & 3;
+                    break;
+            }
+        }
+        return pack(x, y, orientation);
+    }
+
+    /**
+     * @param encoded the buffer that contains the encoded runs.
+     * @param from the index of the first byte of the runs (inclusive).
+     * @param to the index of the last byte of the runs (exclusive).
+     * @return the text form of the encoded runs.
+     */
+    public static String toText(final byte[] encoded, final int from, final int to) {
+        final StringBuilder builder = new StringBuilder(to - from);
+        for (int i = from; i < to; i = next(encoded, i)) {
+            final char command = COMMANDS[kind(encoded, i)];
+            for (int n = count(encoded, i); n > 0; n--) {
+                builder.append(command);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText(runs, 0, runs.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CommandRuns)) return false;
+        return Arrays.equals(runs, ((CommandRuns) o).runs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(runs);
+    }
+
+    private static int kind(final byte[] encoded, final int index) {
+        return (encoded[index] >> 6) & 3;
+    }
+
+    private static int count(final byte[] encoded, final int index) {
+        int count = encoded[index] & 0x1F;
+        if ((encoded[index] & 0x20) != 0) {
+            int shift = 5;
+            int i = index + 1;
+            byte group;
+            do {
+                group = encoded[i++];
+                count |= (group & 0x7F) << shift;
+                shift += 7;
+            } while (group < 0);
+        }
+        return count;
+    }
+
+    private static int next(final byte[] encoded, final int index) {
+        int i = index + 1;
+        if ((encoded[index] & 0x20) != 0) {
+            while (encoded[i++] < 0) {
+                // Skips the groups of the count
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Reusable cursor over the commands of some runs, one command at a time, so the runs can be replayed command by
+     * command without building their text form. The cursor can be reused with <strong>reset</strong>.
+     */
+    public static final class Cursor {
+
+        private byte[] runs = EMPTY.runs;
+        private int nextRun;
+        private int kind;
+        private int remaining;
+
+        public Cursor reset(final CommandRuns commands) {
+            this.runs = commands.runs;
+            this.nextRun = 0;
+            this.remaining = 0;
+            return this;
+        }
+
+        /**
+         * @return the next command ('A', 'I' or 'D') without consuming it, or -1 if there are no more commands.
+         */
+        public int peek() {
+            while (remaining == 0) {
+                if (nextRun == runs.length) {
+                    return -1;
+                }
+                kind = kind(runs, nextRun);
+                remaining = count(runs, nextRun);
+                nextRun = next(runs, nextRun);
+            }
+            return COMMANDS[kind];
+        }
+
+        /**
+         * Consumes the next command, which must have been peeked before.
+         */
+        public void advance() {
+            remaining--;
+        }
+    }
+
+    /**
+     * Incremental encoder of runs into a target buffer, which must have room for at least one byte per command
+     * (or 12 bytes per leg when built with <strong>forward</strong> and <strong>turn</strong>). The encoder can be
+     * reused with <strong>reset</strong>.
+     */
+    public static final class Encoder {
+
+        private byte[] target;
+        private int position;
+        private int pendingForward;
+        private int pendingTurn;
+
+        public Encoder reset(final byte[] target, final int offset) {
+            this.target = target;
+            this.position = offset;
+            this.pendingForward = 0;
+            this.pendingTurn = 0;
+            return this;
+        }
+
+        /**
+         * Accepts one command in text form, the unknown commands are ignored.
+         * @param command the command.
+         */
+        public void accept(final int command) {
+            switch (command) {
+                case 'A':
+                    forward(1);
+                    break;
+                case 'I':
+                    turn(1);
+                    break;
+                case 'D':
+                    turn(-1);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        public Encoder forward(final int count) {
+            if (pendingTurn != 0) {
+                flushForward();
+                writeRun(pendingTurn > 0 ? LEFT : RIGHT, Math.abs(pendingTurn));
+                pendingTurn = 0;
+            }
+            pendingForward += count;
+            return this;
+        }
+
+        /**
+         * @param rotation the net rotation, positive for gyros to the left and negative for gyros to the right.
+         * @return the encoder.
+         */
+        public Encoder turn(final int rotation) {
+            pendingTurn = (pendingTurn + rotation) % 4;
+            return this;
+        }
+
+        /**
+         * Writes the pending runs.
+         * @return the index just after the last byte written in the target buffer.
+         */
+        public int finish() {
+            flushForward();
+            if (pendingTurn != 0) {
+                writeRun(pendingTurn > 0 ? LEFT : RIGHT, Math.abs(pendingTurn));
+                pendingTurn = 0;
+            }
+            return position;
+        }
+
+        private void flushForward() {
+            if (pendingForward > 0) {
+                writeRun(FORWARD, pendingForward);
+                pendingForward = 0;
+            }
+        }
+
+        private void writeRun(final int kind, final int count) {
+            if (count < 0x20) {
+                target[position++] = (byte) (kind << 6 | count);
+            } else {
+                target[position++] = (byte) (kind << 6 | 0x20 | (count & 0x1F));
+                int rest = count >>> 5;
+                while (rest >= 0x80) {
+                    target[position++] = (byte) (0x80 | (rest & 0x7F));
+                    rest >>>= 7;
+                }
+                target[position++] = (byte) rest;
+            }
+        }
+    }
+}
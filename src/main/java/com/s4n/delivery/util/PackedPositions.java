@@ -0,0 +1,58 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.service.Position;
+import com.s4n.delivery.service.Position.Orientation;
+
+public final class PackedPositions {
+
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+    private static final int ORIENTATION_BITS = 2;
+    private static final int AXIS_BITS = 31;
+    private static final long ORIENTATION_MASK = (1L << ORIENTATION_BITS) - 1;
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+    private static final int Y_SHIFT = ORIENTATION_BITS;
+    private static final int X_SHIFT = ORIENTATION_BITS + AXIS_BITS;
+
+    private PackedPositions() {
+        // As utility class no instances are required
+    }
+
+    /**
+     * Packs the given coordinates and orientation into a single <strong>long</strong> so positions can be
+     * handled in hot loops without allocating <strong>Position</strong> objects.
+     * Layout (from the most significant bit): x (31 bits), y (31 bits), orientation ordinal (2 bits).
+     * Both axes are signed, so the supported range is [-2^30, 2^30 - 1], far beyond any operation radio.
+     *
+     * @param x the value in the X axis.
+     * @param y the value in the Y axis.
+     * @param orientation the ordinal of the <strong>Orientation</strong>.
+     * @return the packed position.
+     */
+    public static long pack(final int x, final int y, final int orientation) {
+        return ((x & AXIS_MASK) << X_SHIFT) | ((y & AXIS_MASK) << Y_SHIFT) | (orientation & ORIENTATION_MASK);
+    }
+
+    public static long pack(final Position position) {
+        return pack(position.getX(), position.getY(), position.getOrientation().ordinal());
+    }
+
+    public static int x(final long packed) {
+        return (int) (packed >> X_SHIFT);
+    }
+
+    public static int y(final long packed) {
+        return (int) ((packed << (Long.SIZE - X_SHIFT)) >> (Long.SIZE - AXIS_BITS));
+    }
+
+    public static int orientation(final long packed) {
+        return (int) (packed & ORIENTATION_MASK);
+    }
+
+    public static Orientation orientationOf(final int ordinal) {
+        return ORIENTATIONS[ordinal];
+    }
+
+    public static Position toPosition(final long packed) {
+        return new Position(x(packed), y(packed), ORIENTATIONS[orientation(packed)]);
+    }
+}
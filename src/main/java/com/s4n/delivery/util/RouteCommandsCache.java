@@ -0,0 +1,125 @@
+package com.s4n.delivery.util;
+
+import com.google.common.cache.CacheStats;
+import com.s4n.delivery.planner.LegPlanner;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+
+/**
+ * Bounded and concurrent memo cache of a <strong>LegPlanner</strong>, by default <strong>RouteUtils.calculateRouteRuns</strong>.
+ * The commands that connect two points depend just on the distance between them in each axis and on the start
+ * orientation, so they are the same for any translation of both points. So the cache is keyed on that normalized
+ * triple, packed as a position (see <strong>PackedPositions</strong>), and the same immutable encoded commands are
+ * shared by all the legs with the same shape. The hits, misses and evictions are counted.
+ * The cache is a direct-mapped table keyed by the primitive packed shape, so a hit neither boxes the key nor locks:
+ *  - Each shape has a single slot, and a new shape replaces the one in its slot instead of the least recently used.
+ *  - The entries are immutable, so a racing reader sees either the old or the new entry, and at worst plans the
+ *    leg again.
+ * Note: just the planners whose legs do NOT depend on the absolute position can be cached, for example NOT a planner
+ *       that avoids no-fly zones.
+ */
+public class RouteCommandsCache implements LegPlanner {
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private final Entry[] table;
+    private final int mask;
+    private final LegPlanner legPlanner;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RouteCommandsCache(final long maximumSize) {
+        this(maximumSize, LegPlanner.LEGACY);
+    }
+
+    /**
+     * @param maximumSize the maximum number of cached legs, rounded up to a power of two; 0 disables the cache.
+     * @param legPlanner the planner of the legs that are NOT in the cache.
+     */
+    public RouteCommandsCache(final long maximumSize, final LegPlanner legPlanner) {
+        this.legPlanner = legPlanner;
+        final int capacity = maximumSize <= 0 ? 0 : tableSizeFor(maximumSize);
+        this.table = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Same as <strong>LegPlanner.planLeg(long, int, int)</strong> but reusing the commands of the legs with the same
+     * shape calculated before.
+     * @param startState the packed point from which the route will be calculated.
+     * @param endX the value in the X axis of the destination point.
+     * @param endY the value in the Y axis of the destination point.
+     * @return the run-length encoded commands that connect the start point with the end point.
+     */
+    public CommandRuns getRouteRuns(final long startState, final int endX, final int endY) {
+        final long key = pack(x(startState) - endX, y(startState) - endY, orientation(startState));
+        if (table.length == 0) {
+            misses.increment();
+            return legPlanner.planLeg(key, 0, 0);
+        }
+        final int slot = slotOf(key);
+        final Entry entry = table[slot];
+        if (entry != null && entry.key == key) {
+            hits.increment();
+            return entry.runs;
+        }
+        misses.increment();
+        // The normalized leg goes from (dx, dy) to the origin, with the same start orientation
+        final CommandRuns runs = legPlanner.planLeg(key, 0, 0);
+        if (entry != null) {
+            evictions.increment();
+        }
+        table[slot] = new Entry(key, runs);
+        return runs;
+    }
+
+    @Override
+    public CommandRuns planLeg(final long startState, final int endX, final int endY) {
+        return getRouteRuns(startState, endX, endY);
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0, 0, 0, evictions.sum());
+    }
+
+    public long size() {
+        long size = 0;
+        for (final Entry entry : table) {
+            if (entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private int slotOf(final long key) {
+        // Spreads the packed shape (the murmur3 finalizer), as nearby shapes differ just in a few bits
+        long hash = key;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (hash ^ (hash >>> 33)) & mask;
+    }
+
+    private static int tableSizeFor(final long maximumSize) {
+        if (maximumSize >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Integer.highestOneBit((((int) maximumSize - 1) << 1) | 1);
+    }
+
+    private static final class Entry {
+
+        private final long key;
+        private final CommandRuns runs;
+
+        private Entry(final long key, final CommandRuns runs) {
+            this.key = key;
+            this.runs = runs;
+        }
+    }
+}
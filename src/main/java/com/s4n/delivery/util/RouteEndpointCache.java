@@ -0,0 +1,101 @@
+package com.s4n.delivery.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.s4n.delivery.util.RouteFileReader.EndpointResolver;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Bounded and concurrent cache of the points of delivery of the routes read from the input files, shared by all
+ * the files of a run. The real input files repeat the same routes across days and across drones, so the commands
+ * of a route are interpreted just the first time they are seen. Some facts:
+ *  - The cache is keyed on a 64-bit hash of the command bytes and each entry keeps a copy of the commands, that is
+ *    compared on every hit, so a collision of hashes never gives a wrong point of delivery.
+ *  - The cache is bounded by the number of bytes it keeps, not by the number of entries, so its memory is
+ *    predictable in multi-GB runs. The least recently used entries are evicted first.
+ *  - The routes longer than <strong>MAX_CACHED_COMMANDS_LENGTH</strong> are never cached, as they are unlikely
+ *    to be repeated and would evict many short routes.
+ */
+public class RouteEndpointCache implements EndpointResolver {
+
+    static final int MAX_CACHED_COMMANDS_LENGTH = 1024;
+    // Approximated size in bytes of each entry without its commands: the key, the entry and the cache node
+    private static final int ENTRY_OVERHEAD = 96;
+    private final Cache<Long, CachedEndpoint> cache;
+    private final EndpointResolver resolver;
+
+    /**
+     * @param maximumBytes the maximum number of bytes kept by the cache.
+     * @param resolver the resolver of the points of delivery of the routes that are NOT in the cache.
+     */
+    public RouteEndpointCache(final long maximumBytes, final EndpointResolver resolver) {
+        this.resolver = resolver;
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumWeight(maximumBytes)
+                                 .weigher((Long hash, CachedEndpoint endpoint) -> ENTRY_OVERHEAD + endpoint.commands.length)
+                                 .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                                 .recordStats()
+                                 .build();
+    }
+
+    @Override
+    public long resolve(final ByteBuffer buffer, final int from, final int to) {
+        final int length = to - from;
+        if (length > MAX_CACHED_COMMANDS_LENGTH) {
+            return resolver.resolve(buffer, from, to);
+        }
+        final long hash = hashOf(buffer, from, to);
+        final CachedEndpoint cached = cache.getIfPresent(hash);
+        if (cached != null && cached.matches(buffer, from, to)) {
+            return cached.pointOfDelivery;
+        }
+        final long pointOfDelivery = resolver.resolve(buffer, from, to);
+        if (cached == null) {
+            final byte[] commands = new byte[length];
+            for (int i = 0; i < length; i++) {
+                commands[i] = buffer.get(from + i);
+            }
+            cache.put(hash, new CachedEndpoint(commands, pointOfDelivery));
+        }
+        return pointOfDelivery;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // Package-private so the tests can force collisions of hashes
+    long hashOf(final ByteBuffer buffer, final int from, final int to) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ buffer.get(i)) * 0x100000001B3L;
+        }
+        return hash ^ (to - from);
+    }
+
+    private static final class CachedEndpoint {
+
+        private final byte[] commands;
+        private final long pointOfDelivery;
+
+        private CachedEndpoint(final byte[] commands, final long pointOfDelivery) {
+            this.commands = commands;
+            this.pointOfDelivery = pointOfDelivery;
+        }
+
+        private boolean matches(final ByteBuffer buffer, final int from, final int to) {
+            if (commands.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < commands.length; i++) {
+                if (commands[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
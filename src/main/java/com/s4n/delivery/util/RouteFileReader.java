@@ -0,0 +1,289 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.service.RouteColumns;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import static com.s4n.delivery.service.Drone.DEFAULT_START_STATE;
+import static com.s4n.delivery.util.RouteUtils.calculateEndState;
+import static java.nio.file.StandardOpenOption.READ;
+
+public final class RouteFileReader {
+
+    private static final Logger logger = LogManager.getLogger(RouteFileReader.class);
+    // Files smaller than this are read with a plain buffered read, mapping them costs more than it saves
+    static final long MEMORY_MAP_THRESHOLD = 1024 * 1024;
+    // Maximum size of each mapped region, big files are mapped region by region
+    static final int MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+    // Size of the newline-aligned chunks of a file parsed in parallel
+    static final int PARALLEL_CHUNK_SIZE = 1024 * 1024;
+
+    // Resolves the point of delivery of each route interpreting its commands from the origin (0, 0, N)
+    public static final EndpointResolver DIRECT_RESOLVER =
+            (buffer, from, to) -> calculateEndState(buffer, from, to, DEFAULT_START_STATE);
+    // Same as DIRECT_RESOLVER but applying the commands in blocks (see BlockInterpreter)
+    public static final EndpointResolver COMPILED_RESOLVER =
+            (buffer, from, to) -> BlockInterpreter.calculateEndState(buffer, from, to, DEFAULT_START_STATE);
+
+    private RouteFileReader() {
+        // As utility class no instances are required
+    }
+
+    /**
+     * Method that reads all the routes of the given file, one route per line, scanning the ASCII commands directly
+     * from the bytes of the file, so no intermediate <strong>String</strong> is created.
+     * Some facts:
+     *  - Big files are memory-mapped through a <strong>FileChannel</strong>, region by region, and small files are
+     *    read with a single buffered read.
+     *  - Both '\n' and '\r\n' line endings are supported. As <strong>Files.readAllLines</strong> does, the last line
+     *    is read even when it has no line ending, and an empty line is a route with no commands.
+     *  - The point of delivery of each route is calculated starting from the origin (0, 0, N) and handed to the
+     *    given handler together with the range of the commands in the buffer.
+     *
+     * @param file the file to read.
+     * @param handler the handler that receives each route, in the same order as in the file.
+     * @throws IOException if the file can NOT be read.
+     */
+    public static void readRoutes(final File file, final RouteHandler handler) throws IOException {
+        readRoutes(file, DIRECT_RESOLVER, handler);
+    }
+
+    /**
+     * Same as <strong>readRoutes(File, RouteHandler)</strong> but resolving the point of delivery of each route with
+     * the given resolver, for example a <strong>RouteEndpointCache</strong>.
+     * @param file the file to read.
+     * @param resolver the resolver of the point of delivery of each route.
+     * @param handler the handler that receives each route, in the same order as in the file.
+     * @throws IOException if the file can NOT be read.
+     */
+    public static void readRoutes(final File file, final EndpointResolver resolver, final RouteHandler handler) throws IOException {
+        final long size = file.length();
+        if (size < MEMORY_MAP_THRESHOLD) {
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            scanRoutes(buffer, 0, buffer.limit(), true, resolver, handler);
+        } else {
+            logger.debug("Memory-mapping file '{}' of {} bytes", file, size);
+            try (final FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+                long regionStart = 0;
+                while (regionStart < size) {
+                    final int regionSize = (int) Math.min(MAPPED_REGION_SIZE, size - regionStart);
+                    final boolean lastRegion = regionStart + regionSize == size;
+                    final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+                    final int consumed = scanRoutes(region, 0, regionSize, lastRegion, resolver, handler);
+                    if (consumed == 0 && !lastRegion) {
+                        throw new IOException("Line longer than " + MAPPED_REGION_SIZE + " bytes in file: " + file);
+                    }
+                    regionStart += consumed;
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as <strong>readRoutes(File, EndpointResolver, RouteHandler)</strong> but over routes already in memory, for
+     * example the body of a request.
+     * @param routes the buffer with the ASCII commands of the routes, one route per line, from its position to its limit.
+     * @param resolver the resolver of the point of delivery of each route.
+     * @param handler the handler that receives each route, in the same order as in the buffer.
+     * @throws IOException if the handler fails.
+     */
+    public static void readRoutes(final ByteBuffer routes, final EndpointResolver resolver, final RouteHandler handler)
+            throws IOException {
+        scanRoutes(routes, routes.position(), routes.limit(), true, resolver, handler);
+    }
+
+    /**
+     * Method that parses all the routes of the given file as <strong>readRoutes</strong> does, but splitting the file
+     * into newline-aligned chunks that are parsed in parallel in the given fork-join pool. That is possible because
+     * the point of delivery of each route is calculated independently from the origin (0, 0, N).
+     * The routes are returned in the same order as in the file. Files smaller than two chunks are parsed sequentially.
+     * The chunks are parsed into their own columns, which are concatenated once, in order, when all of them are done.
+     *
+     * @param file the file to parse.
+     * @param pool the pool in which the chunks will be parsed.
+     * @return the routes of the file.
+     * @throws IOException if the file can NOT be read.
+     */
+    public static RouteColumns parseRoutes(final File file, final ForkJoinPool pool) throws IOException {
+        return parseRoutes(file, pool, DIRECT_RESOLVER, RouteColumns::new);
+    }
+
+    /**
+     * Same as <strong>parseRoutes(File, ForkJoinPool)</strong> but resolving the point of delivery of each route with
+     * the given resolver and storing the routes in the columns created by the given factory.
+     * @param file the file to parse.
+     * @param pool the pool in which the chunks will be parsed.
+     * @param resolver the resolver of the point of delivery of each route, it must be thread-safe.
+     * @param columnsFactory the factory of the columns in which the routes are stored.
+     * @return the routes of the file.
+     * @throws IOException if the file can NOT be read.
+     */
+    public static RouteColumns parseRoutes(final File file, final ForkJoinPool pool, final EndpointResolver resolver,
+                                           final Supplier<RouteColumns> columnsFactory) throws IOException {
+        final long size = file.length();
+        final RouteColumns routes = columnsFactory.get();
+        if (size < 2L * PARALLEL_CHUNK_SIZE) {
+            readRoutes(file, resolver, routes::add);
+            return routes;
+        }
+        logger.debug("Parsing file '{}' of {} bytes in parallel", file, size);
+        try (final FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            long regionStart = 0;
+            while (regionStart < size) {
+                final int regionSize = (int) Math.min(MAPPED_REGION_SIZE, size - regionStart);
+                final boolean lastRegion = regionStart + regionSize == size;
+                final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+                final int end = lastRegion ? regionSize : endOfLastLine(region, regionSize);
+                if (end == 0) {
+                    throw new IOException("Line longer than " + MAPPED_REGION_SIZE + " bytes in file: " + file);
+                }
+                routes.addAll(invoke(pool, new ParseTask(region, 0, end, resolver, columnsFactory)));
+                regionStart += end;
+            }
+        }
+        return routes;
+    }
+
+    private static List<RouteColumns> invoke(final ForkJoinPool pool, final ParseTask task) throws IOException {
+        try {
+            return pool.invoke(task);
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private static int endOfLastLine(final ByteBuffer buffer, final int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Scans the routes in the range [from, to) of the given buffer.
+     * @param buffer the buffer with the ASCII commands.
+     * @param from the index of the first byte (inclusive).
+     * @param to the index of the last byte (exclusive).
+     * @param endOfInput whether the range ends the input, so the trailing line with no line ending is a route too.
+     * @param resolver the resolver of the point of delivery of each route.
+     * @param handler the handler that receives each route.
+     * @return the number of bytes consumed, that is, up to the end of the last complete line.
+     * @throws IOException if the handler fails.
+     */
+    static int scanRoutes(final ByteBuffer buffer, final int from, final int to, final boolean endOfInput,
+                          final EndpointResolver resolver, final RouteHandler handler) throws IOException {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == '\n') {
+                emitRoute(buffer, lineStart, i, resolver, handler);
+                lineStart = i + 1;
+            }
+        }
+        if (endOfInput && lineStart < to) {
+            emitRoute(buffer, lineStart, to, resolver, handler);
+            lineStart = to;
+        }
+        return lineStart - from;
+    }
+
+    private static void emitRoute(final ByteBuffer buffer, final int from, final int lineEnd,
+                                  final EndpointResolver resolver, final RouteHandler handler) throws IOException {
+        final int to = lineEnd > from && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+        handler.onRoute(buffer, from, to, resolver.resolve(buffer, from, to));
+    }
+
+    /**
+     * Parses a range of the file, returning the columns of each chunk of the range in order.
+     */
+    private static final class ParseTask extends RecursiveTask<List<RouteColumns>> {
+
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final EndpointResolver resolver;
+        private final Supplier<RouteColumns> columnsFactory;
+
+        private ParseTask(final ByteBuffer buffer, final int from, final int to, final EndpointResolver resolver,
+                          final Supplier<RouteColumns> columnsFactory) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.resolver = resolver;
+            this.columnsFactory = columnsFactory;
+        }
+
+        @Override
+        protected List<RouteColumns> compute() {
+            if (to - from > PARALLEL_CHUNK_SIZE) {
+                final int middle = nextLineStart(from + (to - from) / 2);
+                if (middle < to) {
+                    final ParseTask left = new ParseTask(buffer, from, middle, resolver, columnsFactory);
+                    left.fork();
+                    final List<RouteColumns> right = new ParseTask(buffer, middle, to, resolver, columnsFactory).compute();
+                    final List<RouteColumns> chunks = left.join();
+                    chunks.addAll(right);
+                    return chunks;
+                }
+            }
+            final RouteColumns routes = columnsFactory.get();
+            try {
+                // Every chunk but the last one ends just after a line ending, so all of them are complete inputs
+                scanRoutes(buffer, from, to, true, resolver, routes::add);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            final List<RouteColumns> chunks = new ArrayList<>();
+            chunks.add(routes);
+            return chunks;
+        }
+
+        private int nextLineStart(final int index) {
+            for (int i = index; i < to; i++) {
+                if (buffer.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return to;
+        }
+    }
+
+    @FunctionalInterface
+    public interface EndpointResolver {
+        /**
+         * Resolves the point of delivery of a route, starting from the origin (0, 0, N).
+         * @param buffer the buffer that contains the ASCII commands of the route.
+         * @param from the index of the first command (inclusive).
+         * @param to the index of the last command (exclusive).
+         * @return the packed point of delivery.
+         */
+        long resolve(ByteBuffer buffer, int from, int to);
+    }
+
+    @FunctionalInterface
+    public interface RouteHandler {
+        /**
+         * Receives a route read from a file.
+         * @param buffer the buffer that contains the ASCII commands of the route.
+         * @param from the index of the first command (inclusive).
+         * @param to the index of the last command (exclusive).
+         * @param pointOfDelivery the packed point of delivery, calculated starting from the origin (0, 0, N).
+         * @throws IOException if the route can NOT be handled.
+         */
+        void onRoute(ByteBuffer buffer, int from, int to, long pointOfDelivery) throws IOException;
+    }
+}
@@ -3,11 +3,27 @@ package com.s4n.delivery.util;
 import com.s4n.delivery.service.Position;
 import com.s4n.delivery.service.Position.Orientation;
 
+import java.nio.ByteBuffer;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.orientationOf;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.toPosition;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
 import static java.lang.Math.abs;
-import static java.util.stream.IntStream.range;
 
 public final class RouteUtils {
 
+    // Indexed by Orientation ordinal: E, N, W, S. A left gyro moves to the next ordinal, a right gyro to the previous one.
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final int LEFT = 1;
+    private static final int RIGHT = 3;
+    private static final int ORIENTATION_MASK = 3;
+    // A leg has at most two gyro runs and two forward runs, each forward run takes at most 5 bytes
+    private static final int MAX_LEG_RUNS_LENGTH = 12;
+
     private RouteUtils() {
         // As utility class no instances are required
     }
@@ -31,11 +47,36 @@ public final class RouteUtils {
      * @return the commands that connect the start point with the end point.
      */
     public static String calculateRouteCommands(final Position start, final Position end) {
-        final StringBuilder commandBuilder = new StringBuilder();
-        final int x = start.getX() - end.getX();
-        final int y = start.getY() - end.getY();
+        return calculateRouteCommands(pack(start), end.getX(), end.getY());
+    }
+
+    /**
+     * Same as <strong>calculateRouteCommands(Position, Position)</strong> but taking the start point as a packed
+     * position (see <strong>PackedPositions</strong>) and the destination as plain coordinates.
+     * @param startState the packed point from which the route will be calculated.
+     * @param endX the value in the X axis of the destination point.
+     * @param endY the value in the Y axis of the destination point.
+     * @return the commands that connect the start point with the end point.
+     */
+    public static String calculateRouteCommands(final long startState, final int endX, final int endY) {
+        return calculateRouteRuns(startState, endX, endY).toString();
+    }
+
+    /**
+     * Same as <strong>calculateRouteCommands(long, int, int)</strong> but returning the commands run-length encoded
+     * (see <strong>CommandRuns</strong>), so no text is built and the commands can be interpreted run by run.
+     * @param startState the packed point from which the route will be calculated.
+     * @param endX the value in the X axis of the destination point.
+     * @param endY the value in the Y axis of the destination point.
+     * @return the run-length encoded commands that connect the start point with the end point.
+     */
+    public static CommandRuns calculateRouteRuns(final long startState, final int endX, final int endY) {
+        final int x = x(startState) - endX;
+        final int y = y(startState) - endY;
+        final byte[] runs = new byte[MAX_LEG_RUNS_LENGTH];
+        final CommandRuns.Encoder encoder = new CommandRuns.Encoder().reset(runs, 0);
         int gyros = 0;
-        Orientation currentOrientation = start.getOrientation();
+        Orientation currentOrientation = orientationOf(orientation(startState));
 
         if (x > 0) {
             gyros = currentOrientation.difference(Orientation.W);
@@ -53,95 +94,141 @@ public final class RouteUtils {
             }
         }
 
-        if (gyros > 0) {
-            range(0, abs(gyros)).forEach(n -> commandBuilder.append('D'));
-        } else {
-            range(0, abs(gyros)).forEach(n -> commandBuilder.append('I'));
-        }
-
-        range(0, abs(x)).forEach(n -> commandBuilder.append('A'));
+        // A positive difference means gyros to the right ('D'), a negative one gyros to the left ('I')
+        encoder.turn(-gyros);
+        encoder.forward(abs(x));
 
         if (currentOrientation == Orientation.W) {
             if (y > 0) {
-                commandBuilder.append('I');
+                encoder.turn(1);
             } else if (y < 0) {
-                commandBuilder.append('D');
+                encoder.turn(-1);
             }
         } else if(currentOrientation == Orientation.E) {
             if (y > 0) {
-                commandBuilder.append('D');
+                encoder.turn(-1);
             } else if (y < 0) {
-                commandBuilder.append('I');
+                encoder.turn(1);
             }
         }
 
-        range(0, abs(y)).forEach(n -> commandBuilder.append('A'));
-        return commandBuilder.toString();
+        encoder.forward(abs(y));
+        return CommandRuns.copyOf(runs, 0, encoder.finish());
     }
 
     /**
      * Method that uses the given commands to calculate the end position starting from the given current position.
      * For example: given the commands 'AAADAA' and the start position '(0, 0, N)' the returned-calculated position
      *              will be '(2, 3, E)'.
+     * Note: this is a thin wrapper over the packed engine, so just one <strong>Position</strong> is created
+     *       regardless of the number of commands.
      * @param commands the commands used to calculate the end position.
      * @param startPosition the point from which the end position will be calculated.
      * @return the calculated position.
      */
     public static Position calculateEndPosition(final String commands, final Position startPosition) {
-        Position position = startPosition;
-        final char[] commandsArr = commands.toCharArray();
-        for (char command : commandsArr) {
-            switch (command) {
+        return toPosition(calculateEndState(commands, pack(startPosition)));
+    }
+
+    /**
+     * Allocation-free version of <strong>calculateEndPosition</strong> that works over packed positions
+     * (see <strong>PackedPositions</strong>). Unknown commands are ignored.
+     * Note: the loop is repeated for each source of commands (CharSequence, byte[] and ByteBuffer) so each one reads
+     *       its source directly instead of through a shared accessor, which would NOT be inlined in the hot loop. The
+     *       copies, and <strong>BlockInterpreter</strong>, are cross-checked by RouteUtilsTest.
+     * @param commands the commands used to calculate the end position.
+     * @param startState the packed point from which the end position will be calculated.
+     * @return the packed calculated position.
+     */
+    public static long calculateEndState(final CharSequence commands, final long startState) {
+        int x = x(startState);
+        int y = y(startState);
+        int orientation = orientation(startState);
+        final int length = commands.length();
+        for (int i = 0; i < length; i++) {
+            switch (commands.charAt(i)) {
                 case 'A':
-                    switch (position.getOrientation()) {
-                        case N:
-                            position = new Position(position.getX(), position.getY() + 1, position.getOrientation());
-                            break;
-                        case E:
-                            position = new Position(position.getX() + 1, position.getY(), position.getOrientation());
-                            break;
-                        case W:
-                            position = new Position(position.getX() - 1, position.getY(), position.getOrientation());
-                            break;
-                        case S:
-                            position = new Position(position.getX(), position.getY() - 1, position.getOrientation());
-                            break;
-                    }
+                    x += DX[orientation];
+                    y += DY[orientation];
                     break;
                 case 'I':
-                    switch (position.getOrientation()) {
-                        case N:
-                            position = new Position(position.getX(), position.getY(), Orientation.W);
-                            break;
-                        case E:
-                            position = new Position(position.getX(), position.getY(), Orientation.N);
-                            break;
-                        case W:
-                            position = new Position(position.getX(), position.getY(), Orientation.S);
-                            break;
-                        case S:
-                            position = new Position(position.getX(), position.getY(), Orientation.E);
-                            break;
-                    }
+                    orientation = (orientation + LEFT) & ORIENTATION_MASK;
                     break;
                 case 'D':
-                    switch (position.getOrientation()) {
-                        case N:
-                            position = new Position(position.getX(), position.getY(), Orientation.E);
-                            break;
-                        case E:
-                            position = new Position(position.getX(), position.getY(), Orientation.S);
-                            break;
-                        case W:
-                            position = new Position(position.getX(), position.getY(), Orientation.N);
-                            break;
-                        case S:
-                            position = new Position(position.getX(), position.getY(), Orientation.W);
-                            break;
-                    }
+                    orientation = (orientation + RIGHT) & ORIENTATION_MASK;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return pack(x, y, orientation);
+    }
+
+    /**
+     * Same as <strong>calculateEndState(CharSequence, long)</strong> but decoding the ASCII commands straight
+     * from the given bytes in the range [from, to), so no intermediate <strong>String</strong> is needed.
+     * @param commands the buffer that contains the ASCII commands.
+     * @param from the index of the first command (inclusive).
+     * @param to the index of the last command (exclusive).
+     * @param startState the packed point from which the end position will be calculated.
+     * @return the packed calculated position.
+     */
+    public static long calculateEndState(final byte[] commands, final int from, final int to, final long startState) {
+        int x = x(startState);
+        int y = y(startState);
+        int orientation = orientation(startState);
+        for (int i = from; i < to; i++) {
+            switch (commands[i]) {
+                case 'A':
+                    x += DX[orientation];
+                    y += DY[orientation];
+                    break;
+                case 'I':
+                    orientation = (orientation + LEFT) & ORIENTATION_MASK;
+                    break;
+                case 'D':
+                    orientation = (orientation + RIGHT) & ORIENTATION_MASK;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return pack(x, y, orientation);
+    }
+
+    /**
+     * Same as <strong>calculateEndState(byte[], int, int, long)</strong> but decoding the ASCII commands with absolute
+     * reads from the given buffer, which is the case of memory-mapped files.
+     * @param commands the buffer that contains the ASCII commands.
+     * @param from the index of the first command (inclusive).
+     * @param to the index of the last command (exclusive).
+     * @param startState the packed point from which the end position will be calculated.
+     * @return the packed calculated position.
+     */
+    public static long calculateEndState(final ByteBuffer commands, final int from, final int to, final long startState) {
+        if (commands.hasArray()) {
+            final int offset = commands.arrayOffset();
+            return calculateEndState(commands.array(), offset + from, offset + to, startState);
+        }
+        int x = x(startState);
+        int y = y(startState);
+        int orientation = orientation(startState);
+        for (int i = from; i < to; i++) {
+            switch (commands.get(i)) {
+                case 'A':
+                    x += DX[orientation];
+                    y += DY[orientation];
+                    break;
+                case 'I':
+                    orientation = (orientation + LEFT) & ORIENTATION_MASK;
+                    break;
+                case 'D':
+                    orientation = (orientation + RIGHT) & ORIENTATION_MASK;
+                    break;
+                default:
                     break;
             }
         }
-        return position;
+        return pack(x, y, orientation);
     }
 }
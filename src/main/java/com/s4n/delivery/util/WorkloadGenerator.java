@@ -0,0 +1,143 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.service.Position;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static com.s4n.delivery.service.Drone.DEFAULT_START_POSITION;
+import static com.s4n.delivery.service.Position.Orientation.N;
+import static com.s4n.delivery.util.RouteUtils.calculateRouteCommands;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Generator of synthetic input folders, with the same format as the real ones: a file per drone with a route per
+ * line, each route starting from the origin (0, 0, N). Some facts:
+ *  - The generation is seeded, so the same settings always write the same files.
+ *  - The routes are split across the files following a Zipf law of the given skew, so with a skew of 0 all the files
+ *    have the same number of routes and with a skew of 1 or more a few files have most of them.
+ *  - Each route goes to a random point of delivery within the given radius, sometimes with a final gyro, and with the
+ *    given rate it repeats one of the recent routes instead, as the real addresses repeat.
+ *  - The files are streamed, so a file of tens of millions of lines needs just the memory of the recent routes.
+ */
+public final class WorkloadGenerator {
+
+    private static final Logger logger = LogManager.getLogger(WorkloadGenerator.class);
+    // Number of recent routes that can be repeated, power of two
+    private static final int RECENT_ROUTES = 4096;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private final int files;
+    private final long routes;
+    private final double skew;
+    private final double repetitionRate;
+    private final int radius;
+    private final long seed;
+
+    /**
+     * @param files the number of files.
+     * @param routes the total number of routes of all the files.
+     * @param skew the exponent of the Zipf law of the number of routes of each file, 0 for the same in all of them.
+     * @param repetitionRate the probability of each route to repeat one of the recent routes, in [0, 1].
+     * @param radius the maximum distance of the points of delivery to the origin in each axis.
+     * @param seed the seed of the random generator.
+     */
+    public WorkloadGenerator(final int files, final long routes, final double skew, final double repetitionRate,
+                             final int radius, final long seed) {
+        if (files < 1 || routes < 0 || skew < 0 || repetitionRate < 0 || repetitionRate > 1 || radius < 0) {
+            throw new IllegalArgumentException("Invalid settings of the workload, please validate.");
+        }
+        this.files = files;
+        this.routes = routes;
+        this.skew = skew;
+        this.repetitionRate = repetitionRate;
+        this.radius = radius;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the files in the given folder, which is created if needed, named with the prefix and the number of each
+     * file, for example 'in01.txt', 'in02.txt' and so on.
+     * @param folder the folder.
+     * @param fileNamePrefix the prefix of the names of the files, for example 'in'.
+     * @param extension the extension of the files, for example 'txt'.
+     * @throws IOException if any file can NOT be written.
+     */
+    public void generate(final Path folder, final String fileNamePrefix, final String extension) throws IOException {
+        Files.createDirectories(folder);
+        final Random random = new Random(seed);
+        final long[] routesPerFile = getRoutesPerFile();
+        final String[] recentRoutes = new String[RECENT_ROUTES];
+        long generated = 0;
+        long distinct = 0;
+        final int digits = Math.max(2, String.valueOf(files).length());
+        for (int file = 0; file < files; file++) {
+            final Path path = folder.resolve(fileNamePrefix + String.format("%0" + digits + "d", file + 1) + "." + extension);
+            try (final BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(path, US_ASCII), WRITE_BUFFER_SIZE)) {
+                for (long route = 0; route < routesPerFile[file]; route++) {
+                    final String commands;
+                    if (distinct > 0 && random.nextDouble() < repetitionRate) {
+                        commands = recentRoutes[random.nextInt((int) Math.min(distinct, RECENT_ROUTES))];
+                    } else {
+                        commands = randomRoute(random);
+                        recentRoutes[(int) (distinct++ & (RECENT_ROUTES - 1))] = commands;
+                    }
+                    writer.write(commands);
+                    writer.newLine();
+                    generated++;
+                }
+            }
+        }
+        logger.info("Generated {} routes in {} files in '{}'", generated, files, folder);
+    }
+
+    /**
+     * @return a name made of all the settings, so two generators with the same name write the same files.
+     */
+    public String getSettingsName() {
+        return "files" + files + "-routes" + routes + "-skew" + skew + "-repetition" + repetitionRate
+               + "-radius" + radius + "-seed" + seed;
+    }
+
+    /**
+     * @return the number of routes of each file, following the Zipf law of the skew and adding up to the total.
+     */
+    long[] getRoutesPerFile() {
+        final double[] weights = new double[files];
+        double totalWeight = 0;
+        for (int file = 0; file < files; file++) {
+            weights[file] = 1 / Math.pow(file + 1, skew);
+            totalWeight += weights[file];
+        }
+        final long[] routesPerFile = new long[files];
+        long assigned = 0;
+        for (int file = 0; file < files; file++) {
+            routesPerFile[file] = (long) Math.floor(routes * weights[file] / totalWeight);
+            assigned += routesPerFile[file];
+        }
+        // The rounding leftovers go to the first files, which are the biggest ones
+        for (int file = 0; assigned < routes; file = (file + 1) % files) {
+            routesPerFile[file]++;
+            assigned++;
+        }
+        return routesPerFile;
+    }
+
+    private String randomRoute(final Random random) {
+        final Position pointOfDelivery = new Position(random.nextInt(2 * radius + 1) - radius,
+                                                      random.nextInt(2 * radius + 1) - radius, N);
+        final String commands = calculateRouteCommands(DEFAULT_START_POSITION, pointOfDelivery);
+        switch (random.nextInt(4)) {
+            case 0:
+                return commands + 'I';
+            case 1:
+                return commands + 'D';
+            default:
+                return commands;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.s4n.delivery.app;
+
+import com.s4n.delivery.service.DeliveryExecutors;
+import com.s4n.delivery.util.FileUtils;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static org.junit.Assert.assertEquals;
+
+public class ConfigTest {
+
+    private static final String KEY = "IO_EXECUTOR";
+
+    @Test
+    public void validateEnumPropertiesIgnoreTheCaseAndTheSpaces() {
+        assertEquals(Optional.of(DeliveryExecutors.IoExecutorType.VIRTUAL),
+                     configWith(KEY, " virtual ").getPropertyAsEnum(KEY, DeliveryExecutors.IoExecutorType.class));
+    }
+
+    @Test
+    public void validateInvalidEnumPropertiesAreEmpty() {
+        assertEquals(Optional.empty(), configWith(KEY, "VIRTUALL").getPropertyAsEnum(KEY, DeliveryExecutors.IoExecutorType.class));
+        assertEquals(Optional.empty(), configWith("OTHER", "x").getPropertyAsEnum(KEY, DeliveryExecutors.IoExecutorType.class));
+    }
+
+    @Test
+    public void validateInvalidLongPropertiesAreEmpty() {
+        assertEquals(Optional.of(67_108_864L), configWith("MAX_BYTES", " 67108864 ").getPropertyAsLong("MAX_BYTES"));
+        assertEquals(Optional.empty(), configWith("MAX_BYTES", "64MB").getPropertyAsLong("MAX_BYTES"));
+        assertEquals(Optional.empty(), configWith("OTHER", "1").getPropertyAsLong("MAX_BYTES"));
+    }
+
+    @Test
+    public void validateInvalidDoublePropertiesAreEmpty() {
+        assertEquals(Optional.of(0.25), configWith("SKEW", " 0.25 ").getPropertyAsDouble("SKEW"));
+        assertEquals(Optional.empty(), configWith("SKEW", "25%").getPropertyAsDouble("SKEW"));
+        assertEquals(Optional.empty(), configWith("OTHER", "1").getPropertyAsDouble("SKEW"));
+    }
+
+    private static Config configWith(final String key, final String value) {
+        final Properties overrides = new Properties();
+        overrides.setProperty(key, value);
+        return new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE), overrides);
+    }
+}
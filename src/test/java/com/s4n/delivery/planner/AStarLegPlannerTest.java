@@ -0,0 +1,199 @@
+package com.s4n.delivery.planner;
+
+import com.s4n.delivery.util.CommandRuns;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.s4n.delivery.util.PackedPositions.orientation;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AStarLegPlannerTest {
+
+    // Indexed by Orientation ordinal: E, N, W, S, as in RouteUtils
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+    private static final int ZONES_RADIO = 8;
+
+    @Test
+    public void validateTheLegsAreAsShortAsABreadthFirstSearchWithinTheRadio() {
+        validateAgainstBreadthFirstSearch(ZONES_RADIO, ZONES_RADIO, 2_000, 16);
+    }
+
+    @Test
+    public void validateTheLegsAreAsShortAsABreadthFirstSearchWithoutRadio() {
+        // The search of the reference is wide enough to fly around any zone, as if it had no bounds
+        validateAgainstBreadthFirstSearch(Integer.MAX_VALUE, 3 * ZONES_RADIO, 2_000, 160);
+    }
+
+    @Test
+    public void validateWithoutZonesTheLegIsNeverLongerThanTheLegacyRecipe() {
+        final AStarLegPlanner planner = new AStarLegPlanner();
+        final Random random = new Random(16);
+        for (int test = 0; test < 2_000; test++) {
+            final long start = pack(random.nextInt(41) - 20, random.nextInt(41) - 20, random.nextInt(4));
+            final int endX = random.nextInt(41) - 20;
+            final int endY = random.nextInt(41) - 20;
+            final CommandRuns leg = planner.planLeg(start, endX, endY);
+            assertEquals(endX, x(leg.apply(start)));
+            assertEquals(endY, y(leg.apply(start)));
+            assertTrue(leg.getTextLength() <= LegPlanner.LEGACY.planLeg(start, endX, endY).getTextLength());
+        }
+    }
+
+    @Test(timeout = 5_000)
+    public void validateLongLegsWithoutZonesInTheWayAreNotSearched() {
+        // A search over the box of these legs would need trillions of states, so they must be built straight away
+        final List<int[]> zones = singleZone(0, 0, 2, 2);
+        zones.add(new int[]{-1, 1_000_005, 1, 1_000_006});
+        final AStarLegPlanner[] planners = {new AStarLegPlanner(), new AStarLegPlanner(ObstacleMap.of(zones))};
+        final Random random = new Random(1_000_000);
+        for (int test = 0; test < 10_000; test++) {
+            final AStarLegPlanner planner = planners[test % planners.length];
+            // The zone in the middle of the box is never in the way, as the legs go around it
+            final long start = pack(-random.nextInt(1_000_000) - 1, -1_000_000, random.nextInt(4));
+            final int endX = random.nextInt(1_000_000) + 3;
+            final int endY = 1_000_000 - random.nextInt(3);
+            final CommandRuns leg = planner.planLeg(start, endX, endY);
+            assertEquals(endX, x(leg.apply(start)));
+            assertEquals(endY, y(leg.apply(start)));
+            assertEquals(AStarLegPlanner.heuristic(x(start), y(start), orientation(start), endX, endY),
+                         leg.getTextLength());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateADestinationInAZoneIsRejected() {
+        new AStarLegPlanner(ObstacleMap.of(singleZone(2, 2, 3, 3)), ZONES_RADIO).planLeg(pack(0, 0, 1), 3, 2);
+    }
+
+    private static void validateAgainstBreadthFirstSearch(final int maxOperationRadio, final int referenceRadio,
+                                                          final int legs, final int legsPerMap) {
+        final Random random = new Random(maxOperationRadio);
+        ObstacleMap obstacles = ObstacleMap.EMPTY;
+        AStarLegPlanner planner = null;
+        int unreachable = 0;
+        for (int test = 0; test < legs; test++) {
+            if (test % legsPerMap == 0) {
+                obstacles = randomZones(random);
+                planner = new AStarLegPlanner(obstacles, maxOperationRadio);
+            }
+            final int startX = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            final int startY = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            final int endX = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            final int endY = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            if (obstacles.isBlocked(startX, startY) || obstacles.isBlocked(endX, endY)) {
+                continue;
+            }
+            final long start = pack(startX, startY, random.nextInt(4));
+            final int expected = breadthFirstSearch(obstacles, referenceRadio, start, endX, endY);
+            final String leg;
+            try {
+                leg = planner.planLeg(start, endX, endY).toString();
+            } catch (final IllegalArgumentException exception) {
+                assertEquals("Leg " + test + " is reachable", -1, expected);
+                unreachable++;
+                continue;
+            }
+            assertEquals("Leg " + test, expected, leg.length());
+            fly(obstacles, maxOperationRadio, start, leg, endX, endY);
+        }
+        assertTrue(unreachable < legs / 10);
+    }
+
+    /**
+     * Flies the leg command by command, checking that it never enters a zone nor leaves the operation area.
+     */
+    private static void fly(final ObstacleMap obstacles, final int maxOperationRadio, final long start, final String leg,
+                            final int endX, final int endY) {
+        int x = x(start);
+        int y = y(start);
+        int orientation = orientation(start);
+        for (int i = 0; i < leg.length(); i++) {
+            switch (leg.charAt(i)) {
+                case 'A':
+                    x += DX[orientation];
+                    y += DY[orientation];
+                    assertTrue(!obstacles.isBlocked(x, y));
+                    assertTrue(Math.abs(x) <= maxOperationRadio && Math.abs(y) <= maxOperationRadio);
+                    break;
+                case 'I':
+                    orientation = (orientation + 1) & 3;
+                    break;
+                default:
+                    orientation = (orientation + 3) & 3;
+                    break;
+            }
+        }
+        assertEquals(endX, x);
+        assertEquals(endY, y);
+    }
+
+    /**
+     * @return the minimum number of commands of the leg within the square of the given radio, -1 if unreachable.
+     */
+    private static int breadthFirstSearch(final ObstacleMap obstacles, final int radio, final long start,
+                                          final int endX, final int endY) {
+        final int width = 2 * radio + 1;
+        final int[] distances = new int[width * width * 4];
+        Arrays.fill(distances, -1);
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        final int first = stateOf(x(start), y(start), orientation(start), radio);
+        distances[first] = 0;
+        queue.add(first);
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            final int orientation = state & 3;
+            final int x = (state >> 2) % width - radio;
+            final int y = (state >> 2) / width - radio;
+            if (x == endX && y == endY) {
+                return distances[state];
+            }
+            final int nextX = x + DX[orientation];
+            final int nextY = y + DY[orientation];
+            final List<Integer> next = new ArrayList<>(3);
+            if (Math.abs(nextX) <= radio && Math.abs(nextY) <= radio && !obstacles.isBlocked(nextX, nextY)) {
+                next.add(stateOf(nextX, nextY, orientation, radio));
+            }
+            next.add(stateOf(x, y, (orientation + 1) & 3, radio));
+            next.add(stateOf(x, y, (orientation + 3) & 3, radio));
+            for (final int nextState : next) {
+                if (distances[nextState] < 0) {
+                    distances[nextState] = distances[state] + 1;
+                    queue.add(nextState);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int stateOf(final int x, final int y, final int orientation, final int radio) {
+        return ((y + radio) * (2 * radio + 1) + (x + radio)) << 2 | orientation;
+    }
+
+    private static ObstacleMap randomZones(final Random random) {
+        final List<int[]> zones = new ArrayList<>();
+        for (int zone = random.nextInt(6) + 1; zone > 0; zone--) {
+            final int x = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            final int y = random.nextInt(2 * ZONES_RADIO + 1) - ZONES_RADIO;
+            final int width = random.nextInt(5);
+            final int height = random.nextInt(5);
+            zones.add(new int[]{x, y, Math.min(x + width, ZONES_RADIO), Math.min(y + height, ZONES_RADIO)});
+        }
+        return ObstacleMap.of(zones);
+    }
+
+    private static List<int[]> singleZone(final int x1, final int y1, final int x2, final int y2) {
+        final List<int[]> zones = new ArrayList<>();
+        zones.add(new int[]{x1, y1, x2, y2});
+        return zones;
+    }
+}
@@ -0,0 +1,136 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AirspaceOccupancyMapTest {
+
+    @Test
+    public void validateEachCellHasASingleOwnerUnderConcurrentClaims() throws Exception {
+        final int threads = 4;
+        // A power of two, so each odd stride visits every cell once
+        final int cells = 4_096;
+        final AirspaceOccupancyMap map = new AirspaceOccupancyMap(cells);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(threads);
+            final List<Future<int[]>> results = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                final int droneId = thread + 1;
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    final int[] owners = new int[cells];
+                    for (int cell = 0; cell < cells; cell++) {
+                        // Each drone claims the cells in a different order, so the claims collide all the time
+                        final int index = (cell * (droneId * 2 + 1)) % cells;
+                        final int other = map.claim(index % 64 - 32, index / 64 - 32, 7, droneId);
+                        owners[index] = other == 0 ? droneId : other;
+                    }
+                    return owners;
+                }));
+            }
+            final int[] expected = results.get(0).get();
+            for (final Future<int[]> result : results) {
+                final int[] owners = result.get();
+                for (int cell = 0; cell < cells; cell++) {
+                    assertTrue(owners[cell] > 0);
+                    assertEquals("Cell " + cell, expected[cell], owners[cell]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void validateTheSlotsOfStaleTicksAreReused() {
+        // The smallest map has 16 slots, so every window reuses the slots of the previous ones
+        final AirspaceOccupancyMap map = new AirspaceOccupancyMap(1);
+        for (int window = 0; window < 1_000; window++) {
+            final long tick = window * 2L;
+            map.startWindow(tick);
+            for (int cell = 0; cell < 8; cell++) {
+                assertEquals(0, map.claim(cell, window % 7, tick, 1));
+                assertEquals(0, map.claim(cell, window % 7, tick, 1));
+                assertEquals(1, map.claim(cell, window % 7, tick, 2));
+            }
+        }
+    }
+
+    @Test
+    public void validateTheOwnerIsReadAfterItIsPublished() throws Exception {
+        // The slots are reused every round, so a claim that reads the owner of the stale key instead of waiting for the
+        // owner of the new one would answer with a drone of a previous round
+        final AirspaceOccupancyMap map = new AirspaceOccupancyMap(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 5_000; round++) {
+                final long tick = round;
+                map.startWindow(tick);
+                final CyclicBarrier barrier = new CyclicBarrier(2);
+                final int firstId = 2 * round % 1_000 + 1;
+                final Future<Integer> first = executor.submit(claim(map, barrier, tick, firstId));
+                final Future<Integer> second = executor.submit(claim(map, barrier, tick, firstId + 1));
+                final int firstOther = first.get();
+                final int secondOther = second.get();
+                if (firstOther == 0) {
+                    assertEquals(firstId, secondOther);
+                } else {
+                    assertEquals(firstId + 1, firstOther);
+                    assertEquals(0, secondOther);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void validateTheClaimsMatchAHashMapReplay() {
+        final Random random = new Random(17);
+        final int windowTicks = 16;
+        final AirspaceOccupancyMap map = new AirspaceOccupancyMap(64 * windowTicks);
+        final Map<Long, Integer> owners = new HashMap<>();
+        for (int window = 0; window < 200; window++) {
+            final long windowStart = (long) window * windowTicks;
+            map.startWindow(windowStart);
+            owners.clear();
+            for (int claim = 0; claim < 64 * windowTicks; claim++) {
+                final int x = random.nextInt(9) - 4;
+                final int y = random.nextInt(9) - 4;
+                final long tick = windowStart + random.nextInt(windowTicks);
+                final int droneId = random.nextInt(5) + 1;
+                final long cell = tick << 32 | (x & 0xFFFFL) << 16 | (y & 0xFFFFL);
+                final Integer owner = owners.putIfAbsent(cell, droneId);
+                final int expected = owner == null || owner == droneId ? 0 : owner;
+                assertEquals(expected, map.claim(x, y, tick, droneId));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateACellOutOfTheAirspaceIsRejected() {
+        new AirspaceOccupancyMap(8).claim(1 << 15, 0, 0, 1);
+    }
+
+    private static Callable<Integer> claim(final AirspaceOccupancyMap map, final CyclicBarrier barrier, final long tick,
+                                           final int droneId) {
+        return () -> {
+            barrier.await();
+            return map.claim(3, 4, tick, droneId);
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.util.CommandRuns;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AirspaceSimulatorTest {
+
+    @Test
+    public void validateTheFlightReplaysTheDeliveredTours() {
+        final Random random = new Random(17);
+        final PositionColumns points = new PositionColumns();
+        for (int i = 0; i < 300; i++) {
+            points.add(pack(random.nextInt(21) - 10, random.nextInt(21) - 10, 1));
+        }
+        // The tours are recorded as planned, so the flight does NOT depend on planning the same tour twice
+        final TourPlanner tourPlanner = new TourPlanner(10, LegPlanner.LEGACY, new NearestNeighbourTourOrderer(16),
+                                                        TourBuilder.FIXED_LOAD);
+        final TourPlanner.Flight flight = new TourPlanner.Flight();
+        final List<List<CommandRuns>> tours = new ArrayList<>();
+        final PositionColumns deliveries = tourPlanner.planTours(points, 0, points.size(), 10, tours::add);
+        tours.forEach(flight::addTour);
+
+        final List<Long> visited = new ArrayList<>();
+        long commands = 0;
+        for (final List<CommandRuns> legs : tours) {
+            for (final CommandRuns leg : legs) {
+                commands += leg.getTextLength();
+            }
+        }
+        int command;
+        while ((command = flight.peek()) >= 0) {
+            final long before = flight.getState();
+            flight.advance();
+            if (command == 'A') {
+                visited.add(flight.getState());
+            }
+            assertTrue(before != flight.getState());
+            commands--;
+        }
+        assertEquals(0, commands);
+        for (int i = 0; i < deliveries.size(); i++) {
+            final long delivery = deliveries.getState(i);
+            assertTrue("Delivery " + i, visited.stream().anyMatch(state -> x(state) == x(delivery) && y(state) == y(delivery)));
+        }
+        assertEquals(0, x(flight.getState()));
+        assertEquals(0, y(flight.getState()));
+    }
+
+    @Test
+    public void validateTheConflictsOfTheSameFlightAreDetectedAndResolved() {
+        final List<CommandRuns> tour = Arrays.asList(CommandRuns.parse("AAAA"), CommandRuns.parse("IIAAAA"));
+        final AirspaceSimulator.Report report = new AirspaceSimulator(AirspaceSimulator.Mode.REPORT, 4)
+                .simulate(Arrays.asList(flightOf(tour), flightOf(tour)));
+        // The same 10 commands at the same ticks, all of them in conflict but the landing in the depot
+        assertEquals(9, report.getConflicts());
+        assertEquals(10, report.getMakespanTicks());
+
+        final AirspaceSimulator.Report resolved = new AirspaceSimulator(AirspaceSimulator.Mode.RESOLVE, 4)
+                .simulate(Arrays.asList(flightOf(tour), flightOf(tour)));
+        assertTrue(resolved.getWaits() > 0);
+        assertEquals(20, resolved.getCommands());
+        assertTrue(resolved.getMakespanTicks() > report.getMakespanTicks());
+    }
+
+    private static TourPlanner.Flight flightOf(final List<CommandRuns> tour) {
+        final TourPlanner.Flight flight = new TourPlanner.Flight();
+        flight.addTour(tour);
+        return flight;
+    }
+}
@@ -0,0 +1,173 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.service.Position.Orientation;
+import com.s4n.delivery.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryRouteFileTest {
+
+    private static final List<String> ROUTES = Arrays.asList("AAAAIAAD", "DDAIAD", "AAIADAD", "IIDDA");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateRoutesRoundTrip() throws IOException {
+        final Path inputs = folder.newFolder("inputs").toPath();
+        final Path writtenBack = folder.newFolder("written-back").toPath();
+        Files.write(inputs.resolve("in01.txt"), ROUTES, US_ASCII);
+        Files.write(inputs.resolve("in02.txt"), ROUTES.subList(1, 3), US_ASCII);
+        final Path binary = inputs.resolve("routes.bin");
+        final BinaryFormatConverter converter = new BinaryFormatConverter(config());
+
+        converter.routesToBinary(inputs, binary);
+        converter.binaryToRoutes(binary, writtenBack);
+
+        // The commands come back normalized, and converting them again gives the same binary file
+        assertEquals(normalized(ROUTES), Files.readAllLines(writtenBack.resolve("in01.txt"), US_ASCII));
+        assertEquals(normalized(ROUTES.subList(1, 3)), Files.readAllLines(writtenBack.resolve("in02.txt"), US_ASCII));
+        final Path again = folder.getRoot().toPath().resolve("again.bin");
+        converter.routesToBinary(writtenBack, again);
+        assertArrayEquals(Files.readAllBytes(binary), Files.readAllBytes(again));
+        try (final BinaryRouteFile file = BinaryRouteFile.open(binary)) {
+            assertEquals(BinaryRouteFile.Kind.ROUTES, file.getKind());
+            assertEquals(Arrays.asList("01", "02"), file.getCodes());
+            assertEquals(ROUTES.size(), file.getNumberOfPositions("01"));
+        }
+    }
+
+    @Test
+    public void validateReportsRoundTrip() throws IOException {
+        final Path reports = folder.newFolder("reports").toPath();
+        final Path writtenBack = folder.newFolder("written-back").toPath();
+        writeReport(reports.resolve("out01.txt"), 50);
+        writeReport(reports.resolve("out02.txt"), 0);
+        final Path binary = folder.getRoot().toPath().resolve("reports.bin");
+        final BinaryFormatConverter converter = new BinaryFormatConverter(config());
+
+        converter.reportsToBinary(reports, binary);
+        converter.binaryToReports(binary, writtenBack);
+
+        for (final String report : Arrays.asList("out01.txt", "out02.txt")) {
+            assertArrayEquals(report, Files.readAllBytes(reports.resolve(report)),
+                              Files.readAllBytes(writtenBack.resolve(report)));
+        }
+    }
+
+    @Test
+    public void validateABadMagicNumberIsRejected() throws IOException {
+        final Path file = folder.newFile("bad-magic.bin").toPath();
+        Files.write(file, new byte[64]);
+        assertRejected(file, "Not a binary route file");
+    }
+
+    @Test
+    public void validateAnUnknownVersionIsRejected() throws IOException {
+        final Path file = writeRoutes();
+        patch(file, buffer -> buffer.putShort(4, (short) (BinaryRouteFile.VERSION + 1)));
+        assertRejected(file, "Unsupported version");
+    }
+
+    @Test
+    public void validateATruncatedIndexIsRejected() throws IOException {
+        final Path file = writeRoutes();
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 20));
+        assertRejected(file, "Truncated binary route file");
+    }
+
+    @Test
+    public void validateACorruptedIndexIsRejected() throws IOException {
+        final Path file = writeRoutes();
+        // The offset of the section of the first drone points into the header
+        patch(file, buffer -> buffer.putLong(16, 8));
+        assertRejected(file, "Corrupted index entry 0");
+
+        final Path negativeCount = writeRoutes();
+        patch(negativeCount, buffer -> buffer.putInt(16 + Long.BYTES, -1));
+        assertRejected(negativeCount, "Corrupted index entry 0");
+    }
+
+    @Test
+    public void validateACorruptedRouteLengthIsRejected() throws IOException {
+        final Path file = writeRoutes();
+        // The length of the first route goes past the commands of the drone
+        patch(file, buffer -> {
+            final int section = (int) buffer.getLong(16);
+            buffer.putInt(section + Long.BYTES * ROUTES.size(), Integer.MAX_VALUE);
+        });
+        try (final BinaryRouteFile binary = BinaryRouteFile.open(file)) {
+            binary.readRoutes("01", false);
+            fail("The corrupted length of the route was NOT rejected");
+        } catch (final IOException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().startsWith("Corrupted length of the route 0"));
+        }
+    }
+
+    private Path writeRoutes() throws IOException {
+        final RouteColumns routes = new RouteColumns();
+        for (int i = 0; i < ROUTES.size(); i++) {
+            routes.add(ROUTES.get(i), pack(i, -i, Orientation.N.ordinal()));
+        }
+        final Path file = folder.getRoot().toPath().resolve("routes-" + System.nanoTime() + ".bin");
+        BinaryRouteFile.writeRoutes(file, Collections.singletonMap("01", routes));
+        return file;
+    }
+
+    private static void patch(final Path file, final Consumer<ByteBuffer> patch) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        patch.accept(buffer);
+        Files.write(file, buffer.array());
+    }
+
+    private static void assertRejected(final Path file, final String message) {
+        try (final BinaryRouteFile binary = BinaryRouteFile.open(file)) {
+            fail("The file was NOT rejected, it has " + binary.getCodes().size() + " drones");
+        } catch (final IOException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().startsWith(message));
+        }
+    }
+
+    private static void writeReport(final Path file, final int lines) throws IOException {
+        try (final ReportWriter writer = ReportWriter.open(file)) {
+            writer.writeHeader();
+            for (int i = 0; i < lines; i++) {
+                writer.writeLine(i - 25, 25 - i, i % 4);
+            }
+        }
+    }
+
+    private static List<String> normalized(final List<String> commands) {
+        final RouteColumns routes = new RouteColumns();
+        commands.forEach(route -> routes.add(route, 0));
+        final String[] normalized = new String[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            normalized[i] = routes.getNormalizedCommands(i);
+        }
+        return Arrays.asList(normalized);
+    }
+
+    private static Config config() {
+        return new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE));
+    }
+}
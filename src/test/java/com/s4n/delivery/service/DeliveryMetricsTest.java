@@ -0,0 +1,132 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.util.CommandRuns;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DeliveryMetricsTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateTheTourCounterCountsTheToursAndTheCommandsOfAllTheLegs() {
+        final DeliveryMetrics metrics = new DeliveryMetrics(true);
+        final Consumer<List<CommandRuns>> tourCounter = metrics.tourCounter("01");
+        // The last leg of each tour is the leg back to the origin
+        tourCounter.accept(Arrays.asList(CommandRuns.parse("AAI"), CommandRuns.parse("DA"), CommandRuns.parse("IIAA")));
+        tourCounter.accept(Arrays.asList(CommandRuns.parse("AAAAA"), CommandRuns.parse("IIAAAAA")));
+
+        final DeliveryMetrics.DroneSummary drone = metrics.getDrones().get("01");
+        assertEquals(2, drone.getTours());
+        assertEquals(3 + 2 + 4 + 5 + 7, drone.getCommandsFlown());
+    }
+
+    @Test
+    public void validateTheRoutesAndTheAbortedDeliveriesAreCountedPerDrone() {
+        final DeliveryMetrics metrics = new DeliveryMetrics(true);
+        metrics.recordRoutes("01", 10);
+        metrics.recordRoutes("01", 5);
+        metrics.recordRoutes("02", 3);
+        metrics.recordAbortedDelivery("02");
+        metrics.recordAbortedDelivery("03");
+        metrics.recordAbortedDelivery("03");
+
+        assertEquals(Arrays.asList("01", "02", "03"), Arrays.asList(metrics.getDrones().keySet().toArray()));
+        assertEquals(15, metrics.getDrones().get("01").getRoutes());
+        assertEquals(0, metrics.getDrones().get("01").getAbortedDeliveries());
+        assertEquals(3, metrics.getDrones().get("02").getRoutes());
+        assertEquals(1, metrics.getDrones().get("02").getAbortedDeliveries());
+        assertEquals(0, metrics.getDrones().get("03").getRoutes());
+        assertEquals(2, metrics.getDrones().get("03").getAbortedDeliveries());
+    }
+
+    @Test
+    public void validateTheDisabledMetricsDecorateAndRecordNothing() {
+        final DeliveryMetrics metrics = DeliveryMetrics.DISABLED;
+        assertSame(LegPlanner.LEGACY, metrics.timed(LegPlanner.LEGACY));
+        assertNull(metrics.tourCounter("01"));
+        assertEquals(0, metrics.start());
+        metrics.recordPhase(DeliveryMetrics.Phase.COLLECT, metrics.start());
+        metrics.recordRoutes("01", 10);
+        metrics.recordAbortedDelivery("01");
+        assertTrue(metrics.getPhases().isEmpty());
+        assertTrue(metrics.getDrones().isEmpty());
+    }
+
+    @Test
+    public void validateTheSummaryFilesHaveALinePerMetricAndPerDrone() throws IOException {
+        final DeliveryMetrics metrics = new DeliveryMetrics(true);
+        metrics.recordPhase(DeliveryMetrics.Phase.COLLECT, metrics.start());
+        metrics.timed(LegPlanner.LEGACY).planLeg(pack(0, 0, 1), 2, 3);
+        metrics.recordReportWrite(metrics.start());
+        metrics.recordRoutes("02", 4);
+        metrics.tourCounter("02").accept(Arrays.asList(CommandRuns.parse("AA"), CommandRuns.parse("IIAA")));
+        metrics.recordAbortedDelivery("01");
+
+        final Path output = folder.getRoot().toPath();
+        metrics.writeSummary(output);
+
+        final List<String> summary = Files.readAllLines(output.resolve(DeliveryMetrics.SUMMARY_FILE_NAME));
+        assertEquals(4, summary.size());
+        assertEquals("metric,count,totalMillis,meanMicros,p50Micros,p99Micros,maxMicros", summary.get(0));
+        assertTrue(summary.get(1).startsWith("COLLECT,1,"));
+        assertTrue(summary.get(2).startsWith("LEG_PLANNING,1,"));
+        assertTrue(summary.get(3).startsWith("REPORT_WRITES,1,"));
+        for (final String line : summary.subList(1, summary.size())) {
+            assertEquals(line, 7, line.split(",").length);
+        }
+        assertEquals(Arrays.asList("drone,routes,tours,commandsFlown,abortedDeliveries", "01,0,0,0,1", "02,4,1,6,0"),
+                     Files.readAllLines(output.resolve(DeliveryMetrics.DRONES_FILE_NAME)));
+    }
+
+    @Test
+    public void validateTheMetricsOfANewerServiceStayPublished() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(DeliveryMetrics.OBJECT_NAME);
+        final DeliveryMetrics first = new DeliveryMetrics(true);
+        final DeliveryMetrics second = new DeliveryMetrics(true);
+        second.timed(LegPlanner.LEGACY).planLeg(pack(0, 0, 1), 2, 3);
+        try {
+            first.register();
+            assertEquals(0L, legPlanningCount(server, name));
+            second.register();
+            assertEquals(1L, legPlanningCount(server, name));
+
+            // The first service is closed after the second one started
+            first.unregister();
+            assertTrue(server.isRegistered(name));
+            assertEquals(1L, legPlanningCount(server, name));
+            second.unregister();
+            assertFalse(server.isRegistered(name));
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+
+    private static Object legPlanningCount(final MBeanServer server, final ObjectName name) throws JMException {
+        return ((CompositeData) server.getAttribute(name, "LegPlanning")).get("count");
+    }
+}
@@ -0,0 +1,67 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventQueueTest {
+
+    @Test
+    public void validateTheEventsArePolledInTimeOrder() {
+        final EventQueue events = new EventQueue(4);
+        events.schedule(30, 0);
+        events.schedule(10, 1);
+        events.schedule(20, 2);
+
+        assertEquals(10, events.peekTime());
+        assertEquals(1, events.poll());
+        assertEquals(20, events.peekTime());
+        assertEquals(2, events.poll());
+        assertEquals(30, events.peekTime());
+        assertEquals(0, events.poll());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void validateTheTiesArePolledInEntityOrder() {
+        final EventQueue events = new EventQueue(4);
+        events.schedule(5, 3);
+        events.schedule(5, 1);
+        events.schedule(5, 2);
+        events.schedule(1, 9);
+
+        assertEquals(9, events.poll());
+        assertEquals(1, events.poll());
+        assertEquals(2, events.poll());
+        assertEquals(3, events.poll());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void validateTheQueueGrowsAndKeepsTheOrder() {
+        // Few distinct times, so most of the events are ties, and a capacity of zero, so the queue has to grow
+        final Random random = new Random(3);
+        final EventQueue events = new EventQueue(0);
+        final List<long[]> scheduled = new ArrayList<>();
+        for (int entity = 0; entity < 1_000; entity++) {
+            final long time = random.nextInt(20);
+            events.schedule(time, entity);
+            scheduled.add(new long[]{time, entity});
+        }
+        scheduled.sort((first, second) -> first[0] != second[0] ? Long.compare(first[0], second[0])
+                                                                 : Long.compare(first[1], second[1]));
+
+        for (final long[] event : scheduled) {
+            assertFalse(events.isEmpty());
+            assertEquals(event[0], events.peekTime());
+            assertEquals(event[1], events.poll());
+        }
+        assertTrue(events.isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FleetSchedulerTest {
+
+    @Test
+    public void validateRoundRobinQueuesAndStealing() {
+        // With a same-thread executor the slots run one after the other: the first slot takes its own jobs in order
+        // and then steals the jobs of the second slot from the end of its deque
+        final List<Integer> processed = new ArrayList<>();
+        final FleetScheduler.Report report = new FleetScheduler(2, Runnable::run).run(jobs(6), processed::add);
+
+        assertEquals(Arrays.asList(0, 2, 4, 5, 3, 1), processed);
+        assertEquals(2, report.getNumberOfSlots());
+        assertEquals(6, report.getCompletedJobs(0));
+        assertEquals(3, report.getStolenJobs(0));
+        assertEquals(0, report.getCompletedJobs(1));
+        assertEquals(0.0, report.getUtilization(1), 0.0);
+        assertTrue(report.getUtilization(0) > 0 && report.getUtilization(0) <= 1);
+    }
+
+    @Test
+    public void validateTheSlotsAreBoundedByTheJobs() {
+        final FleetScheduler.Report report = new FleetScheduler(20, Runnable::run).run(jobs(3), job -> { });
+        assertEquals(3, report.getNumberOfSlots());
+        assertEquals(1, new FleetScheduler(20, Runnable::run).run(jobs(0), job -> { }).getNumberOfSlots());
+    }
+
+    @Test
+    public void validateEveryJobRunsOnceWithConcurrentSlots() {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Set<Integer> processed = ConcurrentHashMap.newKeySet();
+            final List<Integer> duplicates = new ArrayList<>();
+            final FleetScheduler.Report report = new FleetScheduler(4, executor).run(jobs(1_000), job -> {
+                if (!processed.add(job)) {
+                    synchronized (duplicates) {
+                        duplicates.add(job);
+                    }
+                }
+            });
+            assertEquals(1_000, processed.size());
+            assertTrue(duplicates.isEmpty());
+            int completed = 0;
+            for (int slot = 0; slot < report.getNumberOfSlots(); slot++) {
+                completed += report.getCompletedJobs(slot);
+            }
+            assertEquals(1_000, completed);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void validateTheFailureOfAJobIsRethrown() {
+        new FleetScheduler(2, Runnable::run).run(jobs(4), job -> {
+            if (job == 3) {
+                throw new IllegalStateException("Failed job");
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validateAFleetWithoutDronesIsRejected() {
+        new FleetScheduler(0, Runnable::run);
+    }
+
+    private static List<Integer> jobs(final int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.planner.LegPlanner;
+import com.s4n.delivery.util.FileUtils;
+import com.s4n.delivery.util.CommandRuns;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.SIMULATION_FLEET_SIZES_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_LOADS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_REPLICATIONS_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FleetSimulatorTest {
+
+    // A forward command takes 1 s, a gyro 0.5 s, the loading 0.1 s and each drop 0.01 s
+    private static final FleetSimulator.Durations DURATIONS = new FleetSimulator.Durations(1_000, 500, 100, 10, 0);
+
+    @Test
+    public void validateTheMakespanOfASingleDrone() {
+        // First tour: 100 + (2000 + 10) to deliver + (1000 + 2000) back = 5110
+        // Second tour: 5110 + 100 + (1000 + 10) to deliver + (1000 + 1000) back = 8220
+        final FleetSimulator.Result result = new FleetSimulator(DURATIONS).simulate(tours(), 1, 1, 0, 2);
+
+        assertEquals(8_220, result.getMakespanMillis());
+        assertEquals(2, result.getDeliveries());
+        // The start of the drone and the end of the loading, the leg and the return of each tour
+        assertEquals(7, result.getEvents());
+        assertEquals(1.0, result.getUtilization(0), 0.0);
+        // The deliveries at 2110 and 6220, with buckets of 4110
+        assertEquals(4_110, result.getBucketMillis());
+        assertArrayEquals(new int[]{1, 2}, result.getCumulativeDeliveries());
+    }
+
+    @Test
+    public void validateTheMakespanOfTwoDrones() {
+        // Each drone takes one tour at time 0: the first one is back at 5110 and the second one at
+        // 100 + (1000 + 10) + (1000 + 1000) = 3110
+        final FleetSimulator.Result result = new FleetSimulator(DURATIONS).simulate(tours(), 2, 1, 0, 2);
+
+        assertEquals(5_110, result.getMakespanMillis());
+        assertEquals(2, result.getDeliveries());
+        assertEquals(1.0, result.getUtilization(0), 0.0);
+        assertEquals(3_110.0 / 5_110, result.getUtilization(1), 1e-9);
+        // The deliveries at 1110 and 2110, both in the first bucket of 2555
+        assertArrayEquals(new int[]{2, 2}, result.getCumulativeDeliveries());
+    }
+
+    @Test
+    public void validateTheToursOfTheTourPlannerAreFlown() {
+        final Random random = new Random(11);
+        final PositionColumns points = new PositionColumns();
+        for (int i = 0; i < 200; i++) {
+            points.add(pack(random.nextInt(21) - 10, random.nextInt(21) - 10, 1));
+        }
+        final List<List<CommandRuns>> tours = new ArrayList<>();
+        new TourPlanner(10, LegPlanner.LEGACY, new NearestNeighbourTourOrderer(16), new SweepTourBuilder(40))
+                .planTours(points, 0, points.size(), 3, tours::add);
+        final FleetSimulator.Durations jittered = new FleetSimulator.Durations(1_000, 500, 100, 10, 0.2);
+
+        final FleetSimulator.Result result = new FleetSimulator(jittered).simulate(tours, 4, 3, 7, 10);
+
+        assertEquals(points.size(), result.getDeliveries());
+        // The start of each drone, and the end of the loading and of each leg of each tour
+        assertEquals(4 + tours.size() + countLegs(tours), result.getEvents());
+        assertEquals(points.size(), result.getCumulativeDeliveries()[9]);
+        // The same replication is the same seed of the jitter
+        assertEquals(result.getMakespanMillis(),
+                     new FleetSimulator(jittered).simulate(tours, 4, 3, 7, 10).getMakespanMillis());
+    }
+
+    @Test
+    public void validateNonPositiveSimulationSettingsAreRejected() {
+        final String[][] settings = {
+                {SIMULATION_FLEET_SIZES_PROPERTY_NAME, "2,0"},
+                {SIMULATION_FLEET_SIZES_PROPERTY_NAME, "-1"},
+                {SIMULATION_LOADS_PROPERTY_NAME, "0"},
+                {SIMULATION_REPLICATIONS_PROPERTY_NAME, "0"},
+                {SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME, "0"},
+                {SIMULATION_THROUGHPUT_BUCKETS_PROPERTY_NAME, "-5"}};
+        for (final String[] setting : settings) {
+            final Properties overrides = new Properties();
+            overrides.setProperty(setting[0], setting[1]);
+            final Config config = new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE), overrides);
+            try (final DeliveryService deliveryService = new DeliveryServiceImpl(config)) {
+                deliveryService.simulate();
+                fail(setting[0] + "=" + setting[1] + " should be rejected");
+            } catch (final IllegalStateException exception) {
+                assertEquals("The simulation settings must be positive, please validate.", exception.getMessage());
+            }
+        }
+    }
+
+    private static int countLegs(final List<List<CommandRuns>> tours) {
+        return tours.stream().mapToInt(List::size).sum();
+    }
+
+    private static List<List<CommandRuns>> tours() {
+        return Arrays.asList(Arrays.asList(CommandRuns.parse("AA"), CommandRuns.parse("IIAA")),
+                             Arrays.asList(CommandRuns.parse("A"), CommandRuns.parse("IIA")));
+    }
+}
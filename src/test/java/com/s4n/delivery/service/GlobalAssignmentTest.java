@@ -0,0 +1,99 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.util.FileUtils;
+import com.s4n.delivery.util.RouteUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.GLOBAL_ASSIGNMENT_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.INPUT_FOLDER_PATH_PROPERTY_NAME;
+import static com.s4n.delivery.app.Constants.OUTPUT_FOLDER_PATH_PROPERTY_NAME;
+import static com.s4n.delivery.service.Position.Orientation.N;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class GlobalAssignmentTest {
+
+    private static final int MAX_OPERATION_RADIO = 5;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateTheSampleInputsAreDeliveredToTheSamePoints() throws Exception {
+        assertSameDeliveries(null);
+    }
+
+    @Test
+    public void validateManyFilesAreDeliveredToTheSamePoints() throws Exception {
+        final Path inputFolder = folder.newFolder("inputs").toPath();
+        final Random random = new Random(15);
+        for (int file = 1; file <= 6; file++) {
+            final StringBuilder routes = new StringBuilder();
+            for (int route = 0; route < 50 * file; route++) {
+                final Position pointOfDelivery = new Position(random.nextInt(2 * MAX_OPERATION_RADIO + 1) - MAX_OPERATION_RADIO,
+                                                              random.nextInt(2 * MAX_OPERATION_RADIO + 1) - MAX_OPERATION_RADIO, N);
+                routes.append(RouteUtils.calculateRouteCommands(new Position(0, 0, N), pointOfDelivery)).append('\n');
+            }
+            Files.write(inputFolder.resolve("in0" + file + ".txt"), routes.toString().getBytes(US_ASCII));
+        }
+        assertSameDeliveries(inputFolder);
+    }
+
+    /**
+     * Delivers the inputs with and without the global assignment: the tours differ, so the orientation of a delivery
+     * may differ too, but every package must be delivered at its point and reported in the line of its route.
+     */
+    private void assertSameDeliveries(final Path inputFolder) throws Exception {
+        final Map<String, List<Position>> byFile = deliver(inputFolder, false);
+        final Map<String, List<Position>> globally = deliver(inputFolder, true);
+        assertEquals(byFile.keySet(), globally.keySet());
+        for (final Map.Entry<String, List<Position>> drone : byFile.entrySet()) {
+            final List<Position> expected = drone.getValue();
+            final List<Position> actual = globally.get(drone.getKey());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(drone.getKey() + " " + i, expected.get(i).getX(), actual.get(i).getX());
+                assertEquals(drone.getKey() + " " + i, expected.get(i).getY(), actual.get(i).getY());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<Position>> deliver(final Path inputFolder, final boolean globalAssignment) throws Exception {
+        final Properties overrides = new Properties();
+        overrides.setProperty(GLOBAL_ASSIGNMENT_PROPERTY_NAME, String.valueOf(globalAssignment));
+        overrides.setProperty(OUTPUT_FOLDER_PATH_PROPERTY_NAME, folder.newFolder().toString());
+        if (inputFolder != null) {
+            overrides.setProperty(INPUT_FOLDER_PATH_PROPERTY_NAME, inputFolder.toString());
+        }
+        final Config config = new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE), overrides);
+        final Set<File> inputFiles = FileUtils.loadAllInputFiles(config);
+        try (final DeliveryServiceImpl service = new DeliveryServiceImpl(config)) {
+            service.collect(inputFiles);
+            service.deliver();
+            final Field field = DeliveryServiceImpl.class.getDeclaredField("drones");
+            field.setAccessible(true);
+            final Map<String, List<Position>> deliveries = new HashMap<>();
+            for (final Drone drone : (Set<Drone>) field.get(service)) {
+                deliveries.put(drone.getCode(), drone.getPointsOfDelivery());
+            }
+            return deliveries;
+        }
+    }
+}
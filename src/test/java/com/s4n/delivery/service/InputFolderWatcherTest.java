@@ -0,0 +1,177 @@
+package com.s4n.delivery.service;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InputFolderWatcherTest {
+
+    private static final long SETTLE_MILLIS = 300;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void validateAFileIsProcessedOnceItSettles() throws Exception {
+        final Path inputs = folder.newFolder("inputs").toPath();
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        try (final InputFolderWatcher watcher = watcher(inputs, 1, file -> {
+            processed.add(read(file));
+            done.countDown();
+        })) {
+            final Thread running = start(watcher);
+            // The file is written in two parts, the second one within the settle time of the first one
+            final Path file = inputs.resolve("in01.txt");
+            Files.write(file, "AAAA\n".getBytes(US_ASCII));
+            Thread.sleep(SETTLE_MILLIS / 3);
+            Files.write(file, "DDDA\n".getBytes(US_ASCII), APPEND);
+
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            watcher.close();
+            running.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        }
+
+        assertEquals(1, processed.size());
+        assertEquals("AAAA\nDDDA\n", processed.get(0));
+    }
+
+    @Test
+    public void validateAFileChangedWhileInFlightIsProcessedAgain() throws Exception {
+        final Path inputs = folder.newFolder("inputs").toPath();
+        final Path file = inputs.resolve("in01.txt");
+        Files.write(file, "AAAA\n".getBytes(US_ASCII));
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        try (final InputFolderWatcher watcher = watcher(inputs, 1, input -> {
+            processed.add(read(input));
+            if (processed.size() == 1) {
+                // The file changes while it is processed, and the change settles before it is done
+                write(file, "DDDA\n");
+                sleep(3 * SETTLE_MILLIS);
+            }
+            done.countDown();
+        })) {
+            final Thread running = start(watcher);
+
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            watcher.close();
+            running.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        }
+
+        assertEquals(2, processed.size());
+        assertEquals("AAAA\n", processed.get(0));
+        assertEquals("AAAA\nDDDA\n", processed.get(1));
+    }
+
+    @Test
+    public void validateTheAcceptedFilesAreDrainedOnClose() throws Exception {
+        final Path inputs = folder.newFolder("inputs").toPath();
+        for (int i = 1; i <= 5; i++) {
+            Files.write(inputs.resolve("in0" + i + ".txt"), "A\n".getBytes(US_ASCII));
+        }
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final List<String> processed = new CopyOnWriteArrayList<>();
+        final Thread running;
+        try (final InputFolderWatcher watcher = watcher(inputs, 2, file -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            started.countDown();
+            await(release);
+            processed.add(file.getName());
+            inFlight.decrementAndGet();
+        })) {
+            running = start(watcher);
+            // The files already in the folder are accepted without waiting for the settle time
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            watcher.close();
+            running.join(SETTLE_MILLIS);
+            assertTrue("The watcher returned before finishing the accepted files", running.isAlive());
+            release.countDown();
+            running.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        }
+
+        assertFalse(running.isAlive());
+        assertEquals(5, processed.size());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    private InputFolderWatcher watcher(final Path inputs, final int slots, final Consumer<File> work) throws IOException {
+        return new InputFolderWatcher(inputs, file -> file.getFileName().toString().endsWith(".txt"), SETTLE_MILLIS,
+                                      slots, executor, work);
+    }
+
+    private static Thread start(final InputFolderWatcher watcher) {
+        final Thread thread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static String read(final File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), US_ASCII);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void write(final Path file, final String text) {
+        try {
+            Files.write(file, text.getBytes(US_ASCII), APPEND);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class NearestNeighbourTourOrdererTest {
+
+    @Test
+    public void validateThePackagesAreVisitedNearestFirst() {
+        // The first point belongs to another tour, so the indexes of the tour start at 1
+        final PositionColumns points = points(9, 9, 5, 0, 1, 0, 3, 0);
+        final int[] order = new int[3];
+        new NearestNeighbourTourOrderer(0).order(points, 1, 4, order);
+        assertArrayEquals(new int[]{2, 3, 1}, order);
+    }
+
+    @Test
+    public void validateTwoOptRemovesTheCrossingOfTheNearestNeighbourTour() {
+        // Nearest first: (2, 0), (1, -2), (2, -3), (-2, -2), 16 units, whose legs 2 and 4 cross
+        final PositionColumns points = points(1, -2, 2, 0, -2, -2, 2, -3);
+        final int[] order = new int[4];
+        new NearestNeighbourTourOrderer(0).order(points, 0, 4, order);
+        assertArrayEquals(new int[]{1, 0, 3, 2}, order);
+
+        // Reversing the middle segment: (2, 0), (2, -3), (1, -2), (-2, -2), 14 units
+        new NearestNeighbourTourOrderer(16).order(points, 0, 4, order);
+        assertArrayEquals(new int[]{1, 3, 0, 2}, order);
+    }
+
+    @Test
+    public void validateTheFileOrderIsKeptIfTheOptimizedOneIsNotShorter() {
+        // Nearest first is (1, 0) and then (0, 2), 6 units, the same as the order of the file
+        final PositionColumns points = points(0, 2, 1, 0);
+        final int[] order = new int[2];
+        new NearestNeighbourTourOrderer(16).order(points, 0, 2, order);
+        assertArrayEquals(new int[]{0, 1}, order);
+    }
+
+    @Test
+    public void validateTheToursOfLessThanTwoPackagesAreKept() {
+        final PositionColumns points = points(5, 5, 1, 1);
+        final int[] order = {-1, -1};
+        new NearestNeighbourTourOrderer(16).order(points, 1, 2, order);
+        assertArrayEquals(new int[]{1, -1}, order);
+        new NearestNeighbourTourOrderer(16).order(points, 1, 1, order);
+        assertArrayEquals(new int[]{1, -1}, order);
+    }
+
+    private static PositionColumns points(final int... coordinates) {
+        final PositionColumns points = new PositionColumns();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(coordinates[i], coordinates[i + 1], 1);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,99 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import static com.s4n.delivery.service.Position.Orientation.E;
+import static com.s4n.delivery.service.Position.Orientation.N;
+import static com.s4n.delivery.service.Position.Orientation.S;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PositionColumnsTest {
+
+    @Test
+    public void validateGrowthKeepsThePositions() {
+        final PositionColumns columns = new PositionColumns(0);
+        for (int i = 0; i < 1_000; i++) {
+            columns.add(i, -i, i % 4);
+        }
+        assertEquals(1_000, columns.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i, columns.getX(i));
+            assertEquals(-i, columns.getY(i));
+            assertEquals(i % 4, columns.getOrientation(i));
+            assertEquals(pack(i, -i, i % 4), columns.getState(i));
+        }
+    }
+
+    @Test
+    public void validateAddAllAndClear() {
+        final PositionColumns first = new PositionColumns(1);
+        first.add(new Position(1, 2, N));
+        final PositionColumns second = new PositionColumns(1);
+        second.add(pack(3, 4, E.ordinal()));
+        second.add(pack(5, 6, S.ordinal()));
+        first.addAll(second);
+
+        assertEquals(3, first.size());
+        assertEquals(new Position(5, 6, S), first.getPosition(2));
+        first.clear();
+        assertTrue(first.isEmpty());
+        first.add(7, 8, 0);
+        assertEquals(7, first.getX(0));
+    }
+
+    @Test
+    public void validateViewsAreLiveAndReadOnly() {
+        final PositionColumns columns = new PositionColumns();
+        final List<Position> view = columns.asPositionList();
+        columns.add(new Position(1, 1, N));
+        assertEquals(1, view.size());
+        assertEquals(new Position(1, 1, N), view.get(0));
+        try {
+            view.add(new Position(2, 2, N));
+            fail("The view must be read-only");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+
+        columns.add(new Position(2, 2, E));
+        final PrimitiveIterator.OfLong states = columns.stateIterator();
+        assertEquals(pack(1, 1, N.ordinal()), states.nextLong());
+        assertEquals(pack(2, 2, E.ordinal()), states.nextLong());
+        assertFalse(states.hasNext());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void validateIndexesBeyondTheSizeAreRejected() {
+        final PositionColumns columns = new PositionColumns(16);
+        columns.add(0, 0, 0);
+        columns.getX(1);
+    }
+
+    @Test
+    public void validateFrozenColumnsAreReadOnly() {
+        final PositionColumns columns = new PositionColumns();
+        columns.add(0, 0, 0);
+        columns.freeze();
+        assertTrue(columns.isFrozen());
+        try {
+            columns.add(1, 1, 1);
+            fail("Frozen columns must NOT be modified");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+        try {
+            columns.clear();
+            fail("Frozen columns must NOT be cleared");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+        assertEquals(1, columns.size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.service.Position.Orientation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class ReportWriterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateABigReportMatchesTheDescriptions() throws IOException {
+        // More lines than the segments hold, so the report is flushed several times through a gathering write
+        final Random random = new Random(5);
+        final StringBuilder expected = new StringBuilder("== Delivery Report ==").append(System.lineSeparator());
+        final Path file = folder.getRoot().toPath().resolve("report.txt");
+        try (final ReportWriter writer = ReportWriter.open(file)) {
+            writer.writeHeader();
+            for (int i = 0; i < 20_000; i++) {
+                final int x = i == 0 ? Integer.MIN_VALUE : random.nextInt();
+                final int y = i == 0 ? Integer.MAX_VALUE : random.nextInt(21) - 10;
+                final Orientation orientation = Orientation.values()[i % 4];
+                writer.writeLine(x, y, orientation.ordinal());
+                expected.append(new Position(x, y, orientation).getDescription()).append(System.lineSeparator());
+            }
+            assertEquals(expected.length(), writer.getBytesWritten());
+        }
+
+        assertEquals(expected.toString(), new String(Files.readAllBytes(file), US_ASCII));
+    }
+
+    @Test
+    public void validateNestedWritersDoNotShareTheirSegments() throws IOException {
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        final StringBuilder firstExpected = new StringBuilder();
+        final StringBuilder secondExpected = new StringBuilder();
+        try (final ReportWriter firstWriter = new ReportWriter(Channels.newChannel(first));
+             final ReportWriter secondWriter = new ReportWriter(Channels.newChannel(second))) {
+            for (int i = 0; i < 5_000; i++) {
+                firstWriter.writeLine(i, -i, Orientation.N.ordinal());
+                firstExpected.append(new Position(i, -i, Orientation.N).getDescription()).append(System.lineSeparator());
+                secondWriter.writeLine(-i, i, Orientation.S.ordinal());
+                secondExpected.append(new Position(-i, i, Orientation.S).getDescription()).append(System.lineSeparator());
+            }
+        }
+
+        assertEquals(firstExpected.toString(), new String(first.toByteArray(), US_ASCII));
+        assertEquals(secondExpected.toString(), new String(second.toByteArray(), US_ASCII));
+    }
+
+    @Test
+    public void validateAPooledWriterStartsEmpty() throws IOException {
+        for (int report = 0; report < 3; report++) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (final ReportWriter writer = new ReportWriter(Channels.newChannel(output))) {
+                writer.writeLine(report, report, Orientation.E.ordinal());
+                // Nothing is flushed before the close, so just the line of this report is pending
+                assertEquals(0, output.size());
+                assertEquals(new Position(report, report, Orientation.E).getDescription().length()
+                             + System.lineSeparator().length(), writer.getBytesWritten());
+            }
+            assertEquals(new Position(report, report, Orientation.E).getDescription() + System.lineSeparator(),
+                         new String(output.toByteArray(), US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.util.CommandRuns;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.s4n.delivery.service.Position.Orientation.E;
+import static com.s4n.delivery.service.Position.Orientation.N;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RouteColumnsTest {
+
+    @Test
+    public void validateGrowthKeepsTheRoutes() {
+        final RouteColumns columns = new RouteColumns(1);
+        for (int i = 0; i < 1_000; i++) {
+            columns.add(commandsOf(i), pack(i, i, 0));
+        }
+        assertEquals(1_000, columns.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(commandsOf(i), columns.getNormalizedCommands(i));
+            assertEquals(i, columns.getX(i));
+        }
+    }
+
+    @Test
+    public void validateEverySourceStoresTheSameRoute() {
+        final byte[] bytes = "xAADAx".getBytes(US_ASCII);
+        final RouteColumns columns = new RouteColumns();
+        columns.add(bytes, 1, 5, pack(1, 1, 0));
+        columns.add(ByteBuffer.wrap(bytes), 1, 5, pack(1, 1, 0));
+        columns.add("AADA", pack(1, 1, 0));
+        columns.add(new Route("AADA", new Position(1, 1, E)));
+        for (int i = 0; i < columns.size(); i++) {
+            assertEquals("AADA", columns.getNormalizedCommands(i));
+            assertEquals(new Route("AADA", new Position(1, 1, E)), columns.getNormalizedRoute(i));
+        }
+    }
+
+    @Test
+    public void validateAddAllWithAndWithoutDeduplication() {
+        final RouteColumns other = new RouteColumns();
+        other.add("AAD", pack(0, 3, 0));
+        other.add("AI", pack(0, 1, 1));
+        for (final boolean deduplicate : new boolean[]{false, true}) {
+            final RouteColumns columns = new RouteColumns(1, deduplicate);
+            columns.add("AI", pack(0, 1, 1));
+            columns.addAll(other);
+            assertEquals(3, columns.size());
+            assertEquals("AAD", columns.getNormalizedCommands(1));
+            assertEquals("AI", columns.getNormalizedCommands(2));
+            assertEquals(pack(0, 1, 1), columns.getState(2));
+        }
+    }
+
+    @Test
+    public void validateDeduplicatedCommandsShareTheBuffer() {
+        final RouteColumns plain = new RouteColumns(1, false);
+        final RouteColumns deduplicated = new RouteColumns(1, true);
+        final Set<CommandRuns> distinctRuns = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            // 500 distinct commands, so the deduplication table grows and probes several times
+            final String commands = commandsOf(i % 500) + Integer.toBinaryString(i % 500).replace('0', 'A').replace('1', 'D');
+            distinctRuns.add(CommandRuns.parse(commands));
+            plain.add(commands, pack(i, 0, 0));
+            deduplicated.add(commands, pack(i, 0, 0));
+        }
+        assertTrue(distinctRuns.size() > 100);
+        assertEquals(distinctRuns.stream().mapToInt(CommandRuns::getEncodedLength).sum(), deduplicated.getCommandsLength());
+        assertTrue(plain.getCommandsLength() > deduplicated.getCommandsLength());
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(plain.getNormalizedCommands(i), deduplicated.getNormalizedCommands(i));
+            assertEquals(plain.getState(i), deduplicated.getState(i));
+        }
+    }
+
+    @Test
+    public void validateViewIsLiveAndReadOnly() {
+        final RouteColumns columns = new RouteColumns();
+        final List<Route> view = columns.asNormalizedRouteList();
+        columns.add("A", pack(0, 1, 1));
+        assertEquals(1, view.size());
+        assertEquals(new Route("A", new Position(0, 1, N)), view.get(0));
+        try {
+            view.add(new Route("A", new Position(0, 1, N)));
+            fail("The view must be read-only");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void validateFrozenColumnsAreReadOnly() {
+        final RouteColumns columns = new RouteColumns();
+        columns.add("A", pack(0, 1, 1));
+        columns.freeze();
+        assertFalse(columns.getPointsOfDelivery().asPositionList().isEmpty());
+        try {
+            columns.add("A", pack(0, 1, 1));
+            fail("Frozen columns must NOT be modified");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+        try {
+            columns.getPointsOfDelivery().add(0, 0, 0);
+            fail("The points of delivery of frozen columns must NOT be modified");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void validateTheDroneDoesNotFreezeTheGivenColumns() {
+        final RouteColumns columns = new RouteColumns();
+        columns.add("A", pack(0, 1, 1));
+        final Drone drone = new Drone("01", columns);
+        columns.add("AA", pack(0, 2, 1));
+        assertEquals(2, drone.getNormalizedRoutes().size());
+
+        final Drone fromList = new Drone("02", Collections.singletonList(new Route("A", new Position(0, 1, N))));
+        try {
+            fromList.getRouteColumns().add("A", pack(0, 1, 1));
+            fail("The columns built by the drone from a list are frozen");
+        } catch (final UnsupportedOperationException expected) {
+            // Expected
+        }
+    }
+
+    private static String commandsOf(final int route) {
+        final StringBuilder commands = new StringBuilder();
+        for (int i = 0; i <= route % 7; i++) {
+            commands.append('A');
+        }
+        return commands.append(route % 2 == 0 ? "D" : "I").toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.util.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.util.RouteFileReader.COMPILED_RESOLVER;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class RouteSubmissionServerTest {
+
+    private static final int CLIENTS = 8;
+    private static final int REQUESTS_PER_CLIENT = 25;
+    private static final String NL = System.lineSeparator();
+    private DeliveryServiceImpl deliveryService;
+    private RouteSubmissionServer server;
+    private byte[] routes;
+
+    @Before
+    public void setUp() throws IOException {
+        final Config config = new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE));
+        deliveryService = new DeliveryServiceImpl(config);
+        server = deliveryService.startServer(0);
+        routes = Files.readAllBytes(Paths.get("inputs", "in01.txt"));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        deliveryService.close();
+    }
+
+    @Test
+    public void validateResponse() throws IOException {
+        final Response response = post("01", routes);
+        assertEquals(200, response.status);
+        assertEquals("== Delivery Report ==" + NL
+                     + "(-2, 4) North orientation" + NL
+                     + "(-1, -1) South orientation" + NL
+                     + "(-1, 3) North orientation" + NL
+                     + "(0, 10) North orientation" + NL
+                     + "== Tours ==" + NL
+                     + "IAADAAAA DADAAAAA DDAAAA DADAAA" + NL
+                     + "AAAAAAAAAA DDAAAAAAAAAA" + NL, response.body);
+    }
+
+    @Test
+    public void validateErrors() throws IOException {
+        // (10, 10) is out of the bounds of the test configuration
+        assertEquals(422, post("01", "AAAAAAAAAADAAAAAAAAAA".getBytes(US_ASCII)).status);
+        assertEquals(400, post("01", new byte[0]).status);
+        assertEquals(404, post("", routes).status);
+    }
+
+    @Test
+    public void validateABodyLargerThanTheMaximumIsRejected() throws IOException {
+        server.close();
+        server = new RouteSubmissionServer(0, 1, 1, routes.length - 1, COMPILED_RESOLVER, batch -> { });
+
+        assertEquals(413, post("01", routes).status);
+        // The connection is still usable for the next request
+        assertEquals(400, post("01", new byte[0]).status);
+    }
+
+    @Test
+    public void validateConcurrentClientsGetTheirOwnResponses() throws Exception {
+        // Just the responses are checked, the throughput and the latency are measured by RouteSubmissionBenchmark
+        final String expected = post("01", routes).body;
+        final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                final String droneCode = String.format("%02d", client + 1);
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        final Response response = post(droneCode, routes);
+                        assertEquals(200, response.status);
+                        assertEquals(expected, response.body);
+                    }
+                    return REQUESTS_PER_CLIENT;
+                }));
+            }
+            for (final Future<Integer> future : futures) {
+                assertEquals(REQUESTS_PER_CLIENT, (int) future.get());
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private Response post(final String droneCode, final byte[] body) throws IOException {
+        final URL url = new URL("http://127.0.0.1:" + server.getPort() + RouteSubmissionServer.CONTEXT_PATH + droneCode);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        try (final OutputStream output = connection.getOutputStream()) {
+            output.write(body);
+        }
+        final int status = connection.getResponseCode();
+        // The whole body is read, even for the errors, so the connection is kept alive and reused
+        try (final InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new Response(status, IOUtils.toString(input, US_ASCII));
+        }
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final String body;
+
+        private Response(final int status, final String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.s4n.delivery.service;
+
+import com.s4n.delivery.app.Config;
+import com.s4n.delivery.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+
+import static com.s4n.delivery.app.Constants.DEFAULT_CONFIG_FILE;
+import static com.s4n.delivery.app.Constants.OUTPUT_FOLDER_PATH_PROPERTY_NAME;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamingProcessTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateStreamedReportsMatchTheBatchReports() throws IOException {
+        final Path batchFolder = folder.newFolder("batch").toPath();
+        final Path streamingFolder = folder.newFolder("streaming").toPath();
+        final Config batchConfig = configWithOutputFolder(batchFolder);
+        final Set<File> inputFiles = FileUtils.loadAllInputFiles(batchConfig);
+        try (final DeliveryServiceImpl batch = new DeliveryServiceImpl(batchConfig)) {
+            batch.collect(inputFiles);
+            batch.deliver();
+            batch.generateReports();
+        }
+        try (final DeliveryServiceImpl streaming = new DeliveryServiceImpl(configWithOutputFolder(streamingFolder))) {
+            streaming.process(inputFiles);
+        }
+
+        final String[] reports = batchFolder.toFile().list();
+        assertEquals(2, reports.length);
+        for (final String report : reports) {
+            assertArrayEquals(report, Files.readAllBytes(batchFolder.resolve(report)),
+                              Files.readAllBytes(streamingFolder.resolve(report)));
+        }
+        assertEquals(2, streamingFolder.toFile().list().length);
+    }
+
+    @Test
+    public void validateAFailedFileLeavesNoReport() throws IOException {
+        final Path outputFolder = folder.newFolder("reports").toPath();
+        final File input = folder.newFile("in07.txt");
+        // The first tour is fine, the point of the fourth route, (12, 12), is out of the bounds of the test configuration
+        Files.write(input.toPath(), ("A\nA\nA\n" + "AAAAAAAAAAAADAAAAAAAAAAAA\n").getBytes(US_ASCII));
+        try (final DeliveryServiceImpl streaming = new DeliveryServiceImpl(configWithOutputFolder(outputFolder))) {
+            streaming.process(Collections.singleton(input));
+            fail("The point out of the bounds must be rejected");
+        } catch (final IllegalArgumentException expected) {
+            // Expected
+        }
+        assertEquals(0, outputFolder.toFile().list().length);
+    }
+
+    private static Config configWithOutputFolder(final Path outputFolder) {
+        final Properties overrides = new Properties();
+        overrides.setProperty(OUTPUT_FOLDER_PATH_PROPERTY_NAME, outputFolder.toString());
+        return new Config(FileUtils.getResourceAsInputStream(DEFAULT_CONFIG_FILE), overrides);
+    }
+}
@@ -0,0 +1,72 @@
+package com.s4n.delivery.service;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.lang.Math.abs;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SweepTourBuilderTest {
+
+    private static final int MAX_OPERATION_RADIO = 10;
+
+    @Test
+    public void validateNoTourExceedsTheFlightLengthOfTheRadio() {
+        final long maxTourLength = SweepTourBuilder.maxTourLengthFor(MAX_OPERATION_RADIO);
+        final SweepTourBuilder builder = new SweepTourBuilder(maxTourLength);
+        final Random random = new Random(14);
+        for (final int maxLoad : new int[] {1, 3, 10, 1_000}) {
+            final PositionColumns points = new PositionColumns();
+            for (int i = 0; i < 2_000; i++) {
+                points.add(pack(random.nextInt(2 * MAX_OPERATION_RADIO + 1) - MAX_OPERATION_RADIO,
+                                random.nextInt(2 * MAX_OPERATION_RADIO + 1) - MAX_OPERATION_RADIO, 1));
+            }
+            final int[] order = new int[points.size()];
+            final int[] tourEnds = new int[points.size()];
+            final int tours = builder.buildTours(points, 0, points.size(), maxLoad, order, tourEnds);
+
+            final boolean[] delivered = new boolean[points.size()];
+            for (int tour = 0, tourStart = 0; tour < tours; tourStart = tourEnds[tour++]) {
+                assertTrue(tourEnds[tour] - tourStart <= maxLoad);
+                long length = 0;
+                int lastX = 0;
+                int lastY = 0;
+                for (int k = tourStart; k < tourEnds[tour]; k++) {
+                    assertTrue(!delivered[order[k]]);
+                    delivered[order[k]] = true;
+                    length += abs(points.getX(order[k]) - lastX) + abs(points.getY(order[k]) - lastY);
+                    lastX = points.getX(order[k]);
+                    lastY = points.getY(order[k]);
+                }
+                length += abs(lastX) + abs(lastY);
+                assertTrue("Tour " + tour + " flies " + length, length <= maxTourLength);
+            }
+            assertEquals(points.size(), tourEnds[tours - 1]);
+            for (final boolean packageDelivered : delivered) {
+                assertTrue(packageDelivered);
+            }
+        }
+    }
+
+    @Test
+    public void validateAPackageBeyondTheFlightLengthGoesAlone() {
+        final PositionColumns points = new PositionColumns();
+        points.add(pack(1, 1, 1));
+        // Within the limits, as the Y axis is within the radio, but beyond the corner of the square of the radio
+        points.add(pack(30, 2, 1));
+        points.add(pack(2, 2, 1));
+        final int[] order = new int[3];
+        final int[] tourEnds = new int[3];
+        final int tours = new SweepTourBuilder(SweepTourBuilder.maxTourLengthFor(MAX_OPERATION_RADIO))
+                .buildTours(points, 0, 3, 3, order, tourEnds);
+
+        // The far package has the smallest angle, so it is the first tour
+        assertEquals(2, tours);
+        assertEquals(1, tourEnds[0]);
+        assertEquals(1, order[0]);
+        assertEquals(3, tourEnds[1]);
+    }
+}
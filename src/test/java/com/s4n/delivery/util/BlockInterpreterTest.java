@@ -0,0 +1,56 @@
+package com.s4n.delivery.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+
+public class BlockInterpreterTest {
+
+    private static final String ALPHABET = "AAAAIDX";
+
+    @Test
+    public void validateBlocksAgainstTheInterpreter() {
+        final Random random = new Random(12);
+        for (int test = 0; test < 10_000; test++) {
+            final String commands = randomCommands(random, random.nextInt(40));
+            final long start = pack(random.nextInt(21) - 10, random.nextInt(21) - 10, random.nextInt(4));
+            final long expected = RouteUtils.calculateEndState(commands, start);
+            final byte[] bytes = commands.getBytes(ISO_8859_1);
+
+            assertEquals(commands, expected, BlockInterpreter.calculateEndState(commands, start));
+            assertEquals(commands, expected, BlockInterpreter.calculateEndState(bytes, 0, bytes.length, start));
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            assertEquals(commands, expected, BlockInterpreter.calculateEndState(direct, 0, bytes.length, start));
+        }
+    }
+
+    @Test
+    public void validateRangesOfABuffer() {
+        final Random random = new Random(21);
+        final byte[] bytes = randomCommands(random, 1000).getBytes(ISO_8859_1);
+        for (int test = 0; test < 1_000; test++) {
+            final int from = random.nextInt(bytes.length);
+            final int to = from + random.nextInt(bytes.length - from + 1);
+            assertEquals(RouteUtils.calculateEndState(bytes, from, to, 0L), BlockInterpreter.calculateEndState(bytes, from, to, 0L));
+        }
+    }
+
+    @Test
+    public void validateDocumentedExample() {
+        assertEquals(pack(2, 3, 0), BlockInterpreter.calculateEndState("AAADAA", pack(0, 0, 1)));
+    }
+
+    private static String randomCommands(final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
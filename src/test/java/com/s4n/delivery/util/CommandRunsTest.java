@@ -0,0 +1,124 @@
+package com.s4n.delivery.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommandRunsTest {
+
+    private static final String ALPHABET = "AAAIDX";
+
+    @Test
+    public void validateLongRunsUseTheVariableLengthCount() {
+        // The counts from 32 on do NOT fit in the first byte of the run, and they take one more byte every 7 bits
+        for (final int count : new int[] {1, 31, 32, 33, 4_095, 4_096, 524_287, 524_288, 2_000_000}) {
+            final String commands = repeat('A', count);
+            final CommandRuns runs = CommandRuns.parse(commands);
+            assertEquals(commands, runs.toString());
+            assertEquals(count, runs.getTextLength());
+            assertEquals(count, runs.getForwardLength());
+            assertEquals(count, y(runs.apply(pack(0, 0, 1))));
+            assertEquals(count < 32 ? 1 : 1 + (Integer.SIZE - Integer.numberOfLeadingZeros(count >>> 5) + 6) / 7,
+                         runs.getEncodedLength());
+        }
+    }
+
+    @Test
+    public void validateGyrosAreReducedToTheirNetRotation() {
+        assertEquals("I", CommandRuns.parse("IIIII").toString());
+        assertEquals("DDD", CommandRuns.parse("DDD").toString());
+        assertEquals("D", CommandRuns.parse("DDDDD").toString());
+        assertEquals("II", CommandRuns.parse("IIID").toString());
+        assertEquals("", CommandRuns.parse("ID").toString());
+        assertEquals("", CommandRuns.parse("DDDD").toString());
+        // The forward runs around the gyros that disappear are merged
+        assertEquals("AA", CommandRuns.parse("AIDA").toString());
+        assertEquals(CommandRuns.parse("AA"), CommandRuns.parse("AIIIIA"));
+
+        final byte[] target = new byte[16];
+        final int length = new CommandRuns.Encoder().reset(target, 0).turn(-7).forward(2).finish();
+        assertEquals("DDDAA", CommandRuns.toText(target, 0, length));
+    }
+
+    @Test
+    public void validateEmptyRoutes() {
+        for (final CommandRuns runs : new CommandRuns[] {CommandRuns.EMPTY, CommandRuns.parse(""), CommandRuns.parse("IDX\r")}) {
+            assertEquals(CommandRuns.EMPTY, runs);
+            assertEquals("", runs.toString());
+            assertEquals(0, runs.getEncodedLength());
+            assertEquals(0, runs.getTextLength());
+            assertEquals(pack(3, -2, 2), runs.apply(pack(3, -2, 2)));
+        }
+    }
+
+    @Test
+    public void validateApplyMatchesTheTextInterpreter() {
+        final Random random = new Random(11);
+        for (int test = 0; test < 10_000; test++) {
+            final StringBuilder commands = new StringBuilder();
+            final int length = random.nextInt(test % 10 == 0 ? 200 : 40);
+            for (int i = 0; i < length; i++) {
+                commands.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            final long start = pack(random.nextInt(41) - 20, random.nextInt(41) - 20, random.nextInt(4));
+            final CommandRuns runs = CommandRuns.parse(commands);
+            final long expected = RouteUtils.calculateEndState(commands, start);
+
+            assertEquals(commands.toString(), expected, runs.apply(start));
+            assertEquals(expected, RouteUtils.calculateEndState(runs.toString(), start));
+            assertTrue(runs.getEncodedLength() <= length);
+            // The normalized form is stable and any source gives the same encoding
+            assertEquals(runs, CommandRuns.parse(runs.toString()));
+            final ByteBuffer buffer = ByteBuffer.wrap(("x" + commands + "x").getBytes(US_ASCII));
+            assertEquals(runs, CommandRuns.parse(buffer, 1, buffer.limit() - 1));
+            final byte[] encoded = new byte[runs.getEncodedLength() + 2];
+            runs.copyTo(encoded, 1);
+            assertEquals(expected, CommandRuns.apply(encoded, 1, encoded.length - 1, start));
+            assertEquals(runs, CommandRuns.copyOf(encoded, 1, encoded.length - 1));
+        }
+    }
+
+    @Test
+    public void validateTheCursorStepsThroughTheCommandsOfTheText() {
+        final Random random = new Random(17);
+        final CommandRuns.Cursor cursor = new CommandRuns.Cursor();
+        for (int test = 0; test < 1_000; test++) {
+            final StringBuilder commands = new StringBuilder();
+            final int length = random.nextInt(test % 10 == 0 ? 200 : 40);
+            for (int i = 0; i < length; i++) {
+                commands.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            final CommandRuns runs = CommandRuns.parse(commands);
+            final StringBuilder stepped = new StringBuilder();
+            cursor.reset(runs);
+            for (int command = cursor.peek(); command >= 0; command = cursor.peek()) {
+                stepped.append((char) command);
+                cursor.advance();
+            }
+            assertEquals(runs.toString(), stepped.toString());
+        }
+        assertEquals(-1, cursor.reset(CommandRuns.parse(repeat('A', 40))).reset(CommandRuns.EMPTY).peek());
+    }
+
+    @Test
+    public void validateForwardRunsMoveInTheCurrentOrientation() {
+        final long end = CommandRuns.parse("AAADAAIIA").apply(pack(0, 0, 1));
+        assertEquals(1, x(end));
+        assertEquals(3, y(end));
+    }
+
+    private static String repeat(final char command, final int count) {
+        final char[] commands = new char[count];
+        Arrays.fill(commands, command);
+        return new String(commands);
+    }
+}
@@ -0,0 +1,113 @@
+package com.s4n.delivery.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void validateTheBucketsOfSmallAndLargeValues() {
+        // The values below 8 have a bucket each, then each power of two is split in 8 buckets
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.upperBoundOf(value));
+        }
+        assertEquals(8, LatencyHistogram.bucketOf(8));
+        assertEquals(15, LatencyHistogram.bucketOf(15));
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(16, LatencyHistogram.bucketOf(17));
+        assertEquals(17, LatencyHistogram.bucketOf(18));
+        assertEquals(17, LatencyHistogram.upperBoundOf(16));
+        // [480, 511] is the last bucket of [256, 511]
+        assertEquals(LatencyHistogram.bucketOf(480), LatencyHistogram.bucketOf(511));
+        assertEquals(511, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(500)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void validateEachValueIsWithinItsBucket() {
+        final Random random = new Random(7);
+        int previousBucket = 0;
+        for (long value = 0; value < 100_000; value++) {
+            final int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket == previousBucket || bucket == previousBucket + 1);
+            assertBounds(value, bucket);
+            previousBucket = bucket;
+        }
+        for (int i = 0; i < 100_000; i++) {
+            final long value = random.nextLong() & Long.MAX_VALUE;
+            assertBounds(value, LatencyHistogram.bucketOf(value));
+        }
+    }
+
+    @Test
+    public void validatePercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(50));
+        for (int value = 1; value <= 1_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1_000, histogram.getCount());
+        assertEquals(500_500, histogram.getTotalNanos());
+        assertEquals(1_000, histogram.getMaxNanos());
+        assertEquals(1, histogram.getPercentileNanos(0));
+        // The 500th value falls in [480, 511], so the percentile is its upper bound
+        assertEquals(511, histogram.getPercentileNanos(50));
+        // The 990th value falls in [960, 1023], whose upper bound is capped to the maximum
+        assertEquals(1_000, histogram.getPercentileNanos(99));
+        assertEquals(1_000, histogram.getPercentileNanos(100));
+
+        histogram.record(-5);
+        assertEquals(1_001, histogram.getCount());
+        assertEquals(500_500, histogram.getTotalNanos());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void validateConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(threads.submit(() -> {
+                    for (int value = 1; value <= 10_000; value++) {
+                        histogram.record(value);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(4 * 50_005_000L, histogram.getTotalNanos());
+        assertEquals(10_000, histogram.getMaxNanos());
+    }
+
+    private static void assertBounds(final long value, final int bucket) {
+        final long upperBound = LatencyHistogram.upperBoundOf(bucket);
+        assertTrue(value + " is above its bucket", value <= upperBound);
+        // At most 12.5% above the value
+        assertTrue(value + " is too far from its upper bound " + upperBound, upperBound - value <= value / 8);
+        if (bucket > 0) {
+            assertTrue(value + " belongs to the previous bucket", LatencyHistogram.upperBoundOf(bucket - 1) < value);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.planner.LegPlanner;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static org.junit.Assert.assertEquals;
+
+public class RouteCommandsCacheTest {
+
+    @Test
+    public void validateCachedLegsMatchTheUncachedLegs() {
+        final Random random = new Random(9);
+        // A small cache forces the shapes to replace each other in their slots
+        for (final long maximumSize : new long[] {0, 1, 16, 100_000}) {
+            final RouteCommandsCache cache = new RouteCommandsCache(maximumSize);
+            for (int test = 0; test < 20_000; test++) {
+                final long start = pack(random.nextInt(41) - 20, random.nextInt(41) - 20, random.nextInt(4));
+                final int endX = random.nextInt(41) - 20;
+                final int endY = random.nextInt(41) - 20;
+
+                final CommandRuns expected = RouteUtils.calculateRouteRuns(start, endX, endY);
+                final CommandRuns runs = cache.getRouteRuns(start, endX, endY);
+                assertEquals(expected, runs);
+                final long end = runs.apply(start);
+                assertEquals(endX, x(end));
+                assertEquals(endY, y(end));
+            }
+            assertEquals(20_000, cache.stats().requestCount());
+        }
+    }
+
+    @Test
+    public void validateTranslatedLegsArePlannedOnce() {
+        final AtomicInteger plannedLegs = new AtomicInteger();
+        final LegPlanner planner = (startState, endX, endY) -> {
+            plannedLegs.incrementAndGet();
+            return RouteUtils.calculateRouteRuns(startState, endX, endY);
+        };
+        final RouteCommandsCache cache = new RouteCommandsCache(1_024, planner);
+        for (int offset = -50; offset <= 50; offset++) {
+            cache.getRouteRuns(pack(offset, offset - 3, 1), offset + 4, offset + 2);
+        }
+        assertEquals(1, plannedLegs.get());
+        assertEquals(100, cache.stats().hitCount());
+        assertEquals(1, cache.size());
+    }
+}
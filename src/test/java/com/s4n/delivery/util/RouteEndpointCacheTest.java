@@ -0,0 +1,69 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.util.RouteFileReader.EndpointResolver;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class RouteEndpointCacheTest {
+
+    private static final long START = pack(0, 0, 1);
+    private static final EndpointResolver INTERPRETER = (buffer, from, to) -> RouteUtils.calculateEndState(buffer, from, to, START);
+
+    @Test
+    public void validateRepeatedRoutesAreResolvedOnce() {
+        final AtomicInteger resolvedRoutes = new AtomicInteger();
+        final RouteEndpointCache cache = new RouteEndpointCache(1024 * 1024, countingResolver(resolvedRoutes));
+        final ByteBuffer buffer = ByteBuffer.wrap("AAIAxAAIA".getBytes(US_ASCII));
+
+        assertEquals(INTERPRETER.resolve(buffer, 0, 4), cache.resolve(buffer, 0, 4));
+        assertEquals(INTERPRETER.resolve(buffer, 5, 9), cache.resolve(buffer, 5, 9));
+        assertEquals(1, resolvedRoutes.get());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    public void validateCollidingHashesNeverReturnAWrongPoint() {
+        final AtomicInteger resolvedRoutes = new AtomicInteger();
+        // Every route has the same hash, so each route that is NOT the cached one must be compared and resolved
+        final RouteEndpointCache cache = new RouteEndpointCache(1024 * 1024, countingResolver(resolvedRoutes)) {
+            @Override
+            long hashOf(final ByteBuffer buffer, final int from, final int to) {
+                return 42;
+            }
+        };
+        final String[] routes = {"AAIA", "AADA", "AAIA", "DDA", "AAAA", "AAIA", "AADA"};
+        for (final String route : routes) {
+            final ByteBuffer buffer = ByteBuffer.wrap(route.getBytes(US_ASCII));
+            assertEquals(route, INTERPRETER.resolve(buffer, 0, buffer.limit()), cache.resolve(buffer, 0, buffer.limit()));
+        }
+        // Just the repetitions of the first route, which owns the cached entry, are NOT resolved again
+        assertEquals(routes.length - 2, resolvedRoutes.get());
+    }
+
+    @Test
+    public void validateLongRoutesAreNeverCached() {
+        final AtomicInteger resolvedRoutes = new AtomicInteger();
+        final RouteEndpointCache cache = new RouteEndpointCache(1024 * 1024, countingResolver(resolvedRoutes));
+        final byte[] route = new byte[RouteEndpointCache.MAX_CACHED_COMMANDS_LENGTH + 1];
+        Arrays.fill(route, (byte) 'A');
+        final ByteBuffer buffer = ByteBuffer.wrap(route);
+        cache.resolve(buffer, 0, route.length);
+        cache.resolve(buffer, 0, route.length);
+        assertEquals(2, resolvedRoutes.get());
+        assertEquals(0, cache.stats().requestCount());
+    }
+
+    private static EndpointResolver countingResolver(final AtomicInteger resolvedRoutes) {
+        return (buffer, from, to) -> {
+            resolvedRoutes.incrementAndGet();
+            return INTERPRETER.resolve(buffer, from, to);
+        };
+    }
+}
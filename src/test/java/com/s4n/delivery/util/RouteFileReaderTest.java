@@ -0,0 +1,94 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.service.RouteColumns;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.s4n.delivery.util.RouteFileReader.DIRECT_RESOLVER;
+import static com.s4n.delivery.util.RouteFileReader.PARALLEL_CHUNK_SIZE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class RouteFileReaderTest {
+
+    private static final String ALPHABET = "AAAAID";
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateParallelParsingMatchesTheSequentialRead() throws IOException {
+        final Random random = new Random(5);
+        for (int test = 0; test < 4; test++) {
+            final File file = writeRandomRoutes(random, 2 * PARALLEL_CHUNK_SIZE + random.nextInt(3 * PARALLEL_CHUNK_SIZE),
+                                                random.nextBoolean());
+            assertSameRoutes(file, false);
+            assertSameRoutes(file, true);
+        }
+    }
+
+    @Test
+    public void validateLinesThatStraddleTheChunks() throws IOException {
+        // A line longer than a chunk in the middle, and CRLF endings whose '\r' and '\n' are around the split points
+        final Random random = new Random(6);
+        final StringBuilder content = new StringBuilder();
+        while (content.length() < PARALLEL_CHUNK_SIZE - 1) {
+            content.append("AAD\r\n");
+        }
+        content.setLength(PARALLEL_CHUNK_SIZE - 1);
+        content.append("\r\n");
+        content.append(randomCommands(random, PARALLEL_CHUNK_SIZE + PARALLEL_CHUNK_SIZE / 2)).append("\r\n");
+        while (content.length() < 3 * PARALLEL_CHUNK_SIZE) {
+            content.append(randomCommands(random, random.nextInt(30))).append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        content.append("IAAA");
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content.toString().getBytes(US_ASCII));
+
+        assertSameRoutes(file, false);
+        assertSameRoutes(file, true);
+    }
+
+    private void assertSameRoutes(final File file, final boolean deduplicate) throws IOException {
+        final RouteColumns expected = new RouteColumns(16, deduplicate);
+        RouteFileReader.readRoutes(file, DIRECT_RESOLVER, expected::add);
+        final RouteColumns actual = RouteFileReader.parseRoutes(file, pool, DIRECT_RESOLVER,
+                                                                () -> new RouteColumns(16, deduplicate));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("Route " + i, expected.getState(i), actual.getState(i));
+            assertEquals("Route " + i, expected.getNormalizedCommands(i), actual.getNormalizedCommands(i));
+        }
+        // The deduplicated chunks keep just the distinct commands, as the sequential read does
+        assertEquals(expected.getCommandsLength(), actual.getCommandsLength());
+    }
+
+    private File writeRandomRoutes(final Random random, final int size, final boolean crlf) throws IOException {
+        final StringBuilder content = new StringBuilder(size + 64);
+        while (content.length() < size) {
+            // Few distinct short routes, so the deduplication shares them, and some long ones
+            final int length = random.nextInt(100) == 0 ? 1_000 + random.nextInt(10_000) : random.nextInt(12);
+            content.append(randomCommands(random, length)).append(crlf ? "\r\n" : "\n");
+        }
+        final File file = folder.newFile();
+        Files.write(file.toPath(), content.toString().getBytes(US_ASCII));
+        return file;
+    }
+
+    private static String randomCommands(final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
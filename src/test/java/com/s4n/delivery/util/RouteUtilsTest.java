@@ -0,0 +1,80 @@
+package com.s4n.delivery.util;
+
+import com.s4n.delivery.service.Position;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.s4n.delivery.service.Position.Orientation.E;
+import static com.s4n.delivery.service.Position.Orientation.N;
+import static com.s4n.delivery.service.Position.Orientation.W;
+import static com.s4n.delivery.util.PackedPositions.pack;
+import static com.s4n.delivery.util.PackedPositions.x;
+import static com.s4n.delivery.util.PackedPositions.y;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+
+public class RouteUtilsTest {
+
+    private static final String ALPHABET = "AAAIDX\r";
+
+    @Test
+    public void validateDocumentedExamples() {
+        assertEquals(new Position(2, 3, E), RouteUtils.calculateEndPosition("AAADAA", new Position(0, 0, N)));
+        assertEquals(new Position(0, 0, N), RouteUtils.calculateEndPosition("", new Position(0, 0, N)));
+        assertEquals("DDADAAAAA", RouteUtils.calculateRouteCommands(new Position(-2, 4, W), new Position(-1, -1, N)));
+    }
+
+    @Test
+    public void validateEveryCommandSourceAgainstTheCharSequenceInterpreter() {
+        final Random random = new Random(1);
+        for (int test = 0; test < 10_000; test++) {
+            final String commands = randomCommands(random, random.nextInt(60));
+            final long start = pack(random.nextInt(41) - 20, random.nextInt(41) - 20, random.nextInt(4));
+            final long expected = RouteUtils.calculateEndState(commands, start);
+            final byte[] bytes = ("xx" + commands + "yy").getBytes(ISO_8859_1);
+            final int from = 2;
+            final int to = bytes.length - 2;
+
+            assertEquals(commands, expected, RouteUtils.calculateEndState(new StringBuilder(commands), start));
+            assertEquals(commands, expected, RouteUtils.calculateEndState(bytes, from, to, start));
+            assertEquals(commands, expected, RouteUtils.calculateEndState(ByteBuffer.wrap(bytes), from, to, start));
+            final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes);
+            assertEquals(commands, expected, RouteUtils.calculateEndState(direct, from, to, start));
+            assertEquals(commands, expected, BlockInterpreter.calculateEndState(bytes, from, to, start));
+        }
+    }
+
+    @Test
+    public void validateSlicedHeapBuffersUseTheirOffset() {
+        final byte[] bytes = "IIIIAAAD".getBytes(ISO_8859_1);
+        final ByteBuffer slice = ((ByteBuffer) ByteBuffer.wrap(bytes).position(4)).slice();
+        assertEquals(RouteUtils.calculateEndState("AAAD", 0L), RouteUtils.calculateEndState(slice, 0, 4, 0L));
+    }
+
+    @Test
+    public void validateRoutesReachTheirDestination() {
+        final Random random = new Random(2);
+        for (int test = 0; test < 10_000; test++) {
+            final long start = pack(random.nextInt(41) - 20, random.nextInt(41) - 20, random.nextInt(4));
+            final int endX = random.nextInt(41) - 20;
+            final int endY = random.nextInt(41) - 20;
+            final String commands = RouteUtils.calculateRouteCommands(start, endX, endY);
+            final long end = RouteUtils.calculateEndState(commands, start);
+
+            assertEquals(commands, endX, x(end));
+            assertEquals(commands, endY, y(end));
+            assertEquals(commands, end, RouteUtils.calculateRouteRuns(start, endX, endY).apply(start));
+        }
+    }
+
+    private static String randomCommands(final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package com.s4n.delivery.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorkloadGeneratorTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void validateTheRoutesOfTheFilesAddUpToTheTotal() {
+        for (final double skew : new double[]{0, 0.5, 1, 2.5}) {
+            for (final long routes : new long[]{0, 1, 7, 1_000, 123_457}) {
+                final long[] routesPerFile = new WorkloadGenerator(13, routes, skew, 0, 10, 1).getRoutesPerFile();
+                assertEquals(13, routesPerFile.length);
+                assertEquals("Skew " + skew + ", routes " + routes, routes, Arrays.stream(routesPerFile).sum());
+            }
+        }
+    }
+
+    @Test
+    public void validateWithoutSkewAllTheFilesHaveTheSameRoutes() {
+        final long[] even = new long[5];
+        Arrays.fill(even, 200);
+        assertArrayEquals(even, new WorkloadGenerator(5, 1_000, 0, 0, 10, 1).getRoutesPerFile());
+        // The leftovers of the rounding go one by one to the first files
+        assertArrayEquals(new long[]{201, 201, 200, 200, 200},
+                          new WorkloadGenerator(5, 1_002, 0, 0, 10, 1).getRoutesPerFile());
+    }
+
+    @Test
+    public void validateWithSkewTheFirstFilesHaveMoreRoutes() {
+        final long[] routesPerFile = new WorkloadGenerator(8, 100_000, 1, 0, 10, 1).getRoutesPerFile();
+        for (int file = 1; file < routesPerFile.length; file++) {
+            assertTrue(routesPerFile[file - 1] > routesPerFile[file]);
+        }
+        // Zipf law of exponent 1: the second file has about half of the routes of the first one
+        assertEquals(routesPerFile[0] / 2.0, routesPerFile[1], 1);
+    }
+
+    @Test
+    public void validateTheSameSeedWritesTheSameFiles() throws IOException {
+        final Path first = folder.newFolder("first").toPath();
+        final Path second = folder.newFolder("second").toPath();
+        final Path other = folder.newFolder("other").toPath();
+        new WorkloadGenerator(4, 5_000, 1, 0.3, 10, 7).generate(first, "in", "txt");
+        new WorkloadGenerator(4, 5_000, 1, 0.3, 10, 7).generate(second, "in", "txt");
+        new WorkloadGenerator(4, 5_000, 1, 0.3, 10, 8).generate(other, "in", "txt");
+
+        final String[] names = first.toFile().list();
+        Arrays.sort(names);
+        assertArrayEquals(new String[]{"in01.txt", "in02.txt", "in03.txt", "in04.txt"}, names);
+        for (final String name : names) {
+            assertArrayEquals(name, Files.readAllBytes(first.resolve(name)), Files.readAllBytes(second.resolve(name)));
+        }
+        assertNotEquals(new String(Files.readAllBytes(first.resolve("in01.txt"))),
+                        new String(Files.readAllBytes(other.resolve("in01.txt"))));
+    }
+
+    @Test
+    public void validateTheSettingsNameChangesWithEverySetting() {
+        final String name = new WorkloadGenerator(4, 100, 1, 0.3, 10, 7).getSettingsName();
+        assertEquals(name, new WorkloadGenerator(4, 100, 1, 0.3, 10, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(5, 100, 1, 0.3, 10, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(4, 101, 1, 0.3, 10, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(4, 100, 1.5, 0.3, 10, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(4, 100, 1, 0.4, 10, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(4, 100, 1, 0.3, 11, 7).getSettingsName());
+        assertNotEquals(name, new WorkloadGenerator(4, 100, 1, 0.3, 10, 8).getSettingsName());
+    }
+}